@@ -40,6 +40,13 @@ function App() {
   };
 
   const handleLogout = () => {
+    if (user?.token) {
+      // Oturum token'ını sunucuda geçersiz kıl
+      fetch('http://localhost:8080/api/users/logout', {
+        method: 'POST',
+        headers: { Authorization: `Bearer ${user.token}` }
+      }).catch(() => {});
+    }
     setUser(null);
     setCurrentPage('home');
   };
@@ -3,7 +3,10 @@ import { useEffect, useRef, useState } from 'react';
 import { useTranslation } from 'react-i18next';
 import axios from 'axios';
 import './Chat.css';
-import type { User, Message } from '../../types';
+import type { User, Message, HistoryPage } from '../../types';
+import { ChatSocket } from '../../services/chatSocket';
+
+const CHAT_SOCKET_URL = 'ws://localhost:8080/ws/chat';
 
 interface ChatProps {
   user: User;
@@ -16,28 +19,92 @@ export default function Chat({ user, onLogout }: ChatProps) {
   const [messages, setMessages] = useState<Message[]>([]);
   const [isLoading, setIsLoading] = useState(false);
   const messagesEndRef = useRef<HTMLDivElement | null>(null);
+  const socketRef = useRef<ChatSocket | null>(null);
+
+  // One persistent channel per session; it connects lazily on the first message
+  useEffect(() => {
+    const socket = new ChatSocket(CHAT_SOCKET_URL, { token: user.token, userId: user.id });
+    socketRef.current = socket;
+    return () => socket.close();
+  }, [user.id, user.token]);
+
+  // Load the latest history page so the conversation survives a reload
+  useEffect(() => {
+    // History is only served for the session token's user
+    if (!user.token) return;
+    let cancelled = false;
+    axios
+      .get<HistoryPage>('http://localhost:8080/api/chat/history?includeText=true',
+        { headers: { Authorization: `Bearer ${user.token}` } })
+      .then((response) => {
+        if (cancelled) return;
+        // Items come newest first; render oldest first
+        const history = [...response.data.items].reverse().flatMap((item): Message[] => [
+          { sender: 'user', content: item.userMessage ?? '' },
+          { sender: 'bot', content: item.botResponse ?? '' }
+        ]);
+        setMessages((prev) => [...history, ...prev]);
+      })
+      .catch((error) => console.error('History error:', error));
+    return () => {
+      cancelled = true;
+    };
+  }, [user.token]);
 
   // Auto-scroll to bottom when messages change or while loading
   useEffect(() => {
     messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
   }, [messages, isLoading]);
 
+  // Appends a streamed chunk to the bot message, creating it on the first chunk
+  const appendToBotMessage = (botId: string, text: string) => {
+    setIsLoading(false);
+    setMessages((prev) =>
+      prev.some((msg) => msg.id === botId)
+        ? prev.map((msg) => (msg.id === botId ? { ...msg, content: msg.content + text } : msg))
+        : [...prev, { id: botId, sender: 'bot', content: text }]
+    );
+  };
+
+  // Streams the answer over the socket; resolves false if the channel is unavailable
+  const askOverSocket = (text: string, botId: string) =>
+    new Promise<boolean>((resolve, reject) => {
+      const socket = socketRef.current;
+      if (!socket) {
+        resolve(false);
+        return;
+      }
+      socket
+        .send(text, {
+          onToken: (token) => appendToBotMessage(botId, token),
+          onDone: () => resolve(true),
+          onError: (status, message) => reject(new Error(`${status}: ${message}`))
+        })
+        .catch(() => resolve(false));
+    });
+
   const handleSubmit = async (e: React.FormEvent) => {
     e.preventDefault();
     if (!input.trim()) return;
 
-    const userMessage: Message = { sender: 'user', content: input };
+    const text = input;
+    const userMessage: Message = { sender: 'user', content: text };
     setMessages((prev) => [...prev, userMessage]);
     setInput('');
     setIsLoading(true);
 
     try {
-      const response = await axios.post(
-        `http://localhost:8080/api/chat?userId=${user.id}`,
-        { message: input }
-      );
-      const botMessage: Message = { sender: 'bot', content: response.data };
-      setMessages((prev) => [...prev, botMessage]);
+      const streamed = await askOverSocket(text, `bot-${Date.now()}`);
+      if (!streamed) {
+        // Fall back to a plain request when the socket cannot be opened
+        const response = await axios.post(
+          `http://localhost:8080/api/chat?userId=${user.id}`,
+          { message: text },
+          user.token ? { headers: { Authorization: `Bearer ${user.token}` } } : undefined
+        );
+        const botMessage: Message = { sender: 'bot', content: response.data };
+        setMessages((prev) => [...prev, botMessage]);
+      }
     } catch (error) {
       console.error('API error:', error);
       const errorMessage: Message = {
@@ -23,7 +23,9 @@ const LanguageSelector: React.FC<Props> = ({ userId }) => {
     if (userId) {
       try {
         await fetch(`/api/profile/${userId}/language?language=${languageCode}`, {
-          method: 'PUT'
+          method: 'PUT',
+          // Single-field write: overwrite regardless of the current profile version
+          headers: { 'If-Match': '*' }
         });
       } catch (e) {
         // Non-blocking: log and continue
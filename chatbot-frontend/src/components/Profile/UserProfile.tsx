@@ -20,6 +20,8 @@ interface ProfileData {
 const UserProfile: React.FC<UserProfileProps> = ({ userId, onClose }) => {
   const { t } = useTranslation();
   const [profile, setProfile] = useState<ProfileData>({});
+  // Server-side version of the loaded profile, sent back as If-Match on save
+  const [etag, setEtag] = useState<string | null>(null);
   const [isLoading, setIsLoading] = useState(false);
   const [isSaving, setIsSaving] = useState(false);
   const [advancedOpen, setAdvancedOpen] = useState(true);
@@ -33,6 +35,7 @@ const UserProfile: React.FC<UserProfileProps> = ({ userId, onClose }) => {
       setIsLoading(true);
       const response = await fetch(`/api/profile/${userId}`);
       if (response.ok) {
+        setEtag(response.headers.get('ETag'));
         const data = await response.json();
         // Normalize incoming data to expected frontend shapes
         setProfile({
@@ -56,10 +59,16 @@ const UserProfile: React.FC<UserProfileProps> = ({ userId, onClose }) => {
         method: 'PUT',
         headers: {
           'Content-Type': 'application/json',
+          'If-Match': etag ?? '*',
         },
         body: JSON.stringify(profile),
       });
 
+      if (response.status === 412) {
+        // Profile was changed elsewhere; reload instead of overwriting it
+        await loadProfile();
+        return;
+      }
       if (response.ok) {
         // Success - could show a toast notification here
         onClose();
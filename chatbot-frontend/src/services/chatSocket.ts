@@ -0,0 +1,106 @@
+// Persistent chat channel: authenticates once, then multiplexes streamed answers by id.
+
+export interface StreamHandlers {
+  onToken: (text: string) => void;
+  onDone: () => void;
+  onError: (status: number, message: string) => void;
+}
+
+interface ServerFrame {
+  type: 'ready' | 'token' | 'done' | 'cancelled' | 'error' | 'pong';
+  id?: string;
+  text?: string;
+  status?: number;
+  message?: string;
+}
+
+const HEARTBEAT_MS = 30_000;
+
+export class ChatSocket {
+  private socket: WebSocket | null = null;
+  private ready: Promise<void> | null = null;
+  private readonly streams = new Map<string, StreamHandlers>();
+  private heartbeat: ReturnType<typeof setInterval> | undefined;
+  private nextId = 0;
+
+  constructor(
+    private readonly url: string,
+    private readonly auth: { token?: string; userId?: string | null }
+  ) {}
+
+  /**
+   * Sends a message and streams the answer to the handlers.
+   * Rejects if the channel cannot be opened, so the caller can fall back to HTTP.
+   */
+  async send(message: string, handlers: StreamHandlers): Promise<string> {
+    await this.connect();
+    const id = `c${++this.nextId}`;
+    this.streams.set(id, handlers);
+    this.socket?.send(JSON.stringify({ type: 'chat', id, message }));
+    return id;
+  }
+
+  cancel(id: string) {
+    this.socket?.send(JSON.stringify({ type: 'cancel', id }));
+  }
+
+  close() {
+    this.socket?.close();
+    this.reset();
+  }
+
+  private connect(): Promise<void> {
+    if (this.ready) return this.ready;
+    this.ready = new Promise<void>((resolve, reject) => {
+      const socket = new WebSocket(this.url);
+      this.socket = socket;
+
+      socket.onopen = () => {
+        socket.send(JSON.stringify({ type: 'auth', token: this.auth.token, userId: this.auth.userId }));
+      };
+
+      socket.onmessage = (event) => {
+        const frame: ServerFrame = JSON.parse(event.data);
+        const handlers = frame.id ? this.streams.get(frame.id) : undefined;
+        switch (frame.type) {
+          case 'ready':
+            this.heartbeat = setInterval(() => socket.send(JSON.stringify({ type: 'ping' })), HEARTBEAT_MS);
+            resolve();
+            break;
+          case 'token':
+            handlers?.onToken(frame.text ?? '');
+            break;
+          case 'done':
+          case 'cancelled':
+            this.streams.delete(frame.id!);
+            handlers?.onDone();
+            break;
+          case 'error':
+            if (handlers) {
+              this.streams.delete(frame.id!);
+              handlers.onError(frame.status ?? 500, frame.message ?? '');
+            } else {
+              reject(new Error(frame.message));
+            }
+            break;
+        }
+      };
+
+      socket.onclose = () => {
+        reject(new Error('connection closed'));
+        if (this.socket !== socket) return;
+        // Fail in-flight streams; the next send reconnects
+        this.streams.forEach((handlers) => handlers.onError(0, 'connection closed'));
+        this.reset();
+      };
+    });
+    return this.ready;
+  }
+
+  private reset() {
+    clearInterval(this.heartbeat);
+    this.streams.clear();
+    this.socket = null;
+    this.ready = null;
+  }
+}
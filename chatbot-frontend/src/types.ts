@@ -3,9 +3,26 @@ export interface User {
   firstName: string;
   lastName: string;
   email: string;
+  token?: string;
 }
 
 export interface Message {
+  id?: string;
   sender: 'user' | 'bot';
   content: string;
 }
+
+export interface HistoryItem {
+  id: string;
+  timestamp: string;
+  questionCategory?: string;
+  userMessage?: string;
+  botResponse?: string;
+}
+
+export interface HistoryPage {
+  items: HistoryItem[];
+  nextCursor: string | null;
+  syncCursor: string | null;
+  hasMore: boolean;
+}
@@ -3,11 +3,13 @@ package com.yusufbatmaz.chatbot;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ConfigurationPropertiesScan
+@EnableScheduling
 public class ChatbotApplication {
     public static void main(String[] args) {
         SpringApplication.run(ChatbotApplication.class, args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.yusufbatmaz.chatbot.archive;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.yusufbatmaz.chatbot.model.ChatHistoryText;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Arşiv segmentinden okunan sohbet kaydı.
+ * Metinler istenmediyse null kalır ve JSON'a yazılmaz.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ArchivedChatEntry implements ChatHistoryText {
+    private final UUID id;
+    private final LocalDateTime timestamp;
+    private final String questionCategory;
+    private final String userMessage;
+    private final String botResponse;
+}
@@ -0,0 +1,212 @@
+package com.yusufbatmaz.chatbot.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.yusufbatmaz.chatbot.config.ChatArchiveProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+
+/**
+ * Arşivlenmiş chat_history segmentlerini yönetir ve okur.
+ *
+ * Her arşivlenen aylık partition bir veya daha fazla segment dosyası olur
+ * ("chat_history_2025_03-000.seg"). Segmentler en yeni aydan eskiye sıralı
+ * tutulur; böylece birden fazla segmentten okunan kayıtlar da (timestamp, id)
+ * azalan sırada birleşir.
+ *
+ * Segmentler yalnızca dizin tüm node'larca paylaşılıyorsa okunur; her node
+ * dizini periyodik olarak tarar ve bakımı yapan node'un yazdığı segmentleri
+ * de görür. Paylaşılmayan dizinde segmentler yalnızca yedektir; aksi halde
+ * geçmiş, isteğin düştüğü node'a göre değişirdi.
+ */
+@Component
+public class ChatArchive implements MetricsSource, InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatArchive.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("chat_history_(\\d{4})_(\\d{2})-(\\d{3})\\.seg");
+
+    // Aynı ay içinde düşük sıra numaralı dosya daha yeni kayıtları içerir
+    private static final Comparator<SegmentKey> NEWEST_FIRST = Comparator
+            .comparing(SegmentKey::month, Comparator.reverseOrder())
+            .thenComparingInt(SegmentKey::sequence);
+
+    private final ChatArchiveProperties properties;
+    private final Map<SegmentKey, SegmentReader> segments = new ConcurrentSkipListMap<>(NEWEST_FIRST);
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder entriesRead = new LongAdder();
+
+    public ChatArchive(ChatArchiveProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        Path directory = directory();
+        Files.createDirectories(directory);
+        if (!properties.isSharedDirectory()) {
+            logger.info("Arşiv dizini ortak değil, segmentler okunmayacak: {}", directory);
+            return;
+        }
+        rescan();
+        if (!segments.isEmpty()) {
+            logger.info("{} arşiv segmenti yüklendi: {}", segments.size(), directory);
+        }
+    }
+
+    /**
+     * Ortak dizindeki yeni segmentleri açar, silinmiş olanları bırakır.
+     * Başka bir node'un arşivlediği aylar böylece bu node'da da okunur.
+     */
+    @Scheduled(fixedDelayString = "${chat.archive.rescan-interval:60000}",
+            initialDelayString = "${chat.archive.rescan-interval:60000}")
+    public void rescan() {
+        if (!properties.isSharedDirectory()) {
+            return;
+        }
+        Map<SegmentKey, Path> found = new LinkedHashMap<>();
+        try (Stream<Path> files = Files.list(directory())) {
+            files.forEach(file -> {
+                SegmentKey key = keyOf(file);
+                if (key != null) {
+                    found.put(key, file);
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Arşiv dizini taranamadı: {}", directory(), e);
+            return;
+        }
+        // Arşivleme geri alındığında dosyalar silinir
+        segments.keySet().retainAll(found.keySet());
+        found.forEach((key, file) -> {
+            if (!segments.containsKey(key)) {
+                register(file);
+            }
+        });
+    }
+
+    public boolean isShared() {
+        return properties.isSharedDirectory();
+    }
+
+    Path directory() {
+        return Paths.get(properties.getDirectory()).toAbsolutePath();
+    }
+
+    /**
+     * Ayın verilen sıradaki segment dosyasının yolunu döner.
+     */
+    Path segmentPath(YearMonth month, int sequence) {
+        return directory().resolve(String.format("chat_history_%04d_%02d-%03d%s",
+                month.getYear(), month.getMonthValue(), sequence, SegmentFormat.EXTENSION));
+    }
+
+    /**
+     * Yazılmış bir segmenti okumaya açar.
+     */
+    void register(Path file) {
+        SegmentKey key = keyOf(file);
+        if (key == null) {
+            throw new IllegalArgumentException("Segment adı geçersiz: " + file);
+        }
+        try {
+            segments.put(key, SegmentReader.open(file));
+        } catch (IOException e) {
+            logger.error("Arşiv segmenti açılamadı, atlanıyor: {}", file, e);
+        }
+    }
+
+    private static SegmentKey keyOf(Path file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new SegmentKey(
+                YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))),
+                Integer.parseInt(matcher.group(3)));
+    }
+
+    /**
+     * Veritabanında tutulan en eski ayın başlangıcı; daha eski kayıtlar arşivlenmiştir.
+     * Arşivleme kapalıysa null.
+     */
+    public LocalDateTime retentionCutoff() {
+        if (!properties.isEnabled() || properties.getRetentionMonths() <= 0) {
+            return null;
+        }
+        return YearMonth.now().minusMonths(properties.getRetentionMonths()).atDay(1).atStartOfDay();
+    }
+
+    public boolean hasSegments() {
+        return !segments.isEmpty();
+    }
+
+    /**
+     * Kullanıcının verilen konumdan (hariç) eski arşiv kayıtlarını yeniden eskiye döner.
+     *
+     * @param userId Kullanıcı ID'si
+     * @param beforeTimestamp Konumun zaman damgası; null ise en yeni arşiv kaydından başlanır
+     * @param beforeId Konumun ID'si
+     * @param limit En fazla dönecek kayıt sayısı
+     * @param includeText Mesaj metinleri de dönülsün mü
+     */
+    public List<ArchivedChatEntry> findOlder(UUID userId, LocalDateTime beforeTimestamp, UUID beforeId,
+                                             int limit, boolean includeText) {
+        List<ArchivedChatEntry> result = new ArrayList<>();
+        Long beforeMicros = beforeTimestamp != null ? SegmentFormat.toMicros(beforeTimestamp) : null;
+        YearMonth beforeMonth = beforeTimestamp != null ? YearMonth.from(beforeTimestamp) : null;
+        reads.increment();
+        for (Map.Entry<SegmentKey, SegmentReader> entry : segments.entrySet()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            // Konumdan sonraki aylar tamamen yeni kayıtlardır
+            if (beforeMonth != null && entry.getKey().month().isAfter(beforeMonth)) {
+                continue;
+            }
+            result.addAll(entry.getValue().findOlder(userId, beforeMicros, beforeId,
+                    limit - result.size(), includeText));
+        }
+        entriesRead.add(result.size());
+        return result;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "chatArchive";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("shared", properties.isSharedDirectory());
+        metrics.put("segments", segments.size());
+        metrics.put("bytes", segments.values().stream().mapToLong(SegmentReader::sizeInBytes).sum());
+        metrics.put("reads", reads.sum());
+        metrics.put("entriesRead", entriesRead.sum());
+        return metrics;
+    }
+
+    private record SegmentKey(YearMonth month, int sequence) {}
+}
@@ -0,0 +1,334 @@
+package com.yusufbatmaz.chatbot.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.yusufbatmaz.chatbot.compression.TextCompressor;
+import com.yusufbatmaz.chatbot.config.ChatArchiveProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+
+/**
+ * chat_history'nin aylık partition'larını yönetir ve eski partition'ları arşivler.
+ *
+ * Açılışta ve her gün içinde bulunulan ay ile sonraki {@code partitionsAhead}
+ * ay için partition açılır; DEFAULT partition'da kalmış satırlar (örn. V6
+ * migration'ından gelenler) kendi aylarının partition'ına taşınır.
+ *
+ * {@code retentionMonths}'tan eski partition'lar sıkıştırılmış segment
+ * dosyalarına akış halinde yazılır, ardından tek bir DETACH (ve DROP) ile
+ * tablodan çıkarılır; satır satır DELETE yapılmaz. Birden fazla node aynı
+ * anda çalışırsa advisory lock ile yalnızca biri bakım yapar.
+ *
+ * Segmentler bakımı yapan node'un dizinine yazılır. Bu dizin tüm node'larca
+ * paylaşılmıyorsa diğer node'lar onları göremez; bu yüzden partition'ın
+ * silinmesine (DROP) yalnızca ortak dizinde izin verilir.
+ */
+@Component
+@DependsOn("schemaMigrator")
+public class ChatPartitionManager implements MetricsSource, InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatPartitionManager.class);
+
+    private static final String TABLE = "chat_history";
+    private static final String DEFAULT_PARTITION = "chat_history_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("chat_history_p(\\d{4})_(\\d{2})");
+    // Partition bakımı için advisory lock anahtarı ("chatpart")
+    private static final long LOCK_KEY = 0x6368_6174_7061_7274L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ChatArchive chatArchive;
+    private final ChatArchiveProperties properties;
+
+    private final LongAdder partitionsCreated = new LongAdder();
+    private final LongAdder partitionsArchived = new LongAdder();
+    private final LongAdder rowsArchived = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public ChatPartitionManager(DataSource dataSource,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ChatArchive chatArchive,
+                                ChatArchiveProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(properties.getFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.chatArchive = chatArchive;
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!properties.isEnabled()) {
+            logger.info("chat_history partition bakımı kapalı");
+            return;
+        }
+        if (properties.isDropPartitions() && !properties.isSharedDirectory()) {
+            // Yerel diskteki segment diğer node'larda görünmez, geçici diskte kaybolur
+            throw new IllegalStateException("chat.archive.drop-partitions için chat.archive.shared-directory=true "
+                    + "ve tüm node'ların eriştiği bir CHAT_ARCHIVE_DIR gerekli");
+        }
+        try {
+            ensurePartitions();
+        } catch (RuntimeException e) {
+            // Yeni satırlar DEFAULT partition'a düşer; günlük bakım tekrar dener
+            failures.increment();
+            logger.error("chat_history partition'ları açılışta oluşturulamadı", e);
+        }
+    }
+
+    /**
+     * Günlük bakım: eksik partition'ları açar ve süresi dolanları arşivler.
+     */
+    @Scheduled(cron = "${chat.archive.cron:0 30 3 * * *}")
+    public void maintain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            ensurePartitions();
+            archiveExpiredPartitions();
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.error("chat_history partition bakımı başarısız", e);
+        } finally {
+            lastRunMillis.set(System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * İçinde bulunulan ay, sonraki aylar ve DEFAULT partition'da satırı olan aylar için partition açar.
+     */
+    public void ensurePartitions() {
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, DEFAULT_PARTITION) != Boolean.TRUE) {
+            logger.warn("{} bulunamadı; chat_history partition'lı değil, bakım atlandı", DEFAULT_PARTITION);
+            return;
+        }
+        TreeSet<YearMonth> months = new TreeSet<>(jdbcTemplate.query(
+                "SELECT DISTINCT date_trunc('month', timestamp) FROM " + DEFAULT_PARTITION,
+                (rs, rowNum) -> YearMonth.from(rs.getTimestamp(1).toLocalDateTime())));
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= properties.getPartitionsAhead(); i++) {
+            months.add(current.plusMonths(i));
+        }
+        List<YearMonth> existing = listPartitions();
+        for (YearMonth month : months) {
+            if (!existing.contains(month)) {
+                createPartition(month);
+            }
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        String bounds = " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + LOCK_KEY + ")");
+            if (listPartitions().contains(month)) {
+                return;
+            }
+            Boolean hasDefaultRows = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ?)",
+                    Boolean.class, from, to);
+            if (Boolean.TRUE.equals(hasDefaultRows)) {
+                // DEFAULT'taki satırlar varken aralık doğrudan açılamaz; önce ayrı tabloya taşınır
+                jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+                int moved = jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM " + DEFAULT_PARTITION
+                        + " WHERE timestamp >= ? AND timestamp < ?", from, to);
+                jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ?", from, to);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name + bounds);
+                logger.info("chat_history partition'ı oluşturuldu: {} ({} satır DEFAULT'tan taşındı)", name, moved);
+            } else {
+                jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + TABLE + bounds);
+                logger.info("chat_history partition'ı oluşturuldu: {}", name);
+            }
+        });
+        partitionsCreated.increment();
+    }
+
+    /**
+     * Saklama süresini aşan partition'ları arşivler.
+     */
+    public void archiveExpiredPartitions() {
+        if (properties.getRetentionMonths() <= 0) {
+            return;
+        }
+        YearMonth cutoff = YearMonth.now().minusMonths(properties.getRetentionMonths());
+        for (YearMonth month : listPartitions()) {
+            if (month.isBefore(cutoff)) {
+                archivePartition(month);
+            }
+        }
+    }
+
+    /**
+     * Partition'ı segment dosyalarına yazar ve tablodan çıkarır.
+     * Dosyalar diske yazılmadan ve satır sayısı doğrulanmadan partition silinmez.
+     */
+    void archivePartition(YearMonth month) {
+        String name = partitionName(month);
+        List<SegmentWriter> written = new ArrayList<>();
+        Long rows = readOnlyTransactionTemplate.execute(status -> {
+            Boolean locked = streamingTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(" + LOCK_KEY + ")", Boolean.class);
+            if (!Boolean.TRUE.equals(locked)) {
+                return -1L;
+            }
+            return writeSegments(name, month, written);
+        });
+        if (rows == null || rows < 0) {
+            logger.info("Başka bir node partition bakımı yapıyor, {} atlandı", name);
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + LOCK_KEY + ")");
+                Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM " + name, Long.class);
+                if (!rows.equals(count)) {
+                    throw new IllegalStateException(name + " arşivlenirken değişti: " + count + " != " + rows);
+                }
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+                if (properties.isDropPartitions()) {
+                    jdbcTemplate.execute("DROP TABLE " + name);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Partition tabloda kaldı; dosyalar silinir, bir sonraki çalıştırmada tekrar denenir
+            for (SegmentWriter writer : written) {
+                deleteQuietly(writer);
+            }
+            throw e;
+        }
+
+        // Ortak dizinde diğer node'lar segmentleri bir sonraki taramada görür
+        if (chatArchive.isShared()) {
+            for (SegmentWriter writer : written) {
+                chatArchive.register(writer.target());
+            }
+        }
+        partitionsArchived.increment();
+        rowsArchived.add(rows);
+        logger.info("chat_history partition'ı arşivlendi: {} ({} satır, {} segment)", name, rows, written.size());
+    }
+
+    private long writeSegments(String name, YearMonth month, List<SegmentWriter> written) {
+        int blockSize = (int) properties.getBlockSize().toBytes();
+        long maxSegmentSize = properties.getMaxSegmentSize().toBytes();
+        SegmentWriter[] current = new SegmentWriter[1];
+        UUID[] currentUser = new UUID[1];
+        long[] rows = new long[1];
+        try {
+            current[0] = new SegmentWriter(chatArchive.segmentPath(month, 0), blockSize);
+            written.add(current[0]);
+            streamingTemplate.query("SELECT user_id, id, timestamp, question_category, user_message, bot_response FROM "
+                    + name + " ORDER BY user_id, timestamp DESC, id DESC", rs -> {
+                UUID userId = rs.getObject(1, UUID.class);
+                try {
+                    // Bir kullanıcının kayıtları dosyalar arasında bölünmesin diye yalnızca kullanıcı değişiminde
+                    if (!userId.equals(currentUser[0]) && current[0].size() >= maxSegmentSize) {
+                        current[0].close();
+                        current[0] = new SegmentWriter(chatArchive.segmentPath(month, written.size()), blockSize);
+                        written.add(current[0]);
+                    }
+                    current[0].append(userId, rs.getObject(2, UUID.class),
+                            SegmentFormat.toMicros(rs.getTimestamp(3).toLocalDateTime()),
+                            rs.getString(4), TextCompressor.decode(rs.getBytes(5)), TextCompressor.decode(rs.getBytes(6)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                currentUser[0] = userId;
+                rows[0]++;
+            });
+            current[0].close();
+            return rows[0];
+        } catch (IOException | RuntimeException e) {
+            written.forEach(ChatPartitionManager::deleteQuietly);
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new UncheckedIOException((IOException) e);
+        }
+    }
+
+    private static void deleteQuietly(SegmentWriter writer) {
+        writer.abort();
+        try {
+            Files.deleteIfExists(writer.target());
+        } catch (IOException e) {
+            logger.warn("Segment dosyası silinemedi: {}", writer.target(), e);
+        }
+    }
+
+    /**
+     * Mevcut aylık partition'ları (DEFAULT hariç) sıralı döner.
+     */
+    private List<YearMonth> listPartitions() {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = to_regclass(?)", String.class, TABLE);
+        TreeSet<YearMonth> months = new TreeSet<>();
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        return new ArrayList<>(months);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("chat_history_p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "chatPartitions";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("partitionsCreated", partitionsCreated.sum());
+        metrics.put("partitionsArchived", partitionsArchived.sum());
+        metrics.put("rowsArchived", rowsArchived.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("lastRunMillis", lastRunMillis.get());
+        return metrics;
+    }
+}
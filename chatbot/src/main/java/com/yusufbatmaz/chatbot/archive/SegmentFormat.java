@@ -0,0 +1,54 @@
+package com.yusufbatmaz.chatbot.archive;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Arşiv segment dosyası formatı (big-endian).
+ *
+ * <pre>
+ * header : magic(8) version(4)
+ * blok   : compressedLength(4) rawLength(4) deflate(kayıtlar)
+ * kayıt  : idMsb(8) idLsb(8) timestampMicros(8) category userMessage botResponse
+ *          (metin: length(4, -1 = null) + UTF-8)
+ * indeks : blok başına userMsb(8) userLsb(8) offset(8) newestMicros(8) oldestMicros(8) count(4)
+ * footer : indexOffset(8) blockCount(4) magic(8)
+ * </pre>
+ *
+ * Her blok tek bir kullanıcının kayıtlarını (timestamp, id) azalan sırada içerir;
+ * indeks kullanıcıya göre Postgres uuid sırasındadır.
+ */
+final class SegmentFormat {
+
+    static final long MAGIC = 0x4348_5345_4730_3031L; // "CHSEG001"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int INDEX_ENTRY_SIZE = 44;
+    static final int FOOTER_SIZE = 20;
+    static final String EXTENSION = ".seg";
+
+    private SegmentFormat() {}
+
+    static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * UUID'leri Postgres ile aynı sırada (işaretsiz byte karşılaştırması) karşılaştırır.
+     */
+    static int compareUuid(long msb1, long lsb1, long msb2, long lsb2) {
+        int result = Long.compareUnsigned(msb1, msb2);
+        return result != 0 ? result : Long.compareUnsigned(lsb1, lsb2);
+    }
+
+    static int compareUuid(UUID a, UUID b) {
+        return compareUuid(a.getMostSignificantBits(), a.getLeastSignificantBits(),
+                b.getMostSignificantBits(), b.getLeastSignificantBits());
+    }
+}
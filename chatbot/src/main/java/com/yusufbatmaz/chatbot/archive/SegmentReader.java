@@ -0,0 +1,189 @@
+package com.yusufbatmaz.chatbot.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Segment dosyasını belleğe eşleyerek (mmap) okur ({@link SegmentFormat}).
+ *
+ * Açılışta yalnızca indeks heap'e alınır; bloklar istek geldiğinde eşlenmiş
+ * bellekten okunup açılır. Okumalar mutlak konumla yapıldığı için thread-safe'tir.
+ */
+final class SegmentReader {
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long[] userMsb;
+    private final long[] userLsb;
+    private final int[] offsets;
+    private final long[] newest;
+    private final long[] oldest;
+    private final int[] counts;
+
+    private SegmentReader(Path path, MappedByteBuffer buffer, int blocks) {
+        this.path = path;
+        this.buffer = buffer;
+        this.userMsb = new long[blocks];
+        this.userLsb = new long[blocks];
+        this.offsets = new int[blocks];
+        this.newest = new long[blocks];
+        this.oldest = new long[blocks];
+        this.counts = new int[blocks];
+    }
+
+    static SegmentReader open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE || size < SegmentFormat.HEADER_SIZE + SegmentFormat.FOOTER_SIZE) {
+                throw new IOException("Geçersiz segment boyutu: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        int size = buffer.capacity();
+        if (buffer.getLong(0) != SegmentFormat.MAGIC || buffer.getInt(8) != SegmentFormat.VERSION
+                || buffer.getLong(size - 8) != SegmentFormat.MAGIC) {
+            throw new IOException("Geçersiz segment dosyası: " + path);
+        }
+        long indexOffset = buffer.getLong(size - SegmentFormat.FOOTER_SIZE);
+        int blocks = buffer.getInt(size - SegmentFormat.FOOTER_SIZE + 8);
+        if (indexOffset + (long) blocks * SegmentFormat.INDEX_ENTRY_SIZE != size - SegmentFormat.FOOTER_SIZE) {
+            throw new IOException("Segment indeksi bozuk: " + path);
+        }
+
+        SegmentReader reader = new SegmentReader(path, buffer, blocks);
+        int position = (int) indexOffset;
+        for (int i = 0; i < blocks; i++) {
+            reader.userMsb[i] = buffer.getLong(position);
+            reader.userLsb[i] = buffer.getLong(position + 8);
+            reader.offsets[i] = (int) buffer.getLong(position + 16);
+            reader.newest[i] = buffer.getLong(position + 24);
+            reader.oldest[i] = buffer.getLong(position + 32);
+            reader.counts[i] = buffer.getInt(position + 40);
+            position += SegmentFormat.INDEX_ENTRY_SIZE;
+        }
+        return reader;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Kullanıcının verilen konumdan (hariç) daha eski kayıtlarını yeniden eskiye döner.
+     *
+     * @param beforeMicros Konumun zaman damgası; null ise en yeni kayıttan başlanır
+     * @param beforeId Konumun ID'si (beforeMicros ile birlikte)
+     * @param limit En fazla dönecek kayıt sayısı
+     * @param includeText Mesaj metinleri de okunsun mu
+     */
+    List<ArchivedChatEntry> findOlder(UUID userId, Long beforeMicros, UUID beforeId, int limit, boolean includeText) {
+        List<ArchivedChatEntry> result = new ArrayList<>();
+        long msb = userId.getMostSignificantBits();
+        long lsb = userId.getLeastSignificantBits();
+        for (int block = firstBlock(msb, lsb); block < counts.length && result.size() < limit; block++) {
+            if (userMsb[block] != msb || userLsb[block] != lsb) {
+                break;
+            }
+            // Bloğun en eski kaydı bile konumdan yeniyse blok tamamen atlanır
+            if (beforeMicros != null && oldest[block] > beforeMicros) {
+                continue;
+            }
+            readBlock(block, beforeMicros, beforeId, limit, includeText, result);
+        }
+        return result;
+    }
+
+    private int firstBlock(long msb, long lsb) {
+        int low = 0;
+        int high = counts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (SegmentFormat.compareUuid(userMsb[mid], userLsb[mid], msb, lsb) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void readBlock(int block, Long beforeMicros, UUID beforeId, int limit, boolean includeText,
+                           List<ArchivedChatEntry> result) {
+        int offset = offsets[block];
+        int compressedLength = buffer.getInt(offset);
+        int rawLength = buffer.getInt(offset + 4);
+        ByteBuffer compressed = buffer.slice(offset + 8, compressedLength);
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != rawLength) {
+                throw new IllegalStateException("Segment bloğu eksik: " + path + " @" + offset);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Segment bloğu açılamadı: " + path + " @" + offset, e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(raw);
+        for (int i = 0; i < counts[block] && result.size() < limit; i++) {
+            long idMsb = records.getLong();
+            long idLsb = records.getLong();
+            long micros = records.getLong();
+            String category = readString(records, true);
+            String userMessage = readString(records, includeText);
+            String botResponse = readString(records, includeText);
+            if (beforeMicros != null && !isBefore(micros, idMsb, idLsb, beforeMicros, beforeId)) {
+                continue;
+            }
+            result.add(new ArchivedChatEntry(new UUID(idMsb, idLsb), SegmentFormat.fromMicros(micros),
+                    category, userMessage, botResponse));
+        }
+    }
+
+    private static boolean isBefore(long micros, long idMsb, long idLsb, long beforeMicros, UUID beforeId) {
+        if (micros != beforeMicros) {
+            return micros < beforeMicros;
+        }
+        return SegmentFormat.compareUuid(idMsb, idLsb,
+                beforeId.getMostSignificantBits(), beforeId.getLeastSignificantBits()) < 0;
+    }
+
+    private static String readString(ByteBuffer records, boolean decode) {
+        int length = records.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (!decode) {
+            records.position(records.position() + length);
+            return null;
+        }
+        String value = new String(records.array(), records.position(), length, StandardCharsets.UTF_8);
+        records.position(records.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,186 @@
+package com.yusufbatmaz.chatbot.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+/**
+ * Tek bir segment dosyası yazar ({@link SegmentFormat}).
+ *
+ * Kayıtlar kullanıcıya göre gruplu ve her kullanıcı içinde (timestamp, id)
+ * azalan sırada gelmelidir. Dosya önce ".tmp" uzantısıyla yazılır;
+ * {@link #close()} indeksi ve footer'ı ekleyip diske zorlar ve dosyayı
+ * atomik olarak asıl adına taşır.
+ */
+final class SegmentWriter implements Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final int blockSize;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+    private final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+    private final DataOutputStream rawOut = new DataOutputStream(raw);
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private final DataOutputStream indexOut = new DataOutputStream(index);
+    private byte[] compressBuffer = new byte[8192];
+
+    private UUID blockUser;
+    private long blockNewest;
+    private long blockOldest;
+    private int blockCount;
+    private int blocks;
+    private long records;
+    private boolean closed;
+
+    SegmentWriter(Path target, int blockSize) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.blockSize = blockSize;
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SegmentFormat.HEADER_SIZE);
+        header.putLong(SegmentFormat.MAGIC).putInt(SegmentFormat.VERSION).flip();
+        write(header);
+    }
+
+    /**
+     * Kaydı ekler; kullanıcı değişince veya blok dolunca blok sıkıştırılıp yazılır.
+     */
+    void append(UUID userId, UUID id, long timestampMicros, String category,
+                String userMessage, String botResponse) throws IOException {
+        if (blockUser != null && (!blockUser.equals(userId) || raw.size() >= blockSize)) {
+            flushBlock();
+        }
+        if (blockUser == null) {
+            blockUser = userId;
+            blockNewest = timestampMicros;
+        }
+        rawOut.writeLong(id.getMostSignificantBits());
+        rawOut.writeLong(id.getLeastSignificantBits());
+        rawOut.writeLong(timestampMicros);
+        writeString(category);
+        writeString(userMessage);
+        writeString(botResponse);
+        blockOldest = timestampMicros;
+        blockCount++;
+        records++;
+    }
+
+    /**
+     * Şu ana kadar yazılan dosya boyutu (bekleyen blok hariç).
+     */
+    long size() throws IOException {
+        return channel.position();
+    }
+
+    long records() {
+        return records;
+    }
+
+    Path target() {
+        return target;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            rawOut.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        rawOut.writeInt(bytes.length);
+        rawOut.write(bytes);
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockCount == 0) {
+            return;
+        }
+        byte[] input = raw.toByteArray();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressBuffer.length) {
+                compressBuffer = Arrays.copyOf(compressBuffer, compressBuffer.length * 2);
+            }
+            length += deflater.deflate(compressBuffer, length, compressBuffer.length - length);
+        }
+
+        long offset = channel.position();
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.putInt(length).putInt(input.length).flip();
+        write(header);
+        write(ByteBuffer.wrap(compressBuffer, 0, length));
+
+        indexOut.writeLong(blockUser.getMostSignificantBits());
+        indexOut.writeLong(blockUser.getLeastSignificantBits());
+        indexOut.writeLong(offset);
+        indexOut.writeLong(blockNewest);
+        indexOut.writeLong(blockOldest);
+        indexOut.writeInt(blockCount);
+        blocks++;
+
+        raw.reset();
+        blockUser = null;
+        blockCount = 0;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+            long indexOffset = channel.position();
+            write(ByteBuffer.wrap(index.toByteArray()));
+            ByteBuffer footer = ByteBuffer.allocate(SegmentFormat.FOOTER_SIZE);
+            footer.putLong(indexOffset).putInt(blocks).putLong(SegmentFormat.MAGIC).flip();
+            write(footer);
+            channel.force(true);
+        } finally {
+            channel.close();
+            deflater.end();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Yarım kalan dosyayı siler.
+     */
+    void abort() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Zaten siliniyor
+        }
+        deflater.end();
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+            // Bir sonraki çalıştırmada üzerine yazılır
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.yusufbatmaz.chatbot.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Boyutu sınırlı, TTL destekli ve W-TinyLFU benzeri politika kullanan cache.
+ *
+ * Yeni girdiler küçük bir LRU "window" bölgesine girer. Window'dan taşan aday,
+ * ana bölgenin (probation + protected SLRU) kurbanıyla erişim sıklığına göre
+ * karşılaştırılır ve sadece daha popülerse kabul edilir. Böylece tek seferlik
+ * taramalar sık kullanılan girdileri cache'ten atamaz.
+ *
+ * Okumalar kilitsizdir; erişim sırası güncellemesi kilit boştaysa yapılır,
+ * doluysa atlanır (kayıplı ama güvenli). {@link #get(Object, Callable)} ile
+ * okunan ve TTL'inin büyük kısmı dolmuş girdiler arka planda yenilenir.
+ */
+public class BoundedCache extends AbstractValueAdaptingCache implements StatisticsCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedCache.class);
+
+    private final String name;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentHashMap<Object, Node> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    // Politika durumu: evictionLock altında değiştirilir
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final NodeList window = new NodeList();
+    private final NodeList probation = new NodeList();
+    private final NodeList protectedList = new NodeList();
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    /**
+     * @param name Cache adı
+     * @param maximumSize Maksimum girdi sayısı
+     * @param ttl Yazıldıktan sonra geçerlilik süresi
+     * @param refreshAheadRatio TTL'in bu oranı dolunca girdiyi arka planda yenile (0 veya 1: kapalı)
+     * @param refreshExecutor Yenileme işlerini çalıştıran executor
+     */
+    public BoundedCache(String name, int maximumSize, Duration ttl, double refreshAheadRatio, Executor refreshExecutor) {
+        super(true);
+        this.name = name;
+        this.maximumSize = Math.max(1, maximumSize);
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterNanos = refreshAheadRatio > 0 && refreshAheadRatio < 1
+                ? (long) (ttlNanos * refreshAheadRatio) : 0;
+        this.refreshExecutor = refreshExecutor;
+        this.sketch = new FrequencySketch(this.maximumSize);
+        this.windowMaximum = Math.max(1, this.maximumSize / 100);
+        this.protectedMaximum = Math.max(1, (int) ((this.maximumSize - windowMaximum) * 0.8));
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return data;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(@NonNull Object key) {
+        Node node = getLiveNode(key, System.nanoTime());
+        return node != null ? node.value : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        long now = System.nanoTime();
+        Node node = getLiveNode(key, now);
+        if (node != null) {
+            maybeRefresh(node, now, valueLoader);
+            return (T) fromStoreValue(node.value);
+        }
+
+        // Aynı anahtarı aynı anda sadece bir thread yükler, diğerleri sonucu bekler
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inProgress = loading.putIfAbsent(key, future);
+        if (inProgress != null) {
+            try {
+                return (T) fromStoreValue(inProgress.join());
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        try {
+            Object value = toStoreValue(valueLoader.call());
+            store(key, value, System.nanoTime());
+            future.complete(value);
+            return (T) fromStoreValue(value);
+        } catch (Exception e) {
+            loadFailures.increment();
+            future.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        store(key, toStoreValue(value), System.nanoTime());
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        Node node = data.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    @Override
+    public void clear() {
+        evictionLock.lock();
+        try {
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedList.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Süresi dolmuş tüm girdileri temizler.
+     */
+    @Override
+    public void cleanUp() {
+        long now = System.nanoTime();
+        for (Node node : data.values()) {
+            if (node.isExpired(now, ttlNanos)) {
+                expire(node);
+            }
+        }
+    }
+
+    /**
+     * Cache istatistiklerini döner.
+     */
+    @Override
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", data.size());
+        stats.put("maximumSize", maximumSize);
+        stats.put("ttlSeconds", ttlNanos / 1_000_000_000L);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("loadFailures", loadFailures.sum());
+        return stats;
+    }
+
+    /**
+     * Geçerli girdiyi döner, süresi dolmuşsa siler. Hit/miss sayaçlarını günceller.
+     */
+    @Nullable
+    private Node getLiveNode(Object key, long now) {
+        Node node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (node.isExpired(now, ttlNanos)) {
+            expire(node);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        recordAccess(node);
+        return node;
+    }
+
+    /**
+     * TTL'in büyük kısmı dolmuş popüler girdiyi arka planda yeniden yükler.
+     */
+    private void maybeRefresh(Node node, long now, Callable<?> valueLoader) {
+        if (refreshAfterNanos == 0 || now - node.writeTime < refreshAfterNanos
+                || !node.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Object value = toStoreValue(valueLoader.call());
+                    // Bu arada silinen/değiştirilen girdinin üzerine yazma
+                    if (data.get(node.key) == node) {
+                        store(node.key, value, System.nanoTime());
+                        refreshes.increment();
+                    }
+                } catch (Exception e) {
+                    loadFailures.increment();
+                    logger.debug("Cache yenileme başarısız - Cache: {}, Anahtar: {}", name, node.key, e);
+                } finally {
+                    node.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Yenileme kuyruğu dolu; girdi TTL sonunda normal şekilde yüklenir
+            node.refreshing.set(false);
+        }
+    }
+
+    private void store(Object key, Object value, long now) {
+        Node existing = data.get(key);
+        if (existing != null) {
+            existing.value = value;
+            existing.writeTime = now;
+            recordAccess(existing);
+            return;
+        }
+
+        Node node = new Node(key, value, now);
+        existing = data.putIfAbsent(key, node);
+        if (existing != null) {
+            existing.value = value;
+            existing.writeTime = now;
+            recordAccess(existing);
+            return;
+        }
+
+        evictionLock.lock();
+        try {
+            // Eşzamanlı evict(key) çağrısı girdiyi listeye eklenmeden silmiş olabilir
+            if (data.get(key) == node) {
+                sketch.increment(key);
+                window.addLast(node, Segment.WINDOW);
+                evictEntries();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Kapasite aşıldıysa W-TinyLFU politikasına göre girdi çıkarır.
+     * Çağıran evictionLock'u tutmalıdır.
+     */
+    private void evictEntries() {
+        // Window'dan taşanlar probation'ın sonuna aday olarak geçer
+        while (window.size > windowMaximum) {
+            Node candidate = window.pollFirst();
+            probation.addLast(candidate, Segment.PROBATION);
+        }
+
+        while (window.size + probation.size + protectedList.size > maximumSize) {
+            Node victim = probation.peekFirst();
+            Node candidate = probation.peekLast();
+            Node evicted;
+            if (victim == null) {
+                evicted = protectedList.size > 0 ? protectedList.peekFirst() : window.peekFirst();
+            } else if (victim == candidate) {
+                evicted = victim;
+            } else {
+                // Aday sadece kurbandan daha sık kullanılıyorsa kabul edilir
+                evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+            }
+            removeFromList(evicted);
+            if (data.remove(evicted.key, evicted)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Okuma sonrası erişim sırasını ve frekansı günceller. Kilit doluysa atlar.
+     */
+    private void recordAccess(Node node) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(node.key);
+            switch (node.segment) {
+                case WINDOW:
+                    window.moveToBack(node);
+                    break;
+                case PROBATION:
+                    // İkinci erişimde korumalı bölgeye terfi et
+                    probation.remove(node);
+                    protectedList.addLast(node, Segment.PROTECTED);
+                    if (protectedList.size > protectedMaximum) {
+                        Node demoted = protectedList.pollFirst();
+                        probation.addLast(demoted, Segment.PROBATION);
+                    }
+                    break;
+                case PROTECTED:
+                    protectedList.moveToBack(node);
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void expire(Node node) {
+        if (data.remove(node.key, node)) {
+            expirations.increment();
+            unlink(node);
+        }
+    }
+
+    private void unlink(Node node) {
+        evictionLock.lock();
+        try {
+            removeFromList(node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void removeFromList(Node node) {
+        switch (node.segment) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedList.remove(node);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private enum Segment {
+        NONE,
+        WINDOW,
+        PROBATION,
+        PROTECTED
+    }
+
+    /**
+     * Cache girdisi; aynı zamanda ait olduğu erişim listesinin düğümü.
+     */
+    private static final class Node {
+        private final Object key;
+        private volatile Object value;
+        private volatile long writeTime;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        // Aşağıdaki alanlar sadece evictionLock altında değişir
+        private Segment segment = Segment.NONE;
+        private Node prev;
+        private Node next;
+
+        private Node(Object key, Object value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - writeTime >= ttlNanos;
+        }
+    }
+
+    /**
+     * Erişim sırasını tutan çift yönlü liste (baş: en eski, son: en yeni).
+     */
+    private static final class NodeList {
+        private Node head;
+        private Node tail;
+        private int size;
+
+        private void addLast(Node node, Segment segment) {
+            node.segment = segment;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        private Node peekFirst() {
+            return head;
+        }
+
+        private Node peekLast() {
+            return tail;
+        }
+
+        private Node pollFirst() {
+            Node node = head;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        private void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.segment = Segment.NONE;
+            size--;
+        }
+
+        private void moveToBack(Node node) {
+            if (tail == node) {
+                return;
+            }
+            Segment segment = node.segment;
+            remove(node);
+            addLast(node, segment);
+        }
+
+        private void clear() {
+            Node node = head;
+            while (node != null) {
+                Node next = node.next;
+                node.prev = null;
+                node.next = null;
+                node.segment = Segment.NONE;
+                node = next;
+            }
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+}
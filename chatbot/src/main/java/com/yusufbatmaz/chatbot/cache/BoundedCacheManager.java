@@ -0,0 +1,105 @@
+package com.yusufbatmaz.chatbot.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+
+/**
+ * {@link BoundedCache} örneklerini yöneten cache manager.
+ * Her cache kendi boyut sınırı ve TTL değeriyle oluşturulur; tanımsız
+ * bir cache istendiğinde varsayılan ayarlarla oluşturulur.
+ */
+public class BoundedCacheManager implements CacheManager, MetricsSource, DisposableBean {
+
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final Map<String, Duration> ttls;
+    private final int maximumSize;
+    private final Duration defaultTtl;
+    private final double refreshAheadRatio;
+    private final ThreadPoolExecutor refreshExecutor;
+
+    /**
+     * @param ttls Cache adı -> TTL
+     * @param maximumSize Cache başına maksimum girdi sayısı
+     * @param defaultTtl Tanımsız cache'ler için TTL
+     * @param refreshAheadRatio TTL'in bu oranı dolunca okunan girdiyi arka planda yenile
+     */
+    public BoundedCacheManager(Map<String, Duration> ttls, int maximumSize, Duration defaultTtl, double refreshAheadRatio) {
+        this.ttls = new LinkedHashMap<>(ttls);
+        this.maximumSize = maximumSize;
+        this.defaultTtl = defaultTtl;
+        this.refreshAheadRatio = refreshAheadRatio;
+        // Yenileme işleri için küçük, sınırlı bir havuz; dolarsa yenileme atlanır
+        this.refreshExecutor = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(256), new CustomizableThreadFactory("cache-refresh-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.ttls.keySet().forEach(this::getCache);
+    }
+
+    /**
+     * Hazır oluşturulmuş bir cache'i kaydeder (örn. farklı depolama kullanan cache'ler).
+     */
+    public void registerCache(Cache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    @Override
+    @Nullable
+    public Cache getCache(@NonNull String name) {
+        return caches.computeIfAbsent(name, n -> new BoundedCache(n, maximumSize,
+                ttls.getOrDefault(n, defaultTtl), refreshAheadRatio, refreshExecutor));
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Tüm cache'lerdeki süresi dolmuş girdileri temizler.
+     */
+    public void cleanUp() {
+        caches.values().forEach(cache -> {
+            if (cache instanceof StatisticsCache managed) {
+                managed.cleanUp();
+            }
+        });
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "caches";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> {
+            if (cache instanceof StatisticsCache managed) {
+                metrics.put(name, managed.getStatistics());
+            }
+        });
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,395 @@
+package com.yusufbatmaz.chatbot.cache;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.yusufbatmaz.chatbot.config.CacheInvalidationProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+
+/**
+ * Postgres LISTEN/NOTIFY üzerinden node'lar arası cache invalidation.
+ *
+ * Yazan taraf {@link #publish(String, Object)} ile (cache, anahtar) bildirir;
+ * bildirim transaction commit olduktan sonra kısa bir pencerede biriktirilir
+ * ve tek NOTIFY ile gönderilir. Her node ayrı bir LISTEN bağlantısı tutar ve
+ * gelen anahtarları kendi cache'inden siler.
+ *
+ * Her mesaj gönderen node'un artan versiyon numarasını taşır. Bir node'dan
+ * gelen versiyonlarda boşluk görülürse ya da listener yeniden bağlanırsa
+ * mesaj kaçırılmış olabileceği için tüm yerel cache'ler temizlenir.
+ */
+@Component
+public class CacheInvalidationBus implements MetricsSource, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    // Postgres NOTIFY payload sınırı 8000 byte; biraz pay bırakıyoruz
+    private static final int MAX_PAYLOAD_BYTES = 7_500;
+    private static final Pattern CHANNEL_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final String ALL_KEYS = "*";
+
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final CacheInvalidationProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong version = new AtomicLong();
+
+    // Gönderilmeyi bekleyen (cache, anahtar) çiftleri; aynı anahtar tekrar eklenmez
+    private final Set<Entry> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Listener thread'i: node ID -> son alınan versiyon
+    private final Map<String, Long> lastVersionByNode = new ConcurrentHashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder notificationsSent = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder notificationsReceived = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder fullFlushes = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    private ScheduledExecutorService publisher;
+    private Thread listenerThread;
+    private volatile boolean running;
+    private volatile boolean listening;
+    private volatile Connection listenerConnection;
+
+    public CacheInvalidationBus(CacheManager cacheManager,
+                                JdbcTemplate jdbcTemplate,
+                                DataSourceProperties dataSourceProperties,
+                                CacheInvalidationProperties properties,
+                                ObjectMapper objectMapper) {
+        this.cacheManager = cacheManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!properties.isEnabled()) {
+            logger.info("Cache invalidation bus kapalı");
+            return;
+        }
+        if (!CHANNEL_PATTERN.matcher(properties.getChannel()).matches()) {
+            throw new IllegalStateException("Geçersiz cache invalidation kanal adı: " + properties.getChannel());
+        }
+
+        running = true;
+        publisher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("cache-invalidation-publisher-"));
+        listenerThread = new CustomizableThreadFactory("cache-invalidation-listener-").newThread(this::listen);
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    /**
+     * Diğer node'lara bir cache anahtarının geçersiz olduğunu bildirir.
+     * Aktif transaction varsa bildirim commit sonrasına ertelenir; rollback olursa gönderilmez.
+     * Yerel cache'i güncellemek çağıranın sorumluluğundadır.
+     *
+     * @param cacheName Cache adı
+     * @param key Anahtar (UUID, String veya Long); diğer tipler için tüm cache temizlenir
+     */
+    public void publish(String cacheName, Object key) {
+        if (!running) {
+            return;
+        }
+        Entry entry = new Entry(cacheName, encodeKey(key));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(entry);
+                }
+            });
+        } else {
+            enqueue(entry);
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        published.increment();
+        pending.add(entry);
+        // Pencere içindeki tüm invalidation'lar tek flush ile gider
+        if (flushScheduled.compareAndSet(false, true)) {
+            publisher.schedule(this::flush, properties.getCoalesceWindow().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Biriken invalidation'ları payload sınırına göre bölerek NOTIFY ile gönderir.
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        List<Entry> batch = new ArrayList<>();
+        int batchBytes = 0;
+        for (Iterator<Entry> it = pending.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            it.remove();
+            int entryBytes = entry.cacheName.length() + entry.key.length() + 8;
+            if (!batch.isEmpty() && batchBytes + entryBytes > MAX_PAYLOAD_BYTES) {
+                send(batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(entry);
+            batchBytes += entryBytes;
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<Entry> entries) {
+        // Gönderim başarısız olsa da versiyon artar; alıcılar boşluğu görüp cache'i temizler
+        long messageVersion = version.incrementAndGet();
+        try {
+            ObjectNode message = objectMapper.createObjectNode();
+            message.put("node", nodeId);
+            message.put("version", messageVersion);
+            ArrayNode array = message.putArray("entries");
+            for (Entry entry : entries) {
+                array.addArray().add(entry.cacheName).add(entry.key);
+            }
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null,
+                    properties.getChannel(), objectMapper.writeValueAsString(message));
+            notificationsSent.increment();
+        } catch (DataAccessException | JsonProcessingException e) {
+            sendFailures.increment();
+            logger.warn("Cache invalidation bildirimi gönderilemedi - {} anahtar", entries.size(), e);
+        }
+    }
+
+    /**
+     * Ayrı bir bağlantı üzerinde LISTEN yapar; bağlantı koparsa yeniden bağlanır.
+     */
+    private void listen() {
+        boolean missedPossible = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                listenerConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + properties.getChannel());
+                }
+                listening = true;
+                lastVersionByNode.clear();
+                if (missedPossible) {
+                    // Bağlantı yokken gelen bildirimler kayboldu
+                    reconnects.increment();
+                    flushAll("listener yeniden bağlandı");
+                }
+                missedPossible = true;
+                logger.info("Cache invalidation listener başladı - Kanal: {}, Node: {}", properties.getChannel(), nodeId);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                int timeoutMillis = (int) Math.max(1, properties.getPollTimeout().toMillis());
+                while (running) {
+                    // Bildirim gelene ya da süre dolana kadar bekler
+                    PGNotification[] notifications = pgConnection.getNotifications(timeoutMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        handle(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                listening = false;
+                missedPossible = true;
+                if (!running) {
+                    break;
+                }
+                logger.warn("Cache invalidation listener bağlantısı koptu, {} sonra tekrar denenecek",
+                        properties.getReconnectDelay(), e);
+                try {
+                    Thread.sleep(properties.getReconnectDelay().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } finally {
+                listening = false;
+                listenerConnection = null;
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        notificationsReceived.increment();
+        try {
+            JsonNode message = objectMapper.readTree(payload);
+            String sender = message.path("node").asText();
+            if (nodeId.equals(sender)) {
+                return; // Kendi bildirimimiz; yerel cache zaten güncel
+            }
+
+            long messageVersion = message.path("version").asLong();
+            Long previous = lastVersionByNode.put(sender, messageVersion);
+            if (previous != null && messageVersion != previous + 1) {
+                flushAll("node " + sender + " için " + (messageVersion - previous - 1) + " bildirim kaçırıldı");
+                return;
+            }
+
+            for (JsonNode entry : message.path("entries")) {
+                evictLocal(entry.path(0).asText(), entry.path(1).asText());
+            }
+        } catch (Exception e) {
+            // Bildirimi anlayamadıysak güvenli taraf: her şeyi temizle
+            logger.warn("Cache invalidation bildirimi işlenemedi: {}", payload, e);
+            flushAll("okunamayan bildirim");
+        }
+    }
+
+    private void evictLocal(String cacheName, String encodedKey) {
+        // getCache tanımsız cache'i oluşturabilir; sadece var olanlara dokun
+        if (!cacheManager.getCacheNames().contains(cacheName)) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (ALL_KEYS.equals(encodedKey)) {
+            cache.clear();
+        } else {
+            cache.evict(decodeKey(encodedKey));
+        }
+        evicted.increment();
+    }
+
+    private void flushAll(String reason) {
+        fullFlushes.increment();
+        logger.warn("Tüm yerel cache'ler temizleniyor: {}", reason);
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Anahtarı tipini koruyarak metne çevirir (JSON'da UUID ile String ayırt edilemez).
+     */
+    static String encodeKey(Object key) {
+        if (key instanceof UUID) {
+            return "u:" + key;
+        }
+        if (key instanceof String) {
+            return "s:" + key;
+        }
+        if (key instanceof Long) {
+            return "l:" + key;
+        }
+        return ALL_KEYS;
+    }
+
+    static Object decodeKey(String encoded) {
+        String value = encoded.substring(2);
+        switch (encoded.charAt(0)) {
+            case 'u':
+                return UUID.fromString(value);
+            case 'l':
+                return Long.valueOf(value);
+            default:
+                return value;
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "cacheInvalidation";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        metrics.put("listening", listening);
+        metrics.put("nodeId", nodeId);
+        metrics.put("pending", pending.size());
+        metrics.put("published", published.sum());
+        metrics.put("notificationsSent", notificationsSent.sum());
+        metrics.put("sendFailures", sendFailures.sum());
+        metrics.put("notificationsReceived", notificationsReceived.sum());
+        metrics.put("evicted", evicted.sum());
+        metrics.put("fullFlushes", fullFlushes.sum());
+        metrics.put("reconnects", reconnects.sum());
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // Bekleyen bildirimleri gönder
+        publisher.execute(this::flush);
+        publisher.shutdown();
+        Connection connection = listenerConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("Listener bağlantısı kapatılırken hata", e);
+            }
+        }
+        listenerThread.interrupt();
+        try {
+            publisher.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gönderilecek tek bir invalidation.
+     */
+    private record Entry(String cacheName, String key) {
+    }
+}
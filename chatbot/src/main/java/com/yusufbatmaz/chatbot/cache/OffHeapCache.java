@@ -0,0 +1,110 @@
+package com.yusufbatmaz.chatbot.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Metin değerlerini UTF-8 olarak {@link OffHeapStore}'da tutan Spring cache'i.
+ * Uzun ömürlü büyük metinler (bot cevapları, sohbet geçmişi) için kullanılır;
+ * sadece String değer kabul eder.
+ */
+public class OffHeapCache extends AbstractValueAdaptingCache implements StatisticsCache {
+
+    private final String name;
+    private final OffHeapStore store;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public OffHeapCache(String name, OffHeapStore store) {
+        super(false);
+        this.name = name;
+        this.store = store;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(@NonNull Object key) {
+        byte[] value = store.get(key);
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        Object cached = lookup(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        try {
+            T value = valueLoader.call();
+            put(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        if (value == null) {
+            store.remove(key);
+            return;
+        }
+        if (!(value instanceof String text)) {
+            throw new IllegalArgumentException("Off-heap cache sadece String değer saklar: " + value.getClass().getName());
+        }
+        // Sığmayan değer cache'lenmez; okuyan taraf kaynaktan yükler
+        store.put(key, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        store.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+    }
+
+    @Override
+    public void cleanUp() {
+        store.cleanUp();
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = store.getStatistics();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        return stats;
+    }
+}
@@ -0,0 +1,401 @@
+package com.yusufbatmaz.chatbot.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Değerleri heap dışında (direct ByteBuffer) tutan, slab ayırmalı byte deposu.
+ *
+ * Bellek sabit boyutlu sayfalara, her sayfa da bir boyut sınıfının chunk'larına
+ * bölünür (64 byte'tan sayfa boyutuna kadar ikinin kuvvetleri). Değer sığdığı
+ * en küçük chunk'a yazılır. Heap'te sadece anahtar -> konum indeksi ve
+ * primitive dizilerdeki uzunluk/LRU bilgileri durur; büyük metinler GC'nin
+ * taradığı alana girmez.
+ *
+ * Her boyut sınıfı kendi LRU listesini tutar. Bütçe dolunca önce aynı sınıfın
+ * en eski girdisi çıkarılır; sınıfın hiç sayfası yoksa en çok sayfası olan
+ * sınıftan bir sayfa boşaltılıp devredilir.
+ */
+public final class OffHeapStore {
+
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final int NONE = -1;
+
+    private final int pageSize;
+    private final int maxPages;
+    private final long ttlNanos;
+    private final SlabClass[] classes;
+    private final Map<Object, Long> index = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int allocatedPages;
+    private long bytesUsed;
+    private long evictions;
+    private long expirations;
+    private long rejected;
+
+    /**
+     * @param maxBytes Ayrılabilecek toplam off-heap bellek
+     * @param pageSize Sayfa boyutu (aynı zamanda saklanabilecek en büyük değer)
+     * @param ttlNanos Yazıldıktan sonra geçerlilik süresi (nanosaniye)
+     */
+    public OffHeapStore(long maxBytes, int pageSize, long ttlNanos) {
+        if (pageSize < MIN_CHUNK_SIZE || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Sayfa boyutu 64 byte'tan büyük ve ikinin kuvveti olmalı: " + pageSize);
+        }
+        this.pageSize = pageSize;
+        this.maxPages = (int) Math.max(1, maxBytes / pageSize);
+        this.ttlNanos = ttlNanos;
+        int classCount = Integer.numberOfTrailingZeros(pageSize) - Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE) + 1;
+        this.classes = new SlabClass[classCount];
+        for (int i = 0; i < classCount; i++) {
+            classes[i] = new SlabClass(MIN_CHUNK_SIZE << i);
+        }
+    }
+
+    /**
+     * Değeri yazar; anahtar varsa eskisinin yerine geçer.
+     * @return Değer sayfa boyutundan büyükse veya yer açılamazsa false
+     */
+    public boolean put(Object key, byte[] value) {
+        int classIndex = classIndexFor(value.length);
+        lock.lock();
+        try {
+            removeEntry(key);
+            if (classIndex < 0) {
+                rejected++;
+                return false;
+            }
+            SlabClass slabClass = classes[classIndex];
+            int slot = allocate(slabClass);
+            if (slot == NONE) {
+                rejected++;
+                return false;
+            }
+            slabClass.write(slot, key, value, System.nanoTime());
+            bytesUsed += value.length;
+            index.put(key, location(classIndex, slot));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Değeri heap'e kopyalayarak döner ve girdiyi LRU'da en yeniye taşır.
+     * @return Değer yoksa veya süresi dolduysa null
+     */
+    public byte[] get(Object key) {
+        lock.lock();
+        try {
+            Long location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            SlabClass slabClass = classes[classIndex(location)];
+            int slot = slot(location);
+            if (System.nanoTime() - slabClass.writeTimes[slot] >= ttlNanos) {
+                removeEntry(key);
+                expirations++;
+                return null;
+            }
+            slabClass.touch(slot);
+            return slabClass.read(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(Object key) {
+        lock.lock();
+        try {
+            return removeEntry(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tüm girdileri siler; ayrılmış sayfalar sonraki yazmalar için tutulur.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            index.clear();
+            for (SlabClass slabClass : classes) {
+                slabClass.reset();
+            }
+            bytesUsed = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Süresi dolmuş girdileri siler.
+     */
+    public void cleanUp() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            for (SlabClass slabClass : classes) {
+                // En eski girdiler LRU başında; süresi dolmamış ilk girdiye kadar ilerlemek yetmez
+                // (okunan eski girdiler sona taşınır), bu yüzden tüm listeyi dolaşıyoruz
+                int slot = slabClass.head;
+                while (slot != NONE) {
+                    int next = slabClass.next[slot];
+                    if (now - slabClass.writeTimes[slot] >= ttlNanos) {
+                        removeEntry(slabClass.keys[slot]);
+                        expirations++;
+                    }
+                    slot = next;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("size", index.size());
+            stats.put("bytesUsed", bytesUsed);
+            stats.put("bytesAllocated", (long) allocatedPages * pageSize);
+            stats.put("maxBytes", (long) maxPages * pageSize);
+            stats.put("evictions", evictions);
+            stats.put("expirations", expirations);
+            stats.put("rejected", rejected);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean removeEntry(Object key) {
+        Long location = index.remove(key);
+        if (location == null) {
+            return false;
+        }
+        SlabClass slabClass = classes[classIndex(location)];
+        int slot = slot(location);
+        bytesUsed -= slabClass.lengths[slot];
+        slabClass.release(slot);
+        return true;
+    }
+
+    /**
+     * Sınıf için boş chunk bulur: serbest liste, yeni sayfa, LRU tahliyesi
+     * veya başka sınıftan sayfa devri sırasıyla denenir.
+     */
+    private int allocate(SlabClass slabClass) {
+        if (slabClass.freeCount == 0) {
+            if (allocatedPages < maxPages) {
+                allocatedPages++;
+                slabClass.addPage(ByteBuffer.allocateDirect(pageSize));
+            } else if (slabClass.head != NONE) {
+                evictEntry(slabClass, slabClass.head);
+            } else {
+                ByteBuffer page = reclaimPage(slabClass);
+                if (page == null) {
+                    return NONE;
+                }
+                slabClass.addPage(page);
+            }
+        }
+        return slabClass.popFree();
+    }
+
+    private void evictEntry(SlabClass slabClass, int slot) {
+        removeEntry(slabClass.keys[slot]);
+        evictions++;
+    }
+
+    /**
+     * En çok sayfası olan diğer sınıfın son sayfasını boşaltıp döner.
+     */
+    private ByteBuffer reclaimPage(SlabClass requester) {
+        SlabClass donor = null;
+        for (SlabClass candidate : classes) {
+            if (candidate != requester && candidate.pages.size() > 0
+                    && (donor == null || candidate.pages.size() > donor.pages.size())) {
+                donor = candidate;
+            }
+        }
+        if (donor == null) {
+            return null;
+        }
+        int first = (donor.pages.size() - 1) * donor.chunksPerPage;
+        for (int slot = first; slot < first + donor.chunksPerPage; slot++) {
+            if (donor.keys[slot] != null) {
+                evictEntry(donor, slot);
+            }
+        }
+        return donor.removeLastPage();
+    }
+
+    private int classIndexFor(int length) {
+        if (length > pageSize) {
+            return NONE;
+        }
+        int chunk = Math.max(MIN_CHUNK_SIZE, Integer.highestOneBit(Math.max(1, length - 1)) << 1);
+        return Integer.numberOfTrailingZeros(chunk) - Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+    }
+
+    private static long location(int classIndex, int slot) {
+        return ((long) classIndex << 32) | (slot & 0xffffffffL);
+    }
+
+    private static int classIndex(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int slot(long location) {
+        return (int) location;
+    }
+
+    /**
+     * Aynı boyuttaki chunk'ların sayfaları, serbest listesi ve LRU listesi.
+     * Slot numarası = sayfa sırası * sayfadaki chunk sayısı + chunk sırası.
+     */
+    private final class SlabClass {
+        private final int chunkSize;
+        private final int chunksPerPage;
+        private final List<ByteBuffer> pages = new ArrayList<>();
+
+        private int[] prev = new int[0];
+        private int[] next = new int[0];
+        private int[] lengths = new int[0];
+        private long[] writeTimes = new long[0];
+        private Object[] keys = new Object[0];
+        private int[] free = new int[0];
+        private int freeCount;
+        private int head = NONE;
+        private int tail = NONE;
+
+        private SlabClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+            this.chunksPerPage = pageSize / chunkSize;
+        }
+
+        private void addPage(ByteBuffer page) {
+            int first = pages.size() * chunksPerPage;
+            int capacity = first + chunksPerPage;
+            pages.add(page);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            writeTimes = Arrays.copyOf(writeTimes, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            free = Arrays.copyOf(free, capacity);
+            // Düşük slotlar önce kullanılsın diye ters sırada ekle
+            for (int slot = capacity - 1; slot >= first; slot--) {
+                free[freeCount++] = slot;
+            }
+        }
+
+        /**
+         * Son sayfayı sınıftan çıkarır. Sayfadaki tüm girdiler önceden silinmiş olmalı.
+         */
+        private ByteBuffer removeLastPage() {
+            int first = (pages.size() - 1) * chunksPerPage;
+            int kept = 0;
+            for (int i = 0; i < freeCount; i++) {
+                if (free[i] < first) {
+                    free[kept++] = free[i];
+                }
+            }
+            freeCount = kept;
+            prev = Arrays.copyOf(prev, first);
+            next = Arrays.copyOf(next, first);
+            lengths = Arrays.copyOf(lengths, first);
+            writeTimes = Arrays.copyOf(writeTimes, first);
+            keys = Arrays.copyOf(keys, first);
+            free = Arrays.copyOf(free, first);
+            return pages.remove(pages.size() - 1);
+        }
+
+        private int popFree() {
+            return free[--freeCount];
+        }
+
+        private void write(int slot, Object key, byte[] value, long now) {
+            pages.get(slot / chunksPerPage).put((slot % chunksPerPage) * chunkSize, value);
+            keys[slot] = key;
+            lengths[slot] = value.length;
+            writeTimes[slot] = now;
+            linkLast(slot);
+        }
+
+        private byte[] read(int slot) {
+            byte[] value = new byte[lengths[slot]];
+            pages.get(slot / chunksPerPage).get((slot % chunksPerPage) * chunkSize, value);
+            return value;
+        }
+
+        private void release(int slot) {
+            unlink(slot);
+            keys[slot] = null;
+            lengths[slot] = 0;
+            free[freeCount++] = slot;
+        }
+
+        private void touch(int slot) {
+            if (tail != slot) {
+                unlink(slot);
+                linkLast(slot);
+            }
+        }
+
+        private void reset() {
+            Arrays.fill(keys, null);
+            Arrays.fill(lengths, 0);
+            head = NONE;
+            tail = NONE;
+            freeCount = 0;
+            for (int slot = keys.length - 1; slot >= 0; slot--) {
+                free[freeCount++] = slot;
+            }
+        }
+
+        private void linkLast(int slot) {
+            prev[slot] = tail;
+            next[slot] = NONE;
+            if (tail == NONE) {
+                head = slot;
+            } else {
+                next[tail] = slot;
+            }
+            tail = slot;
+        }
+
+        private void unlink(int slot) {
+            if (prev[slot] == NONE) {
+                head = next[slot];
+            } else {
+                next[prev[slot]] = next[slot];
+            }
+            if (next[slot] == NONE) {
+                tail = prev[slot];
+            } else {
+                prev[next[slot]] = prev[slot];
+            }
+        }
+    }
+}
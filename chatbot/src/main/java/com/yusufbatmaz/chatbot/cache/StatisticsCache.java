@@ -0,0 +1,20 @@
+package com.yusufbatmaz.chatbot.cache;
+
+import java.util.Map;
+
+/**
+ * İstatistik raporlayan ve periyodik temizlik destekleyen cache'ler.
+ * {@link BoundedCacheManager} metriklerini ve temizliğini bu arayüz üzerinden yapar.
+ */
+public interface StatisticsCache {
+
+    /**
+     * Süresi dolmuş girdileri temizler.
+     */
+    void cleanUp();
+
+    /**
+     * Cache istatistiklerini döner.
+     */
+    Map<String, Object> getStatistics();
+}
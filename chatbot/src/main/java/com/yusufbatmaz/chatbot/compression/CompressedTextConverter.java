@@ -0,0 +1,21 @@
+package com.yusufbatmaz.chatbot.compression;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Metin kolonlarını {@link TextCompressor} formatında bytea olarak saklar.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        return TextCompressor.encode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return TextCompressor.decode(dbData);
+    }
+}
@@ -0,0 +1,88 @@
+package com.yusufbatmaz.chatbot.compression;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Örnek mesajlardan deflate için önceden tanımlı sözlük üretir.
+ *
+ * Mesajlardaki 1-4 kelimelik ifadeler sayılır ve (tekrar - 1) * uzunluk
+ * puanına göre seçilir; zaten seçilmiş bir ifadenin parçası olanlar atlanır.
+ * Deflate yakın mesafedeki eşleşmeleri daha ucuz kodladığı için en değerli
+ * ifadeler sözlüğün sonuna yazılır.
+ *
+ * Yeni bir sözlük sürümü üretmek için kullanılır; üretilen sözlük yeni bir
+ * format baytıyla {@link TextCompressor}'a eklenmelidir.
+ */
+public final class DictionaryTrainer {
+
+    private static final int MAX_WORDS = 4;
+
+    private DictionaryTrainer() {}
+
+    /**
+     * @param samples Gerçek trafikten örnek mesajlar
+     * @param maxBytes Sözlüğün maksimum boyutu (deflate penceresi 32 KB)
+     * @return UTF-8 sözlük
+     */
+    public static byte[] train(Iterable<String> samples, int maxBytes) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String sample : samples) {
+            if (sample == null) {
+                continue;
+            }
+            String[] words = sample.split("\\s+");
+            for (int start = 0; start < words.length; start++) {
+                StringBuilder phrase = new StringBuilder();
+                for (int n = 0; n < MAX_WORDS && start + n < words.length; n++) {
+                    if (n > 0) {
+                        phrase.append(' ');
+                    }
+                    phrase.append(words[start + n]);
+                    if (phrase.length() >= 4) {
+                        counts.merge(phrase.toString(), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 1) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort((a, b) -> Long.compare(score(b), score(a)));
+
+        List<String> selected = new ArrayList<>();
+        StringBuilder joined = new StringBuilder();
+        int size = 0;
+        for (Map.Entry<String, Integer> candidate : candidates) {
+            String phrase = candidate.getKey();
+            if (joined.indexOf(phrase) >= 0) {
+                continue;
+            }
+            int length = phrase.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (size + length > maxBytes) {
+                continue;
+            }
+            selected.add(phrase);
+            joined.append(phrase).append('\n');
+            size += length;
+        }
+
+        // En değerli ifade en sonda olsun
+        StringBuilder dictionary = new StringBuilder(size);
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            dictionary.append(selected.get(i)).append('\n');
+        }
+        return dictionary.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long score(Map.Entry<String, Integer> entry) {
+        return (long) (entry.getValue() - 1) * entry.getKey().length();
+    }
+}
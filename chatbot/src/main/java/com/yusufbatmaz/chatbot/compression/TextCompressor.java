@@ -0,0 +1,174 @@
+package com.yusufbatmaz.chatbot.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Sohbet metinlerini sürüm baytlı formatta sıkıştırır.
+ *
+ * <pre>
+ * 0x00 | UTF-8                                  (sıkıştırılmamış)
+ * 0x01 | rawLength (varint) | raw deflate        (chat-dictionary-v1 sözlüğüyle)
+ * </pre>
+ *
+ * Eşik altındaki metinler ve sıkıştırınca küçülmeyenler ham yazılır. Önceden
+ * tanımlı sözlük, kısa mesajlarda bile deflate'in ilk baytlardan itibaren
+ * eşleşme bulmasını sağlar. Sözlük dosyası yazılmış satırların okunması için
+ * gereklidir; değiştirilmemeli, yeni sözlük yeni bir format baytıyla eklenmelidir.
+ */
+public final class TextCompressor {
+
+    static final byte FORMAT_RAW = 0x00;
+    static final byte FORMAT_DEFLATE_V1 = 0x01;
+
+    /**
+     * Bu boyutun (UTF-8 bayt) altındaki metinler sıkıştırılmaz
+     */
+    public static final int DEFAULT_THRESHOLD = 64;
+
+    private static final byte[] DICTIONARY_V1 = loadDictionary("compression/chat-dictionary-v1.txt");
+
+    // Deflater/Inflater native bellek tutar; her thread kendi örneğini yeniden kullanır
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private TextCompressor() {}
+
+    public static byte[] encode(String value) {
+        return encode(value, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Metni kodlar.
+     * @param value Metin (null ise null döner)
+     * @param threshold Bu boyutun altındaki metinler ham yazılır
+     */
+    public static byte[] encode(String value, int threshold) {
+        if (value == null) {
+            return null;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= threshold) {
+            byte[] compressed = deflate(utf8);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        byte[] raw = new byte[utf8.length + 1];
+        raw[0] = FORMAT_RAW;
+        System.arraycopy(utf8, 0, raw, 1, utf8.length);
+        return raw;
+    }
+
+    /**
+     * Kodlanmış değeri metne çevirir.
+     */
+    public static String decode(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.length == 0) {
+            return "";
+        }
+        switch (value[0]) {
+            case FORMAT_RAW:
+                return new String(value, 1, value.length - 1, StandardCharsets.UTF_8);
+            case FORMAT_DEFLATE_V1:
+                return inflate(value, DICTIONARY_V1);
+            default:
+                throw new IllegalArgumentException("Bilinmeyen metin formatı: " + value[0]);
+        }
+    }
+
+    /**
+     * Sıkıştırma kazandırmıyorsa null döner.
+     */
+    private static byte[] deflate(byte[] utf8) {
+        // Format baytı + varint uzunluk; sonuç ham halinden küçük olmalı
+        int headerLength = 1 + varintLength(utf8.length);
+        int limit = utf8.length + 1 - headerLength;
+        if (limit <= 0) {
+            return null;
+        }
+        byte[] output = new byte[utf8.length + 1];
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY_V1);
+        deflater.setInput(utf8);
+        deflater.finish();
+        int length = deflater.deflate(output, headerLength, limit);
+        if (!deflater.finished() || headerLength + length >= utf8.length + 1) {
+            return null;
+        }
+        output[0] = FORMAT_DEFLATE_V1;
+        writeVarint(output, 1, utf8.length);
+        return Arrays.copyOf(output, headerLength + length);
+    }
+
+    private static String inflate(byte[] value, byte[] dictionary) {
+        int rawLength = 0;
+        int position = 1;
+        for (int shift = 0; ; shift += 7) {
+            byte b = value[position++];
+            rawLength |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        byte[] utf8 = new byte[rawLength];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setDictionary(dictionary);
+        inflater.setInput(value, position, value.length - position);
+        try {
+            int read = 0;
+            while (read < rawLength) {
+                int n = inflater.inflate(utf8, read, rawLength - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != rawLength) {
+                throw new IllegalArgumentException("Sıkıştırılmış metin eksik: " + read + "/" + rawLength);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Sıkıştırılmış metin bozuk", e);
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private static void writeVarint(byte[] output, int position, int value) {
+        while ((value & ~0x7f) != 0) {
+            output[position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output[position] = (byte) value;
+    }
+
+    private static byte[] loadDictionary(String resource) {
+        try (InputStream input = TextCompressor.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalStateException("Sıkıştırma sözlüğü bulunamadı: " + resource);
+            }
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.yusufbatmaz.chatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * İstek başına yapılandırılmış erişim logu ayarları.
+ * application.properties'deki "access-log" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "access-log")
+@Data
+public class AccessLogProperties {
+
+    /**
+     * Erişim logu açık mı
+     */
+    private boolean enabled = true;
+
+    /**
+     * Mesaj içeriğinin (maskelenmiş) loga eklendiği istek oranı (0-1)
+     */
+    private double payloadSampleRate = 0.01;
+
+    /**
+     * Loga eklenen mesaj içeriğinin maksimum uzunluğu
+     */
+    private int maxPayloadLength = 500;
+}
@@ -0,0 +1,73 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Chat isteklerinin kabul kontrolü (load shedding) ayarları.
+ * application.properties'deki "chat.admission" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "chat.admission")
+@Data
+public class AdmissionControlProperties {
+
+    /**
+     * Kabul kontrolü açık mı
+     */
+    private boolean enabled = true;
+
+    /**
+     * Kontrol edilen path pattern'leri
+     */
+    private List<String> paths = new ArrayList<>(List.of("/api/chat"));
+
+    /**
+     * Kontrol edilen HTTP metodları (boşsa hepsi)
+     */
+    private List<String> methods = new ArrayList<>(List.of("POST"));
+
+    /**
+     * Hiçbir zaman reddedilmeyen path pattern'leri (sağlık kontrolü, giriş)
+     */
+    private List<String> excludedPaths = new ArrayList<>(List.of("/api/health/**", "/api/users/login"));
+
+    /**
+     * İsteğin tamamlanması gereken varsayılan süre (istemci zaman aşımı)
+     */
+    private Duration deadline = Duration.ofSeconds(30);
+
+    /**
+     * İstemci X-Request-Timeout ile daha kısa süre bildirebilir; bu değerden kısa olamaz
+     */
+    private Duration minDeadline = Duration.ofSeconds(1);
+
+    /**
+     * Paralel işlenebilen istek sayısı; 0 ise chat.upstream.max-concurrency kullanılır
+     */
+    private int concurrency = 0;
+
+    /**
+     * Aynı anda kabul edilmiş maksimum istek sayısı; 0 ise sınırsız
+     */
+    private int maxInFlight = 0;
+
+    /**
+     * Henüz ölçüm yokken varsayılan servis süresi
+     */
+    private Duration initialServiceTime = Duration.ofSeconds(5);
+
+    /**
+     * Servis süresi ortalamasında yeni ölçümün ağırlığı (0-1)
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Reddedilen isteklere önerilen maksimum Retry-After
+     */
+    private Duration maxRetryAfter = Duration.ofSeconds(30);
+}
@@ -0,0 +1,40 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * İmzalı oturum token'ı ayarları.
+ * application.properties'deki "auth.token" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "auth.token")
+@Data
+public class AuthTokenProperties {
+
+    /**
+     * HMAC anahtarı (en az 32 byte önerilir). Tüm node'larda aynı olmalıdır;
+     * tanımlı değilse uygulama açılmaz. application.properties'deki varsayılan
+     * yalnızca geliştirme içindir, prod profili AUTH_TOKEN_SECRET ister.
+     */
+    private String secret = "";
+
+    /**
+     * Token geçerlilik süresi
+     */
+    private Duration ttl = Duration.ofHours(12);
+
+    /**
+     * Korumalı path'lerde token zorunlu mu (false: token yoksa eski ?userId= akışı çalışır)
+     */
+    private boolean required = false;
+
+    /**
+     * Token ile korunan path'ler (Ant pattern)
+     */
+    private List<String> protectedPaths = new ArrayList<>(List.of("/api/chat/**", "/api/chat", "/api/profile/**"));
+}
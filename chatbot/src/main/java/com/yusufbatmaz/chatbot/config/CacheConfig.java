@@ -1,13 +1,19 @@
 package com.yusufbatmaz.chatbot.config;
 
 import java.time.Duration;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.unit.DataSize;
+
+import com.yusufbatmaz.chatbot.cache.BoundedCacheManager;
+import com.yusufbatmaz.chatbot.cache.OffHeapCache;
+import com.yusufbatmaz.chatbot.cache.OffHeapStore;
 
 /**
  * Caching konfigürasyonu.
@@ -17,34 +23,67 @@ import org.springframework.context.annotation.Configuration;
 @EnableCaching
 public class CacheConfig {
 
+    @Value("${cache.maximum-size:10000}")
+    private int maximumSize;
+
+    @Value("${cache.refresh-ahead-ratio:0.8}")
+    private double refreshAheadRatio;
+
+    @Value("${cache.off-heap.max-size:64MB}")
+    private DataSize offHeapMaxSize;
+
+    @Value("${cache.off-heap.page-size:1MB}")
+    private DataSize offHeapPageSize;
+
     /**
      * Cache manager bean'i.
-     * Basit in-memory cache kullanıyoruz.
-     * 
+     * Boyutu sınırlı, TTL'li ve sık kullanılan girdileri koruyan (W-TinyLFU) cache kullanıyoruz.
+     * Her cache'in TTL'i {@link CacheTTL} sabitlerinden gelir.
+     * Büyük metin tutan "chatHistory" cache'i GC yükü oluşturmasın diye heap dışında tutulur.
+     *
      * @return CacheManager
      */
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        
-        // Cache isimlerini tanımlıyoruz
-        cacheManager.setCacheNames(List.of(
-            "users",           // Kullanıcı cache'i
-            "chatHistory",     // Chat geçmişi cache'i
-            "categories",      // Kategori cache'i
-            "rateLimits"       // Rate limit cache'i
-        ));
-        
+    public BoundedCacheManager cacheManager() {
+        // Cache isimlerini ve TTL değerlerini tanımlıyoruz
+        Map<String, Duration> ttls = new LinkedHashMap<>();
+        ttls.put("users", CacheTTL.USER_CACHE_TTL);                     // Kullanıcı cache'i
+        ttls.put("usersByEmail", CacheTTL.USER_CACHE_TTL);              // Email -> kullanıcı cache'i
+        ttls.put("missingUsers", CacheTTL.MISSING_USER_CACHE_TTL);      // Bulunamayan kullanıcı ID'leri
+        ttls.put("categories", CacheTTL.CATEGORY_CACHE_TTL);            // Kategori cache'i
+        ttls.put("rateLimits", CacheTTL.RATE_LIMIT_CACHE_TTL);          // Rate limit cache'i
+        ttls.put("profileVersions", CacheTTL.PROFILE_VERSION_CACHE_TTL); // Profil ID -> ETag versiyonu
+        ttls.put("sessionRevocations", CacheTTL.SESSION_REVOCATION_CACHE_TTL); // Token ID -> iptal edildi mi
+
+        BoundedCacheManager cacheManager = new BoundedCacheManager(ttls, maximumSize, CacheTTL.DEFAULT_CACHE_TTL, refreshAheadRatio);
+
+        // Chat geçmişi cache'i (off-heap)
+        OffHeapStore chatHistoryStore = new OffHeapStore(offHeapMaxSize.toBytes(),
+                (int) offHeapPageSize.toBytes(), CacheTTL.CHAT_HISTORY_CACHE_TTL.toNanos());
+        cacheManager.registerCache(new OffHeapCache("chatHistory", chatHistoryStore));
         return cacheManager;
     }
 
+    /**
+     * Süresi dolmuş girdileri periyodik olarak temizler.
+     * Okunmayan girdiler de böylece bellekte kalmaz.
+     */
+    @Scheduled(fixedDelayString = "${cache.cleanup-interval:60000}")
+    public void cleanUpExpiredEntries() {
+        cacheManager().cleanUp();
+    }
+
     /**
      * Cache TTL (Time To Live) değerleri.
      */
     public static class CacheTTL {
         public static final Duration USER_CACHE_TTL = Duration.ofMinutes(30);
+        public static final Duration MISSING_USER_CACHE_TTL = Duration.ofSeconds(30);
         public static final Duration CHAT_HISTORY_CACHE_TTL = Duration.ofMinutes(10);
+        public static final Duration PROFILE_VERSION_CACHE_TTL = Duration.ofMinutes(5);
+        public static final Duration SESSION_REVOCATION_CACHE_TTL = Duration.ofMinutes(5);
         public static final Duration CATEGORY_CACHE_TTL = Duration.ofHours(1);
         public static final Duration RATE_LIMIT_CACHE_TTL = Duration.ofMinutes(1);
+        public static final Duration DEFAULT_CACHE_TTL = Duration.ofMinutes(10);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Node'lar arası cache invalidation (Postgres LISTEN/NOTIFY) ayarları.
+ * application.properties'deki "cache.invalidation" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "cache.invalidation")
+@Data
+public class CacheInvalidationProperties {
+
+    /**
+     * Invalidation bus açık mı (tek node kurulumlarda kapatılabilir)
+     */
+    private boolean enabled = true;
+
+    /**
+     * NOTIFY/LISTEN kanal adı
+     */
+    private String channel = "cache_invalidation";
+
+    /**
+     * Bu süre içinde biriken invalidation'lar tek NOTIFY ile gönderilir
+     */
+    private Duration coalesceWindow = Duration.ofMillis(20);
+
+    /**
+     * Listener bağlantısı koptuğunda yeniden bağlanmadan önce beklenecek süre
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+
+    /**
+     * Listener'ın bildirim beklerken bağlantıyı kontrol etme aralığı
+     */
+    private Duration pollTimeout = Duration.ofSeconds(1);
+}
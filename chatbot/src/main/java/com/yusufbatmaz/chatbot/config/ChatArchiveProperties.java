@@ -0,0 +1,68 @@
+package com.yusufbatmaz.chatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * chat_history partition ve arşiv ayarları.
+ * application.properties'deki "chat.archive" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "chat.archive")
+@Data
+public class ChatArchiveProperties {
+
+    /**
+     * Partition bakımı ve arşivleme açık mı
+     */
+    private boolean enabled = true;
+
+    /**
+     * İçinde bulunulan aydan sonra önceden oluşturulacak aylık partition sayısı
+     */
+    private int partitionsAhead = 2;
+
+    /**
+     * Veritabanında tutulacak ay sayısı; daha eski partition'lar arşivlenir (0: arşivleme kapalı)
+     */
+    private int retentionMonths = 12;
+
+    /**
+     * Segment dosyalarının yazılacağı dizin (CHAT_ARCHIVE_DIR)
+     */
+    private String directory = "./data/chat-archive";
+
+    /**
+     * Dizin tüm node'ların eriştiği ortak depolama mı (tek node'lu kurulumda yerel dizin de olur).
+     * false ise segmentler yalnızca yedek olarak yazılır ve okunmaz; geçmiş ve dışa aktarma
+     * her node'da saklama süresiyle sınırlı kalır
+     */
+    private boolean sharedDirectory = false;
+
+    /**
+     * Arşivlenen partition silinsin mi; false ise yalnızca ayrılır (DETACH) ve tablo olarak kalır.
+     * Yalnızca sharedDirectory açıkken izin verilir; aksi halde uygulama açılmaz
+     */
+    private boolean dropPartitions = false;
+
+    /**
+     * Ortak dizinde diğer node'ların yazdığı segmentlerin taranma aralığı (ms)
+     */
+    private long rescanInterval = 60000;
+
+    /**
+     * Sıkıştırılmadan önceki blok boyutu
+     */
+    private DataSize blockSize = DataSize.ofKilobytes(64);
+
+    /**
+     * Bir segment dosyasının maksimum boyutu; aşılırsa aynı ay için yeni dosyaya geçilir
+     */
+    private DataSize maxSegmentSize = DataSize.ofMegabytes(512);
+
+    /**
+     * Partition okunurken JDBC fetch size
+     */
+    private int fetchSize = 1000;
+}
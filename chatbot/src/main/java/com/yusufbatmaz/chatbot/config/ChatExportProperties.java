@@ -0,0 +1,24 @@
+package com.yusufbatmaz.chatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Sohbet geçmişi dışa aktarma ayarları.
+ * application.properties'deki "chat.export" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "chat.export")
+@Data
+public class ChatExportProperties {
+
+    /**
+     * JDBC cursor'ının tek seferde getirdiği satır sayısı
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * Aynı anda çalışabilecek dışa aktarma sayısı
+     */
+    private int maxConcurrentExports = 2;
+}
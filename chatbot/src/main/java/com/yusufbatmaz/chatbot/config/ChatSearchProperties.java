@@ -0,0 +1,51 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Sohbet geçmişi tam metin arama indeksi ayarları.
+ * application.properties'deki "chat.search" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "chat.search")
+@Data
+public class ChatSearchProperties {
+
+    /**
+     * İndeksleme ve arama açık mı
+     */
+    private boolean enabled = true;
+
+    /**
+     * İndeks segmentlerinin yazılacağı yerel dizin
+     */
+    private String directory = "./data/chat-search";
+
+    /**
+     * Bellekteki segment bu kadar dokümana ulaşınca diske yazılır
+     */
+    private int flushDocs = 5_000;
+
+    /**
+     * Bellekteki dokümanların en geç diske yazılma aralığı
+     */
+    private Duration flushInterval = Duration.ofSeconds(30);
+
+    /**
+     * Diskteki segment sayısı bunu aşınca küçük segmentler birleştirilir
+     */
+    private int maxSegments = 8;
+
+    /**
+     * İndekslenmeyi bekleyebilecek maksimum kayıt sayısı; aşılırsa kayıt bir sonraki veritabanı taramasında indekslenir
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * Diğer node'ların kaydettiği turlar için veritabanının taranma aralığı (0: yalnızca açılışta)
+     */
+    private Duration catchUpInterval = Duration.ofMinutes(1);
+}
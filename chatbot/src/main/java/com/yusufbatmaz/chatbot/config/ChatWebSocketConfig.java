@@ -0,0 +1,96 @@
+package com.yusufbatmaz.chatbot.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.context.ServletContextAware;
+
+import com.yusufbatmaz.chatbot.websocket.ChatWebSocketEndpoint;
+
+import jakarta.servlet.ServletContext;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+
+/**
+ * WebSocket chat kanalını gömülü Tomcat'in WebSocket container'ına kaydeder.
+ *
+ * Container, uygulama context'i başlarken oluşturulduğu için kayıt tüm bean'ler
+ * hazır olduktan sonra yapılır. Endpoint Spring bean'i olarak tüm bağlantılara
+ * paylaşılır. Boştaki bağlantıların bellek maliyeti container'ın varsayılan
+ * okuma buffer'ları ve (ayarlandıysa) Tomcat soket buffer'larıyla küçültülür.
+ */
+@Configuration
+public class ChatWebSocketConfig implements ServletContextAware, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatWebSocketConfig.class);
+
+    private final ChatWebSocketProperties properties;
+    private final ChatWebSocketEndpoint endpoint;
+    private ServletContext servletContext;
+
+    public ChatWebSocketConfig(ChatWebSocketProperties properties, ChatWebSocketEndpoint endpoint) {
+        this.properties = properties;
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void setServletContext(@NonNull ServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!properties.isEnabled() || servletContext == null) {
+            return;
+        }
+        ServerContainer container = (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+        if (container == null) {
+            logger.warn("WebSocket container bulunamadı; {} kanalı kapalı", properties.getPath());
+            return;
+        }
+
+        container.setDefaultMaxTextMessageBufferSize(properties.getTextBufferSize());
+        container.setDefaultMaxBinaryMessageBufferSize(properties.getBinaryBufferSize());
+        container.setDefaultMaxSessionIdleTimeout(properties.getIdleTimeout().toMillis());
+        container.setAsyncSendTimeout(properties.getSendTimeout().toMillis());
+
+        ServerEndpointConfig config = ServerEndpointConfig.Builder.create(ChatWebSocketEndpoint.class, properties.getPath())
+                .configurator(new ServerEndpointConfig.Configurator() {
+                    @Override
+                    public <T> T getEndpointInstance(Class<T> endpointClass) {
+                        return endpointClass.cast(endpoint);
+                    }
+                })
+                .build();
+        try {
+            container.addEndpoint(config);
+        } catch (DeploymentException e) {
+            throw new IllegalStateException("WebSocket endpoint'i kaydedilemedi: " + properties.getPath(), e);
+        }
+        logger.info("WebSocket chat kanalı açık - Yol: {}", properties.getPath());
+    }
+
+    /**
+     * Bağlantı başına Tomcat soket buffer'larını ayarlar (tanımlıysa).
+     * Binlerce boşta bağlantıda belleğin büyük kısmı bu buffer'lardır.
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> socketBufferCustomizer() {
+        return factory -> {
+            if (properties.getSocketBufferSize() == null) {
+                return;
+            }
+            String size = String.valueOf(properties.getSocketBufferSize().toBytes());
+            factory.addConnectorCustomizers(connector -> {
+                connector.setProperty("socket.appReadBufSize", size);
+                connector.setProperty("socket.appWriteBufSize", size);
+            });
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * WebSocket chat kanalı ayarları.
+ * application.properties'deki "chat.websocket" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "chat.websocket")
+@Data
+public class ChatWebSocketProperties {
+
+    /**
+     * WebSocket kanalı açık mı
+     */
+    private boolean enabled = true;
+
+    /**
+     * Endpoint yolu
+     */
+    private String path = "/ws/chat";
+
+    /**
+     * Bağlantı başına aynı anda yürüyebilecek akış (konuşma) sayısı
+     */
+    private int maxStreamsPerConnection = 4;
+
+    /**
+     * İstemci mesajının maksimum uzunluğu (karakter, JSON zarfı dahil)
+     */
+    private int maxMessageLength = 16_384;
+
+    /**
+     * Bağlantı başına gönderilmeyi bekleyen kontrol frame'i sınırı; aşılırsa bağlantı kapatılır
+     */
+    private int maxQueuedFrames = 64;
+
+    /**
+     * Bağlantı açıldıktan sonra kimlik doğrulama mesajı için beklenecek süre
+     */
+    private Duration authTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Doğrulanmış bağlantının mesajsız kalabileceği süre (istemci ping atar)
+     */
+    private Duration idleTimeout = Duration.ofMinutes(2);
+
+    /**
+     * İstemci okumadığında bir frame'in gönderilmesi için beklenecek süre
+     */
+    private Duration sendTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Akışları yürüten worker thread sayısı (upstream slotlarından fazla olması yeterli)
+     */
+    private int workerThreads = 32;
+
+    /**
+     * Worker kuyruğunda bekleyebilecek akış sayısı; dolunca 503 döner
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * Bağlantı başına metin okuma buffer'ı (karakter). Mesajlar parça parça okunduğu
+     * için küçük tutulabilir; boşta bekleyen bağlantının bellek maliyetini belirler.
+     */
+    private int textBufferSize = 1024;
+
+    /**
+     * Bağlantı başına binary okuma buffer'ı (byte); kanal binary mesaj kabul etmez
+     */
+    private int binaryBufferSize = 128;
+
+    /**
+     * Tomcat'in bağlantı başına soket okuma/yazma buffer boyutu; tanımlı değilse Tomcat varsayılanı
+     */
+    private DataSize socketBufferSize;
+}
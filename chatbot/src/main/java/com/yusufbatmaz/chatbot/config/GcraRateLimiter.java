@@ -0,0 +1,124 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * GCRA (Generic Cell Rate Algorithm) ile çalışan, kilitsiz token-bucket limiter.
+ *
+ * Her anahtarın tüm durumu tek bir {@link AtomicLong} içindeki TAT
+ * (theoretical arrival time, nanosaniye) değeridir ve CAS ile güncellenir.
+ * Böylece pencere sıfırlama ile sayaç arasında yarış oluşmaz.
+ *
+ * TAT şimdiki zamanın gerisinde kalan anahtarın kovası tamamen doludur;
+ * bu anahtarlar silinse de davranış değişmez, bu yüzden idle temizliği güvenlidir.
+ */
+public class GcraRateLimiter implements RateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> states = new ConcurrentHashMap<>();
+
+    // Bir isteğin "maliyeti": iki token arası süre
+    private final long emissionIntervalNanos;
+
+    // Burst toleransı: kovanın tamamen dolu olduğu andaki TAT - now farkı
+    private final long burstToleranceNanos;
+
+    // Kova dolduktan sonra anahtarın silinmeden önce tutulacağı süre
+    private final long idleTimeoutNanos;
+
+    private final int burst;
+    private final LongSupplier clock;
+
+    public GcraRateLimiter(int requests, Duration period, int burst, Duration idleTimeout) {
+        this(requests, period, burst, idleTimeout, System::nanoTime);
+    }
+
+    GcraRateLimiter(int requests, Duration period, int burst, Duration idleTimeout, LongSupplier clock) {
+        if (requests <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("requests ve burst pozitif olmalıdır");
+        }
+        this.emissionIntervalNanos = Math.max(1, period.toNanos() / requests);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.burst = burst;
+        this.clock = clock;
+    }
+
+    @Override
+    public Decision tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong state = states.computeIfAbsent(key, k -> new AtomicLong(now));
+
+        while (true) {
+            long stored = state.get();
+            long tat = Math.max(stored, now);
+            long allowAt = tat - burstToleranceNanos;
+
+            if (now < allowAt) {
+                // Kova boş: en erken ne zaman tekrar denenebileceğini hesapla
+                return new Decision(false, burst, 0, toMillisCeil(allowAt - now));
+            }
+
+            long newTat = tat + emissionIntervalNanos;
+            if (state.compareAndSet(stored, newTat)) {
+                return new Decision(true, burst, remaining(newTat, now), 0);
+            }
+            // CAS kaybedildi, başka bir istek durumu değiştirdi; tekrar dene
+        }
+    }
+
+    @Override
+    public void refund(String key) {
+        AtomicLong state = states.get(key);
+        if (state != null) {
+            // TAT şimdinin gerisine düşse de zararsızdır; hesaplarda max(TAT, now) kullanılır
+            state.addAndGet(-emissionIntervalNanos);
+        }
+    }
+
+    @Override
+    public Decision peek(String key) {
+        long now = clock.getAsLong();
+        AtomicLong state = states.get(key);
+        if (state == null) {
+            return new Decision(true, burst, burst, 0);
+        }
+        long tat = Math.max(state.get(), now);
+        long allowAt = tat - burstToleranceNanos;
+        if (now < allowAt) {
+            return new Decision(false, burst, 0, toMillisCeil(allowAt - now));
+        }
+        return new Decision(true, burst, remaining(tat, now), 0);
+    }
+
+    @Override
+    public int evictIdle() {
+        long cutoff = clock.getAsLong() - idleTimeoutNanos;
+        int before = states.size();
+        // TAT'ı cutoff'un gerisinde kalan anahtarların kovası çoktan dolmuştur
+        states.values().removeIf(state -> state.get() - cutoff < 0);
+        return Math.max(0, before - states.size());
+    }
+
+    @Override
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Verilen TAT için kalan istek hakkını hesaplar.
+     */
+    private int remaining(long tat, long now) {
+        long headroom = burstToleranceNanos - (tat - now);
+        if (headroom < 0) {
+            return 0;
+        }
+        return (int) Math.min(burst, headroom / emissionIntervalNanos + 1);
+    }
+
+    private static long toMillisCeil(long nanos) {
+        return (nanos + 999_999) / 1_000_000;
+    }
+}
@@ -0,0 +1,261 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * Cluster genelinde geçerli, Postgres'ten toplu token kiralayan limiter.
+ *
+ * Her anahtar için global token bucket "rate_limit_bucket" tablosunda tutulur.
+ * Node'lar tek bir atomik upsert ... RETURNING ile küçük token partileri kiralar
+ * ve bunları yerelde DB'ye gitmeden harcar. Harcanmayan tokenlar lease süresi
+ * dolduğunda veya anahtar idle kaldığında tabloya geri iade edilir.
+ *
+ * Hata sınırı: her node anahtar başına en fazla {@code leaseSize} token tutar;
+ * tokenlar global kovadan düşüldüğü için limit aşılmaz, en kötü durumda
+ * diğer node'larda bekleyen tokenlar kadar erken red verilir.
+ *
+ * Global kova boş döndüğünde red, dönen bekleme süresi boyunca yerelde
+ * hatırlanır; limitlenen istemci her istekte DB'ye gitmez.
+ */
+public class LeasedRateLimiter implements RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeasedRateLimiter.class);
+
+    /**
+     * Refill + iade + kiralama işlemini tek ifadede yapar.
+     * SET içindeki tüm ifadeler satırın eski değerlerini görür.
+     */
+    private static final String LEASE_SQL = """
+            INSERT INTO rate_limit_bucket AS b (bucket_key, tokens, last_grant, updated_at)
+            VALUES (:key, :burst - LEAST(:batch, :burst), LEAST(:batch, :burst), now())
+            ON CONFLICT (bucket_key) DO UPDATE SET
+                tokens = LEAST(:burst, b.tokens + :returned + EXTRACT(EPOCH FROM (now() - b.updated_at)) * :rate)
+                         - LEAST(:batch, FLOOR(LEAST(:burst, b.tokens + :returned + EXTRACT(EPOCH FROM (now() - b.updated_at)) * :rate))),
+                last_grant = CAST(LEAST(:batch, FLOOR(LEAST(:burst, b.tokens + :returned + EXTRACT(EPOCH FROM (now() - b.updated_at)) * :rate))) AS integer),
+                updated_at = now()
+            RETURNING last_grant, tokens
+            """;
+
+    private static final String RETURN_SQL = """
+            UPDATE rate_limit_bucket SET tokens = LEAST(:burst, tokens + :returned)
+            WHERE bucket_key = :key
+            """;
+
+    private static final String PEEK_SQL = """
+            SELECT LEAST(:burst, tokens + EXTRACT(EPOCH FROM (now() - updated_at)) * :rate)
+            FROM rate_limit_bucket WHERE bucket_key = :key
+            """;
+
+    private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<>();
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String route;
+    private final int burst;
+    private final int leaseSize;
+    private final double ratePerSecond;
+    private final long leaseTtlNanos;
+    private final long idleTimeoutNanos;
+
+    // Veritabanına erişilemediğinde kullanılan JVM içi limiter
+    private final GcraRateLimiter fallback;
+
+    public LeasedRateLimiter(String route, RateLimitProperties.Rule rule, int leaseSize, Duration leaseTtl,
+                             Duration idleTimeout, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.route = route;
+        this.burst = rule.getBurst();
+        this.leaseSize = Math.max(1, Math.min(leaseSize, rule.getBurst()));
+        this.ratePerSecond = rule.getRequests() / (rule.getPeriod().toNanos() / 1e9);
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.jdbcTemplate = jdbcTemplate;
+        this.fallback = new GcraRateLimiter(rule.getRequests(), rule.getPeriod(), rule.getBurst(), idleTimeout);
+    }
+
+    @Override
+    public Decision tryAcquire(String key) {
+        while (true) {
+            Lease lease = leases.computeIfAbsent(key, k -> new Lease());
+            long now = System.nanoTime();
+            lease.lastUsed = now;
+
+            if (now - lease.expiresAt < 0 && lease.take()) {
+                return new Decision(true, burst, lease.tokens.get(), 0);
+            }
+            Decision denied = cachedDenial(lease, now);
+            if (denied != null) {
+                return denied;
+            }
+
+            synchronized (lease) {
+                if (lease.retired) {
+                    // Lease eşzamanlı olarak temizlendi, haritadaki yenisiyle tekrar dene
+                    continue;
+                }
+                now = System.nanoTime();
+                if (now - lease.expiresAt < 0 && lease.take()) {
+                    return new Decision(true, burst, lease.tokens.get(), 0);
+                }
+                denied = cachedDenial(lease, now);
+                if (denied != null) {
+                    return denied;
+                }
+                return renew(key, lease);
+            }
+        }
+    }
+
+    /**
+     * Global kova son denemede boştuysa, bekleme süresi dolana kadar DB'ye gitmeden reddeder.
+     */
+    private Decision cachedDenial(Lease lease, long now) {
+        long waitNanos = lease.deniedUntil - now;
+        if (waitNanos <= 0) {
+            return null;
+        }
+        return new Decision(false, burst, 0, Math.max(1, (waitNanos + 999_999) / 1_000_000));
+    }
+
+    /**
+     * Lease'i yeniler: elde kalan tokenları iade eder ve yeni parti kiralar.
+     * Çağıran lease üzerinde kilit tutmalıdır.
+     */
+    private Decision renew(String key, Lease lease) {
+        int returned = lease.tokens.getAndSet(0);
+        Map<String, Object> row;
+        try {
+            row = jdbcTemplate.queryForMap(LEASE_SQL, params(key)
+                    .addValue("batch", leaseSize)
+                    .addValue("returned", returned));
+        } catch (DataAccessException e) {
+            // Global kovadan zaten düşülmüş tokenlar kaybolmasın; sonraki yenilemede iade edilir
+            lease.tokens.addAndGet(returned);
+            logger.warn("Rate limit lease alınamadı, yerel limiter kullanılıyor - Route: {}: {}", route, e.getMessage());
+            return fallback.tryAcquire(key);
+        }
+
+        int granted = ((Number) row.get("last_grant")).intValue();
+        if (granted <= 0) {
+            double tokens = ((Number) row.get("tokens")).doubleValue();
+            long retryAfterMillis = Math.max(1, (long) Math.ceil(Math.max(0, 1 - tokens) / ratePerSecond * 1000));
+            lease.deniedUntil = System.nanoTime() + retryAfterMillis * 1_000_000;
+            return new Decision(false, burst, 0, retryAfterMillis);
+        }
+
+        // Bir token bu istek için harcanır, kalanı yerelde tutulur
+        lease.tokens.set(granted - 1);
+        lease.expiresAt = System.nanoTime() + leaseTtlNanos;
+        return new Decision(true, burst, granted - 1, 0);
+    }
+
+    @Override
+    public void refund(String key) {
+        Lease lease = leases.get(key);
+        if (lease == null) {
+            return;
+        }
+        synchronized (lease) {
+            if (!lease.retired) {
+                // Token global kovadan zaten düşülmüştü; yerel lease'e geri eklenir
+                lease.tokens.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public Decision peek(String key) {
+        Lease lease = leases.get(key);
+        int local = lease != null ? lease.tokens.get() : 0;
+        try {
+            List<Double> available = jdbcTemplate.queryForList(PEEK_SQL, params(key), Double.class);
+            int global = available.isEmpty() ? burst : (int) Math.floor(available.get(0));
+            int remaining = Math.min(burst, local + global);
+            long retryAfterMillis = remaining > 0 ? 0 : (long) Math.ceil(1000 / ratePerSecond);
+            return new Decision(remaining > 0, burst, remaining, retryAfterMillis);
+        } catch (DataAccessException e) {
+            return fallback.peek(key);
+        }
+    }
+
+    @Override
+    public int evictIdle() {
+        long now = System.nanoTime();
+        List<SqlParameterSource> returns = new ArrayList<>();
+        int evicted = 0;
+
+        for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            boolean idle = now - lease.lastUsed > idleTimeoutNanos;
+            boolean expired = now - lease.expiresAt >= 0 && now - lease.deniedUntil >= 0;
+            if (!idle && !expired) {
+                continue;
+            }
+            synchronized (lease) {
+                if (!leases.remove(entry.getKey(), lease)) {
+                    continue;
+                }
+                lease.retired = true;
+                int left = lease.tokens.getAndSet(0);
+                if (left > 0) {
+                    returns.add(params(entry.getKey()).addValue("returned", left));
+                }
+                evicted++;
+            }
+        }
+
+        if (!returns.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(RETURN_SQL, returns.toArray(new SqlParameterSource[0]));
+            } catch (DataAccessException e) {
+                // İade edilemeyen tokenlar refill ile zamanla geri gelir
+                logger.warn("Kullanılmayan rate limit tokenları iade edilemedi - Route: {}: {}", route, e.getMessage());
+            }
+        }
+        return evicted + fallback.evictIdle();
+    }
+
+    @Override
+    public int size() {
+        return leases.size();
+    }
+
+    private MapSqlParameterSource params(String key) {
+        return new MapSqlParameterSource()
+                .addValue("key", route + ":" + key)
+                .addValue("burst", burst)
+                .addValue("rate", ratePerSecond);
+    }
+
+    /**
+     * Bir anahtar için yerelde tutulan kiralık tokenlar.
+     */
+    private static final class Lease {
+        private final AtomicInteger tokens = new AtomicInteger();
+        private volatile long expiresAt = System.nanoTime();
+        private volatile long lastUsed = System.nanoTime();
+        // Global kova boşken bu zamana kadar DB'ye gidilmez
+        private volatile long deniedUntil = System.nanoTime();
+        private volatile boolean retired;
+
+        private boolean take() {
+            int current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+    }
+}
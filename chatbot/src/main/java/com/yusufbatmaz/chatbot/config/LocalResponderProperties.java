@@ -0,0 +1,37 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Selamlama/teşekkür gibi kısa mesajların LLM'e gitmeden cevaplanma ayarları.
+ * application.properties'deki "chat.local-responder" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "chat.local-responder")
+@Data
+public class LocalResponderProperties {
+
+    /**
+     * Yerel cevaplama açık mı
+     */
+    private boolean enabled = true;
+
+    /**
+     * Yerel cevaplanabilecek soru kategorileri
+     */
+    private List<String> categories = new ArrayList<>(List.of("SELAMLAMA", "TEŞEKKÜR"));
+
+    /**
+     * Bundan uzun mesajlar her zaman LLM'e gider
+     */
+    private int maxLength = 40;
+
+    /**
+     * Mesajdaki maksimum kelime sayısı
+     */
+    private int maxWords = 4;
+}
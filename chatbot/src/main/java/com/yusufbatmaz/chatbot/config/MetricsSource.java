@@ -0,0 +1,20 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.util.Map;
+
+/**
+ * Çalışma zamanı metriklerini dışarı açan bileşenler için ortak arayüz.
+ * Bu arayüzü uygulayan tüm bean'ler /api/health/metrics altında listelenir.
+ */
+public interface MetricsSource {
+
+    /**
+     * Metrik grubunun adı (örn. "rateLimit")
+     */
+    String getMetricsName();
+
+    /**
+     * Metriklerin anlık değerlerini döner
+     */
+    Map<String, Object> getMetrics();
+}
@@ -0,0 +1,63 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * BCrypt işlemleri için ayrılmış thread havuzu ayarları.
+ * application.properties'deki "password.hashing" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "password.hashing")
+@Data
+public class PasswordHashingProperties {
+
+    /**
+     * Havuzdaki thread sayısı (0: işlemci çekirdek sayısı)
+     */
+    private int poolSize = 0;
+
+    /**
+     * Sırada bekleyebilecek maksimum BCrypt işi; dolunca istek 503 ile reddedilir
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * Bir isteğin BCrypt sonucunu bekleyebileceği maksimum süre
+     */
+    private Duration maxWait = Duration.ofSeconds(5);
+
+    /**
+     * Reddedilen isteklere dönülen Retry-After değeri
+     */
+    private Duration retryAfter = Duration.ofSeconds(2);
+
+    /**
+     * Yeni hash'lerde kullanılan BCrypt maliyeti. Tüm node'larda aynı olmalıdır;
+     * daha düşük maliyetli hash'ler girişte bu maliyete yükseltilir
+     */
+    private int cost = 10;
+
+    /**
+     * Açılışta bu makinede ölçüm yapılıp hedef süreye uyan maliyet önerilsin mi.
+     * Öneri yalnızca loglanır ve metriklerde görünür; kullanılan maliyeti değiştirmez
+     */
+    private boolean calibrate = false;
+
+    /**
+     * Kalibrasyonda tek bir hash için hedeflenen süre
+     */
+    private Duration targetTime = Duration.ofMillis(50);
+
+    /**
+     * İzin verilen en düşük BCrypt maliyeti; daha düşük "cost" değeri buna yükseltilir
+     */
+    private int minCost = 10;
+
+    /**
+     * Kalibrasyonun önerebileceği en yüksek BCrypt maliyeti
+     */
+    private int maxCost = 14;
+}
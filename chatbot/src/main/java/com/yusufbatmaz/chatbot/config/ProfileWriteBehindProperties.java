@@ -0,0 +1,31 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Profil yan etkilerinin (ana dil, son görülme, mesaj sayısı) toplu yazma ayarları.
+ * application.properties'deki "profile.write-behind" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "profile.write-behind")
+@Data
+public class ProfileWriteBehindProperties {
+
+    /**
+     * Biriken güncellemelerin veritabanına yazılma aralığı
+     */
+    private Duration flushInterval = Duration.ofSeconds(2);
+
+    /**
+     * Tek batch'te yazılan profil sayısı; bu kadar kullanıcı birikince beklemeden yazılır
+     */
+    private int batchSize = 500;
+
+    /**
+     * Bekleyebilecek maksimum kullanıcı sayısı; aşılırsa yeni güncellemeler atılır
+     */
+    private int maxPending = 50_000;
+}
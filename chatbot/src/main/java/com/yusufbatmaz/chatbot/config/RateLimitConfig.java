@@ -1,77 +1,103 @@
 package com.yusufbatmaz.chatbot.config;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
- * Basit rate limiting implementasyonu.
- * Kullanıcı başına API çağrı sayısını sınırlar.
+ * Route bazlı rate limiting implementasyonu.
+ * Her route için {@link RateLimitProperties} içindeki kurala göre limiter oluşturur:
+ * LOCAL modda kilitsiz GCRA, DISTRIBUTED modda Postgres'ten kiralanan tokenlar.
+ * Idle anahtarlar periyodik olarak temizlenir.
  */
 @Component
 public class RateLimitConfig {
 
-    // Kullanıcı başına maksimum API çağrı sayısı (dakika başına)
-    private static final int MAX_REQUESTS_PER_MINUTE = 10;
-    
-    // Kullanıcı başına çağrı sayılarını tutan map
-    private final ConcurrentHashMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
-    
-    // Son reset zamanını tutan map
-    private final ConcurrentHashMap<String, Long> lastResetTimes = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitConfig.class);
+
+    // Chat endpoint'inin route adı
+    public static final String CHAT_ROUTE = "chat";
+
+    // Route adı -> limiter
+    private final Map<String, RateLimiter> limiters = new LinkedHashMap<>();
+
+    public RateLimitConfig(RateLimitProperties properties,
+                           ObjectProvider<NamedParameterJdbcTemplate> jdbcTemplateProvider) {
+        if (properties.getMode() == RateLimitProperties.Mode.DISTRIBUTED) {
+            NamedParameterJdbcTemplate jdbcTemplate = jdbcTemplateProvider.getObject();
+            // rate_limit_bucket tablosu V1 migration'ı ile oluşturulur
+            properties.getRoutes().forEach((route, rule) -> limiters.put(route,
+                    new LeasedRateLimiter(route, rule, properties.getLeaseSize(), properties.getLeaseTtl(),
+                            properties.getIdleTimeout(), jdbcTemplate)));
+            logger.info("Rate limiting DISTRIBUTED modda çalışıyor - Lease: {} token / {}",
+                    properties.getLeaseSize(), properties.getLeaseTtl());
+        } else {
+            properties.getRoutes().forEach((route, rule) -> limiters.put(route,
+                    new GcraRateLimiter(rule.getRequests(), rule.getPeriod(), rule.getBurst(), properties.getIdleTimeout())));
+        }
+    }
+
+    /**
+     * Route için tanımlı limiter'ı döner.
+     * @param route Route adı
+     * @return Limiter
+     */
+    public RateLimiter getLimiter(String route) {
+        RateLimiter limiter = limiters.get(route);
+        if (limiter == null) {
+            throw new IllegalArgumentException("Tanımsız rate limit route'u: " + route);
+        }
+        return limiter;
+    }
 
     /**
-     * Kullanıcının rate limit kontrolünü yapar.
-     * 
+     * Kullanıcının chat rate limit kontrolünü yapar ve bir hak tüketir.
+     *
      * @param userId Kullanıcı ID'si
      * @return Rate limit aşıldıysa true, aşılmadıysa false
      */
     public boolean isRateLimitExceeded(String userId) {
-        long currentTime = System.currentTimeMillis();
-        long oneMinuteAgo = currentTime - (60 * 1000); // 1 dakika öncesi
-        
-        // Son reset zamanını kontrol et
-        Long lastReset = lastResetTimes.get(userId);
-        if (lastReset == null || lastReset < oneMinuteAgo) {
-            // 1 dakika geçmişse sayacı sıfırla
-            requestCounts.put(userId, new AtomicInteger(0));
-            lastResetTimes.put(userId, currentTime);
-        }
-        
-        // Mevcut çağrı sayısını al ve artır
-        AtomicInteger count = requestCounts.computeIfAbsent(userId, k -> new AtomicInteger(0));
-        int currentCount = count.incrementAndGet();
-        
-        return currentCount > MAX_REQUESTS_PER_MINUTE;
+        return !getLimiter(CHAT_ROUTE).tryAcquire(userId).allowed();
     }
 
     /**
      * Kullanıcının kalan çağrı hakkını döner.
-     * 
+     *
      * @param userId Kullanıcı ID'si
      * @return Kalan çağrı hakkı
      */
     public int getRemainingRequests(String userId) {
-        AtomicInteger count = requestCounts.get(userId);
-        if (count == null) {
-            return MAX_REQUESTS_PER_MINUTE;
-        }
-        return Math.max(0, MAX_REQUESTS_PER_MINUTE - count.get());
+        return getLimiter(CHAT_ROUTE).peek(userId).remaining();
     }
 
     /**
-     * Rate limit bilgilerini döner.
-     * 
+     * Rate limit bilgilerini hak tüketmeden döner.
+     *
      * @param userId Kullanıcı ID'si
      * @return Rate limit bilgileri
      */
     public RateLimitInfo getRateLimitInfo(String userId) {
-        return new RateLimitInfo(
-            getRemainingRequests(userId),
-            MAX_REQUESTS_PER_MINUTE,
-            isRateLimitExceeded(userId)
-        );
+        RateLimiter.Decision decision = getLimiter(CHAT_ROUTE).peek(userId);
+        return new RateLimitInfo(decision.remaining(), decision.limit(), !decision.allowed());
+    }
+
+    /**
+     * Kovası dolmuş ve idle süresini aşmış anahtarları temizler.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval:60000}")
+    public void evictIdleKeys() {
+        limiters.forEach((route, limiter) -> {
+            int evicted = limiter.evictIdle();
+            if (evicted > 0) {
+                logger.debug("Rate limit idle temizliği - Route: {}, Silinen: {}, Kalan: {}", route, evicted, limiter.size());
+            }
+        });
     }
 
     /**
@@ -92,4 +118,4 @@ public class RateLimitConfig {
         public int getMaxRequests() { return maxRequests; }
         public boolean isExceeded() { return exceeded; }
     }
-} 
\ No newline at end of file
+}
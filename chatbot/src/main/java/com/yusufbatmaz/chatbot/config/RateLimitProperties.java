@@ -0,0 +1,108 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Rate limiting ayarları.
+ * application.properties'deki "rate-limit" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitProperties {
+
+    /**
+     * LOCAL: her JVM kendi sayacını tutar.
+     * DISTRIBUTED: tokenlar Postgres'teki ortak kovadan toplu olarak kiralanır.
+     */
+    private Mode mode = Mode.LOCAL;
+
+    /**
+     * DISTRIBUTED modda tek seferde kiralanacak token sayısı
+     */
+    private int leaseSize = 2;
+
+    /**
+     * DISTRIBUTED modda kiralanan tokenların geçerlilik süresi
+     */
+    private Duration leaseTtl = Duration.ofSeconds(10);
+
+    /**
+     * Kova dolduktan sonra anahtarın bellekte tutulacağı süre
+     */
+    private Duration idleTimeout = Duration.ofMinutes(5);
+
+    /**
+     * Route bazlı limit tanımları (route adı -> kural)
+     */
+    private Map<String, Rule> routes = new LinkedHashMap<>(Map.of(RateLimitConfig.CHAT_ROUTE, defaultChatRule()));
+
+    /**
+     * Konfigürasyon verilmezse kullanılan varsayılan chat kuralı: kullanıcı başına dakikada 10 istek.
+     */
+    private static Rule defaultChatRule() {
+        Rule rule = new Rule();
+        rule.setPaths(new ArrayList<>(List.of("/api/chat")));
+        rule.setMethods(new ArrayList<>(List.of("POST")));
+        return rule;
+    }
+
+    /**
+     * Limit anahtarı türü.
+     * USER: "userId" parametresi (yoksa istemci IP'si), IP: istemci IP'si, GLOBAL: tüm istekler tek kova.
+     */
+    public enum KeyBy {
+        USER,
+        IP,
+        GLOBAL
+    }
+
+    public enum Mode {
+        LOCAL,
+        DISTRIBUTED
+    }
+
+    /**
+     * Tek bir route için limit kuralı.
+     */
+    @Data
+    public static class Rule {
+
+        /**
+         * Periyot başına izin verilen istek sayısı
+         */
+        private int requests = 10;
+
+        /**
+         * Limitin uygulandığı periyot
+         */
+        private Duration period = Duration.ofMinutes(1);
+
+        /**
+         * Art arda gönderilebilecek maksimum istek sayısı
+         */
+        private int burst = 10;
+
+        /**
+         * Kuralın uygulandığı path pattern'leri (örn. /api/chat, /api/profile/**)
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * Kuralın uygulandığı HTTP metodları (boşsa tümü)
+         */
+        private List<String> methods = new ArrayList<>();
+
+        /**
+         * Limitin hangi anahtara göre uygulanacağı
+         */
+        private KeyBy keyBy = KeyBy.USER;
+    }
+}
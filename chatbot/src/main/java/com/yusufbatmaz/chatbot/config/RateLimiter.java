@@ -0,0 +1,50 @@
+package com.yusufbatmaz.chatbot.config;
+
+/**
+ * Anahtar (kullanıcı, IP vb.) başına istek sınırlaması yapan limiter arayüzü.
+ * Her route için ayrı bir instance oluşturulur.
+ */
+public interface RateLimiter {
+
+    /**
+     * Anahtar için bir istek hakkı tüketmeye çalışır.
+     * @param key Sınırlanan anahtar
+     * @return Kararın detayları (izin, kalan hak, bekleme süresi)
+     */
+    Decision tryAcquire(String key);
+
+    /**
+     * Daha önce tüketilen bir hakkı geri verir (istek başka bir nedenle reddedildiğinde).
+     * @param key Sınırlanan anahtar
+     */
+    void refund(String key);
+
+    /**
+     * Anahtarın mevcut durumunu hak tüketmeden döner.
+     * @param key Sınırlanan anahtar
+     * @return Mevcut durum
+     */
+    Decision peek(String key);
+
+    /**
+     * Uzun süredir kullanılmayan anahtarları bellekten temizler.
+     * @return Temizlenen anahtar sayısı
+     */
+    int evictIdle();
+
+    /**
+     * Bellekte tutulan anahtar sayısını döner.
+     */
+    int size();
+
+    /**
+     * Limiter kararını tutan değer sınıfı.
+     *
+     * @param allowed İstek kabul edildi mi
+     * @param limit Burst dahil maksimum hak
+     * @param remaining Kalan hak
+     * @param retryAfterMillis Reddedildiyse tekrar denemeden önce beklenecek süre (ms)
+     */
+    record Decision(boolean allowed, int limit, int remaining, long retryAfterMillis) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.yusufbatmaz.chatbot.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * OpenRouter çağrıları için adil slot zamanlayıcısı ayarları.
+ * application.properties'deki "chat.upstream" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "chat.upstream")
+@Data
+public class UpstreamSchedulerProperties {
+
+    /**
+     * Aynı anda OpenRouter'a gidebilecek maksimum istek sayısı
+     */
+    private int maxConcurrency = 16;
+
+    /**
+     * Kullanıcı başına sırada bekleyebilecek maksimum istek sayısı
+     */
+    private int maxQueuePerUser = 4;
+
+    /**
+     * Bir isteğin slot için bekleyebileceği maksimum süre
+     */
+    private Duration maxWait = Duration.ofSeconds(20);
+
+    /**
+     * Varsayılan kullanıcı ağırlığı (her turda alınan slot payı)
+     */
+    private int defaultWeight = 1;
+
+    /**
+     * Kullanıcı ID'sine göre özel ağırlıklar
+     */
+    private Map<String, Integer> weights = new HashMap<>();
+}
@@ -0,0 +1,29 @@
+package com.yusufbatmaz.chatbot.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Toplu kullanıcı içe aktarma ayarları.
+ * application.properties'deki "user-import" prefix'li değerleri alır.
+ */
+@ConfigurationProperties(prefix = "user-import")
+@Data
+public class UserImportProperties {
+
+    /**
+     * Tek seferde işlenen satır sayısı (email kontrolü, hash ve insert bu boyutta yapılır)
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Şifre hashleyen thread sayısı (0: çekirdek sayısı)
+     */
+    private int hashThreads = 0;
+
+    /**
+     * Aynı anda çalışabilecek içe aktarma sayısı
+     */
+    private int maxConcurrentImports = 1;
+}
@@ -1,28 +1,50 @@
 package com.yusufbatmaz.chatbot.controller;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.yusufbatmaz.chatbot.config.RateLimitConfig;
+import com.yusufbatmaz.chatbot.exception.AuthenticationException;
 import com.yusufbatmaz.chatbot.exception.NotFoundException;
+import com.yusufbatmaz.chatbot.exception.ValidationException;
+import com.yusufbatmaz.chatbot.filter.AccessLogFilter;
+import com.yusufbatmaz.chatbot.filter.RateLimitFilter;
+import com.yusufbatmaz.chatbot.filter.SessionTokenFilter;
+import com.yusufbatmaz.chatbot.model.ChatHistoryPage;
 import com.yusufbatmaz.chatbot.model.ChatMessage;
+import com.yusufbatmaz.chatbot.model.ChatSearchResult;
+import com.yusufbatmaz.chatbot.model.ChatTurn;
+import com.yusufbatmaz.chatbot.logging.AuditLog;
 import com.yusufbatmaz.chatbot.model.User;
+import com.yusufbatmaz.chatbot.service.ChatExportService;
+import com.yusufbatmaz.chatbot.service.ChatHistoryService;
+import com.yusufbatmaz.chatbot.service.ChatSearchService;
 import com.yusufbatmaz.chatbot.service.ChatService;
+import com.yusufbatmaz.chatbot.service.ConversationBuffer;
+import com.yusufbatmaz.chatbot.service.SupportAccessService;
 import com.yusufbatmaz.chatbot.service.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -41,6 +63,12 @@ public class ChatController {
 
     private final ChatService chatService;
     private final UserService userService;
+    private final ConversationBuffer conversationBuffer;
+    private final ChatHistoryService chatHistoryService;
+    private final ChatSearchService chatSearchService;
+    private final ChatExportService chatExportService;
+    private final SupportAccessService supportAccessService;
+    private final AuditLog auditLog;
     private final RateLimitConfig rateLimitConfig;
     private final WebClient webClient;
 
@@ -53,11 +81,15 @@ public class ChatController {
      * @return Botun cevabı
      */
     @PostMapping
-    public ResponseEntity<?> chat(@RequestBody ChatMessage chatMessage, @RequestParam(required = false) String userId) {
-        System.out.println("API çağrısı alındı: " + chatMessage.getMessage());
-
+    public ResponseEntity<?> chat(@RequestBody ChatMessage chatMessage, @RequestParam(required = false) String userId,
+                                  HttpServletRequest request) {
         User user;
-        if (userId != null && !userId.trim().isEmpty()) {
+        UUID authenticatedUserId = (UUID) request.getAttribute(SessionTokenFilter.AUTHENTICATED_USER_ID);
+        if (authenticatedUserId != null) {
+            // Token SessionTokenFilter'da doğrulandı; kullanıcı cache'ten gelir
+            user = userService.getUserById(authenticatedUserId)
+                    .orElseThrow(() -> new NotFoundException("Kullanıcı bulunamadı: " + authenticatedUserId));
+        } else if (userId != null && !userId.trim().isEmpty()) {
             try {
                 // String UUID'yi UUID objesine çeviriyoruz
                 UUID userUuid = UUID.fromString(userId);
@@ -68,7 +100,6 @@ public class ChatController {
                         
             } catch (IllegalArgumentException e) {
                 // UUID format hatası - geçersiz UUID string'i
-                System.err.println("Geçersiz userId: " + userId);
                 throw new NotFoundException("Geçersiz kullanıcı ID'si");
                 
             } catch (NotFoundException e) {
@@ -80,15 +111,13 @@ public class ChatController {
             throw new NotFoundException("Kullanıcı ID'si gerekli");
         }
 
-        // Rate limiting kontrolü
-        if (rateLimitConfig.isRateLimitExceeded(userId)) {
-            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
-                    .body("Rate limit aşıldı. Lütfen bir dakika bekleyin.");
-        }
+        // Rate limiting RateLimitFilter tarafından, kullanıcı sorgusundan önce uygulanır
 
         // ChatService ile bot cevabını al (ChatService'de exception handling var)
         String botResponse = chatService.ask(chatMessage, user);
-        System.out.println("Bot cevabı: " + botResponse);
+        // İçerik yalnızca örneklenerek ve maskelenerek erişim loguna eklenir
+        request.setAttribute(AccessLogFilter.PAYLOAD_MESSAGE, chatMessage.getMessage());
+        request.setAttribute(AccessLogFilter.PAYLOAD_RESPONSE, botResponse);
         return ResponseEntity.ok(botResponse);
     }
 
@@ -129,14 +158,137 @@ public class ChatController {
         }
     }
 
+    /**
+     * Token'daki kullanıcının son sohbet turlarını döndüren endpoint; token yoksa 401 döner.
+     * @return Eskiden yeniye sıralı son turlar
+     */
+    @GetMapping("/recent")
+    public ResponseEntity<List<ChatTurn>> getRecentTurns(HttpServletRequest request) {
+        return ResponseEntity.ok(conversationBuffer.getRecentTurns(requireAuthenticatedUser(request)));
+    }
+
+    /**
+     * Kullanıcının sohbet geçmişini cursor ile sayfalayarak döndüren endpoint.
+     * Normal modda kayıtlar yeniden eskiye döner; "since" verilirse o konumdan
+     * sonra eklenen kayıtlar eskiden yeniye döner (istemci senkronizasyonu).
+     * Geçmiş token'daki kullanıcıya aittir; token yoksa 401 döner.
+     *
+     * @param cursor Önceki sayfanın nextCursor değeri
+     * @param since Önceki cevabın syncCursor değeri
+     * @param limit Sayfa boyutu
+     * @param includeText Mesaj metinleri de dönülsün mü
+     * @return Geçmiş sayfası
+     */
+    @GetMapping("/history")
+    public ResponseEntity<ChatHistoryPage> getHistory(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) String since,
+                                                      @RequestParam(defaultValue = "" + ChatHistoryService.DEFAULT_LIMIT) int limit,
+                                                      @RequestParam(defaultValue = "false") boolean includeText,
+                                                      HttpServletRequest request) {
+        UUID owner = requireAuthenticatedUser(request);
+        if (cursor != null && since != null) {
+            throw new ValidationException("cursor ve since birlikte kullanılamaz");
+        }
+        ChatHistoryPage page = since != null
+                ? chatHistoryService.getSince(owner, since, limit, includeText)
+                : chatHistoryService.getPage(owner, cursor, limit, includeText);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Sohbet geçmişinde tam metin arama yapan endpoint.
+     * Varsayılan kapsam kullanıcının kendi geçmişidir; scope=all yalnızca
+     * geçerli X-Support-Key header'ı ile kullanılabilir.
+     *
+     * @param q Arama metni
+     * @param limit Maksimum sonuç sayısı
+     * @param includeText Mesaj metinleri de dönülsün mü
+     * @param scope "user" veya "all"
+     * @param supportKey Tüm kullanıcılarda arama için destek anahtarı
+     * @return Skora göre azalan sonuçlar
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ChatSearchResult>> search(@RequestParam String q,
+                                                         @RequestParam(defaultValue = "" + ChatSearchService.DEFAULT_LIMIT) int limit,
+                                                         @RequestParam(defaultValue = "false") boolean includeText,
+                                                         @RequestParam(defaultValue = "user") String scope,
+                                                         @RequestHeader(value = SupportAccessService.HEADER, required = false) String supportKey,
+                                                         HttpServletRequest request) {
+        UUID owner = resolveScope(scope, supportKey, request);
+        return ResponseEntity.ok(chatSearchService.search(owner, q, limit, includeText));
+    }
+
+    /**
+     * Sohbet geçmişini NDJSON veya CSV olarak akış halinde dışa aktaran endpoint.
+     * Varsayılan kapsam kullanıcının kendi geçmişidir; scope=all yalnızca
+     * geçerli X-Support-Key header'ı ve tarih aralığı ile kullanılabilir.
+     *
+     * @param scope "user" veya "all"
+     * @param from Başlangıç zamanı (dahil, ISO)
+     * @param to Bitiş zamanı (hariç, ISO)
+     * @param format "ndjson" veya "csv"
+     * @param gzip Çıktı gzip ile sıkıştırılsın mı
+     * @param supportKey Tüm kullanıcılar için destek anahtarı
+     * @return Dosya olarak indirilen akış
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "user") String scope,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                        @RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip,
+                                                        @RequestHeader(value = SupportAccessService.HEADER, required = false) String supportKey,
+                                                        HttpServletRequest request) {
+        UUID owner = resolveScope(scope, supportKey, request);
+        ChatExportService.Format exportFormat = ChatExportService.Format.of(format);
+        StreamingResponseBody body = chatExportService.export(owner, from, to, exportFormat, gzip);
+        auditLog.record("chat.export", owner != null ? owner : "support", Map.of("scope", scope,
+                "from", String.valueOf(from), "to", String.valueOf(to), "format", exportFormat.getExtension()));
+
+        String fileName = "chat-history-" + (owner != null ? owner : "all") + "." + exportFormat.getExtension()
+                + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Arama ve dışa aktarma kapsamını çözer: "user" için token'daki kullanıcı,
+     * "all" için (destek anahtarı doğrulandıktan sonra) null.
+     */
+    private UUID resolveScope(String scope, String supportKey, HttpServletRequest request) {
+        if ("all".equals(scope)) {
+            supportAccessService.check(supportKey);
+            auditLog.record("support.access", "support", Map.of("path", request.getRequestURI()));
+            return null;
+        }
+        if (!"user".equals(scope)) {
+            throw new ValidationException("scope 'user' veya 'all' olmalıdır");
+        }
+        return requireAuthenticatedUser(request);
+    }
+
+    /**
+     * SessionTokenFilter'ın doğruladığı kullanıcıyı döner. Sohbet geçmişine erişen
+     * endpoint'ler ?userId= ile çağrılamaz; UUID'ler tahmin edilebilir değil ama gizli de değildir.
+     */
+    private UUID requireAuthenticatedUser(HttpServletRequest request) {
+        UUID authenticatedUserId = (UUID) request.getAttribute(SessionTokenFilter.AUTHENTICATED_USER_ID);
+        if (authenticatedUserId == null) {
+            throw new AuthenticationException("Bu işlem için oturum token'ı gerekli");
+        }
+        return authenticatedUserId;
+    }
+
     /**
      * Rate limit bilgilerini döndüren endpoint.
-     * @param userId Kullanıcı ID'si
+     * Chat route'unu RateLimitFilter ile aynı anahtarla (token'daki kullanıcı, yoksa IP) okur.
      * @return Rate limit bilgileri
      */
     @GetMapping("/rate-limit")
-    public ResponseEntity<RateLimitConfig.RateLimitInfo> getRateLimitInfo(@RequestParam String userId) {
-        RateLimitConfig.RateLimitInfo info = rateLimitConfig.getRateLimitInfo(userId);
+    public ResponseEntity<RateLimitConfig.RateLimitInfo> getRateLimitInfo(HttpServletRequest request) {
+        RateLimitConfig.RateLimitInfo info = rateLimitConfig.getRateLimitInfo(RateLimitFilter.userKey(request));
         return ResponseEntity.ok(info);
     }
 }
@@ -2,6 +2,8 @@ package com.yusufbatmaz.chatbot.controller;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
@@ -9,14 +11,22 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+
+import lombok.RequiredArgsConstructor;
+
 /**
  * Health check ve monitoring endpoint'leri için controller.
  * Sistem durumunu kontrol etmek için kullanılır.
  */
 @RestController
 @RequestMapping("/api/health")
+@RequiredArgsConstructor
 public class HealthController {
 
+    // Metrik üreten tüm bileşenler
+    private final List<MetricsSource> metricsSources;
+
     /**
      * Temel health check endpoint'i.
      * Sistemin çalışıp çalışmadığını kontrol eder.
@@ -78,4 +88,20 @@ public class HealthController {
         
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Uygulama metrikleri endpoint'i.
+     * {@link MetricsSource} uygulayan tüm bileşenlerin metriklerini toplar.
+     *
+     * @return Bileşen adı -> metrikler
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        for (MetricsSource source : metricsSources) {
+            response.put(source.getMetricsName(), source.getMetrics());
+        }
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,5 +1,7 @@
 package com.yusufbatmaz.chatbot.controller;
 
+import java.io.IOException;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -10,15 +12,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.yusufbatmaz.chatbot.exception.NotFoundException;
+import com.yusufbatmaz.chatbot.filter.SessionTokenFilter;
+import com.yusufbatmaz.chatbot.logging.AuditLog;
+import com.yusufbatmaz.chatbot.logging.PiiRedactor;
 import com.yusufbatmaz.chatbot.model.LoginRequest;
+import com.yusufbatmaz.chatbot.model.LoginResponse;
 import com.yusufbatmaz.chatbot.model.User;
+import com.yusufbatmaz.chatbot.service.SessionTokenService;
+import com.yusufbatmaz.chatbot.service.SupportAccessService;
+import com.yusufbatmaz.chatbot.service.UserImportService;
+import com.yusufbatmaz.chatbot.service.UserProfileService;
 import com.yusufbatmaz.chatbot.service.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -33,6 +46,11 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
 
     private final UserService userService;
+    private final SessionTokenService sessionTokenService;
+    private final UserImportService userImportService;
+    private final UserProfileService userProfileService;
+    private final SupportAccessService supportAccessService;
+    private final AuditLog auditLog;
 
     /**
      * Kullanıcı kaydı için endpoint.
@@ -87,7 +105,7 @@ public class UserController {
      * Kullanıcı girişi için endpoint.
      * Email ve şifre ile kullanıcıyı kontrol eder.
      * @param user Giriş yapan kullanıcı bilgileri (email ve password gerekli)
-     * @return Başarılıysa kullanıcı, değilse 401 (Unauthorized)
+     * @return Başarılıysa kullanıcı bilgileri ve oturum token'ı, değilse 401 (Unauthorized)
      */
     @PostMapping("/login")
     public ResponseEntity<?> loginUser(@Valid @RequestBody LoginRequest loginRequest) {
@@ -102,11 +120,50 @@ public class UserController {
         Optional<User> authenticatedUser = userService.authenticateUser(loginRequest.getEmail(), loginRequest.getPassword());
         
         if (authenticatedUser.isPresent()) {
-            // Giriş başarılı
-            return ResponseEntity.ok(authenticatedUser.get());
+            // Giriş başarılı - sonraki istekler için imzalı token üret
+            User user = authenticatedUser.get();
+            SessionTokenService.IssuedToken issued = sessionTokenService.issue(user.getId(), userProfileService.getProfileVersion(user.getId()));
+            auditLog.record("login.success", user.getId());
+            return ResponseEntity.ok(new LoginResponse(user.getId(), user.getFirstName(), user.getLastName(),
+                    user.getEmail(), issued.token(), issued.expiresAt()));
         } else {
             // Giriş başarısız - güvenlik için genel mesaj
+            auditLog.record("login.failure", PiiRedactor.maskEmail(loginRequest.getEmail()));
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Email veya şifre yanlış.");
         }
     }
+
+    /**
+     * Çıkış için endpoint. Header'daki token süresi dolana kadar geçersiz sayılır.
+     * @return 204 (No Content)
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logoutUser(HttpServletRequest request) {
+        String token = SessionTokenFilter.extractToken(request);
+        if (token != null) {
+            sessionTokenService.revoke(token);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Toplu kullanıcı içe aktarma endpoint'i.
+     * Gövde CSV (text/csv, başlık satırıyla) veya NDJSON (application/x-ndjson) olabilir.
+     * Girdi akış halinde okunur; her satırın sonucu NDJSON olarak hemen yazılır,
+     * son satır özet bilgisini içerir.
+     * Yalnızca destek anahtarı (X-Support-Key) ile çağrılabilir; aksi halde 401 döner.
+     * Başka bir içe aktarma çalışıyorsa 429 döner.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public void importUsers(@RequestHeader(value = SupportAccessService.HEADER, required = false) String supportKey,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        supportAccessService.check(supportKey);
+        auditLog.record("users.import", "support", Map.of("contentType", String.valueOf(request.getContentType()),
+                "remoteAddr", request.getRemoteAddr()));
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        userImportService.importUsers(request.getInputStream(),
+                UserImportService.Format.fromContentType(request.getContentType()),
+                response.getOutputStream());
+    }
 }
@@ -1,10 +1,17 @@
 package com.yusufbatmaz.chatbot.controller;
 
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.yusufbatmaz.chatbot.exception.PreconditionFailedException;
+import com.yusufbatmaz.chatbot.exception.PreconditionRequiredException;
 import com.yusufbatmaz.chatbot.model.UserProfile;
 import com.yusufbatmaz.chatbot.model.UserProfileDTO;
 import com.yusufbatmaz.chatbot.service.UserProfileService;
@@ -12,12 +19,19 @@ import com.yusufbatmaz.chatbot.service.UserProfileService;
 /**
  * Kullanıcı profil bilgilerini yöneten REST controller.
  * Dil tercihleri, kişilik ayarları ve profil güncellemelerini işler.
+ *
+ * Okumalar profil versiyonundan türeyen bir ETag döner; If-None-Match eşleşirse
+ * 304 verilir, versiyon cache'teyse veritabanına hiç gidilmez. Güncellemeler
+ * kaybolan güncellemeleri önlemek için If-Match başlığı ister ("*" koşulsuz yazar).
  */
 @RestController
 @RequestMapping("/api/profile")
 @CrossOrigin(origins = "http://localhost:5173")
 public class UserProfileController {
     
+    // Tarayıcı yanıtı saklayabilir ama her kullanımda ETag ile doğrulamalı
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+    
     private final UserProfileService userProfileService;
     
     public UserProfileController(UserProfileService userProfileService) {
@@ -27,40 +41,46 @@ public class UserProfileController {
     /**
      * Kullanıcı profil bilgilerini getirir
      * @param userId Kullanıcı ID'si
+     * @param ifNoneMatch İstemcideki ETag
      * @return Kullanıcı profili
      */
     @GetMapping("/{userId}")
-    public ResponseEntity<com.yusufbatmaz.chatbot.model.UserProfileDTO> getUserProfile(@PathVariable UUID userId) {
-        var profile = userProfileService.getUserProfileDto(userId);
-        return ResponseEntity.ok(profile);
+    public ResponseEntity<UserProfileDTO> getUserProfile(
+            @PathVariable UUID userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(userId, ifNoneMatch, userProfileService::toDto);
     }
     
     /**
      * Kullanıcı profil bilgilerini günceller
      * @param userId Kullanıcı ID'si
      * @param profile Güncellenecek profil bilgileri
+     * @param ifMatch İstemcinin bildiği ETag
      * @return Güncellenmiş profil
      */
     @PutMapping("/{userId}")
     public ResponseEntity<UserProfile> updateUserProfile(
             @PathVariable UUID userId, 
-            @RequestBody UserProfileDTO profileDto) {
-        UserProfile updatedProfile = userProfileService.updateUserProfile(userId, profileDto);
-        return ResponseEntity.ok(updatedProfile);
+            @RequestBody UserProfileDTO profileDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserProfile updatedProfile = userProfileService.updateUserProfile(userId, profileDto, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(UserProfileService.versionOf(updatedProfile))).body(updatedProfile);
     }
     
     /**
      * Kullanıcının tercih ettiği dili günceller
      * @param userId Kullanıcı ID'si
      * @param language Yeni dil kodu
+     * @param ifMatch İstemcinin bildiği ETag
      * @return Güncellenmiş profil
      */
     @PutMapping("/{userId}/language")
     public ResponseEntity<UserProfile> updatePreferredLanguage(
             @PathVariable UUID userId, 
-            @RequestParam String language) {
-        UserProfile updatedProfile = userProfileService.updatePreferredLanguage(userId, language);
-        return ResponseEntity.ok(updatedProfile);
+            @RequestParam String language,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserProfile updatedProfile = userProfileService.updatePreferredLanguage(userId, language, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(UserProfileService.versionOf(updatedProfile))).body(updatedProfile);
     }
     
     /**
@@ -68,47 +88,134 @@ public class UserProfileController {
      * @param userId Kullanıcı ID'si
      * @param language Zorlanacak dil
      * @param force Zorlama aktif mi
+     * @param ifMatch İstemcinin bildiği ETag
      * @return Başarı mesajı
      */
     @PutMapping("/{userId}/force-language")
     public ResponseEntity<String> setForcedResponseLanguage(
             @PathVariable UUID userId, 
             @RequestParam String language, 
-            @RequestParam boolean force) {
-        userProfileService.setForcedResponseLanguage(userId, language, force);
-        return ResponseEntity.ok("Language preference updated successfully");
+            @RequestParam boolean force,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserProfile updatedProfile = userProfileService.setForcedResponseLanguage(userId, language, force, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(UserProfileService.versionOf(updatedProfile)))
+                .body("Language preference updated successfully");
     }
     
     /**
      * Kullanıcının ChatBot yanıt dilini döner
      * @param userId Kullanıcı ID'si
+     * @param ifNoneMatch İstemcideki ETag
      * @return Yanıt dili
      */
     @GetMapping("/{userId}/response-language")
-    public ResponseEntity<String> getResponseLanguage(@PathVariable UUID userId) {
-        String responseLanguage = userProfileService.getResponseLanguage(userId);
-        return ResponseEntity.ok(responseLanguage);
+    public ResponseEntity<String> getResponseLanguage(
+            @PathVariable UUID userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(userId, ifNoneMatch, UserProfile::getResponseLanguage);
     }
     
     /**
      * Kullanıcının ChatBot kişilik ayarlarını döner
      * @param userId Kullanıcı ID'si
+     * @param ifNoneMatch İstemcideki ETag
      * @return Kişilik ayarları
      */
     @GetMapping("/{userId}/personality")
-    public ResponseEntity<String> getPersonality(@PathVariable UUID userId) {
-        String personality = userProfileService.getPersonality(userId);
-        return ResponseEntity.ok(personality);
+    public ResponseEntity<String> getPersonality(
+            @PathVariable UUID userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(userId, ifNoneMatch, UserProfile::getPersonality);
     }
     
     /**
      * Kullanıcının ChatBot özelliklerini döner
      * @param userId Kullanıcı ID'si
+     * @param ifNoneMatch İstemcideki ETag
      * @return ChatBot özellikleri
      */
     @GetMapping("/{userId}/traits")
-    public ResponseEntity<java.util.Set<String>> getTraits(@PathVariable UUID userId) {
-        java.util.Set<String> traits = userProfileService.getTraits(userId);
-        return ResponseEntity.ok(traits);
+    public ResponseEntity<Set<String>> getTraits(
+            @PathVariable UUID userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(userId, ifNoneMatch, UserProfile::getTraits);
+    }
+    
+    /**
+     * Versiyon cache'teyse ve istemcinin ETag'i eşleşiyorsa profili okumadan 304 döner.
+     * Aksi halde profil okunur; Spring ETag eşleşirse yine gövdesiz 304 yazar.
+     */
+    private <T> ResponseEntity<T> conditionalGet(UUID userId, String ifNoneMatch, Function<UserProfile, T> body) {
+        Long cachedVersion = ifNoneMatch != null ? userProfileService.getCachedVersion(userId) : null;
+        if (cachedVersion != null && matchesAny(ifNoneMatch, cachedVersion)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag(cachedVersion))
+                    .cacheControl(CACHE_CONTROL)
+                    .build();
+        }
+        UserProfile profile = userProfileService.getUserProfile(userId);
+        return ResponseEntity.ok()
+                .eTag(etag(UserProfileService.versionOf(profile)))
+                .cacheControl(CACHE_CONTROL)
+                .body(body.apply(profile));
+    }
+    
+    /**
+     * If-Match başlığından beklenen versiyonu çözer; "*" için null döner.
+     * @throws PreconditionRequiredException Başlık yoksa
+     * @throws PreconditionFailedException ETag bu profile ait değilse
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new PreconditionRequiredException("Profil güncellemesi için If-Match başlığı gerekli");
+        }
+        if (ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Long version = parseVersion(ifMatch.trim());
+        if (version == null) {
+            throw new PreconditionFailedException("Geçersiz ETag: " + ifMatch);
+        }
+        return version;
+    }
+    
+    /**
+     * If-None-Match listesinde versiyonun ETag'i var mı (zayıf karşılaştırma).
+     */
+    private static boolean matchesAny(String ifNoneMatch, long version) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*")) {
+                return true;
+            }
+            Long parsed = parseVersion(trimmed);
+            if (parsed != null && parsed == version) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * W/"12" veya "12" biçimindeki ETag'den versiyonu çözer; geçersizse null.
+     */
+    private static Long parseVersion(String tag) {
+        String value = tag.startsWith("W/") ? tag.substring(2) : tag;
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Profil versiyonundan zayıf ETag üretir. Sıkıştırılmış yanıtlar da
+     * aynı temsil sayıldığı için güçlü ETag kullanılmaz.
+     */
+    private static String etag(long version) {
+        return "W/\"" + version + "\"";
     }
 }
@@ -0,0 +1,10 @@
+package com.yusufbatmaz.chatbot.exception;
+
+/**
+ * İstemcinin If-Match ile gönderdiği versiyon güncel değilse fırlatılır (412).
+ */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
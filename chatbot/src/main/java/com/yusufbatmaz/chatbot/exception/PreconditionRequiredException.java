@@ -0,0 +1,10 @@
+package com.yusufbatmaz.chatbot.exception;
+
+/**
+ * Güncelleme isteğinde zorunlu If-Match başlığı yoksa fırlatılır (428).
+ */
+public class PreconditionRequiredException extends RuntimeException {
+    public PreconditionRequiredException(String message) {
+        super(message);
+    }
+}
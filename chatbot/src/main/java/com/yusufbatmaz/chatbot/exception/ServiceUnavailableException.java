@@ -0,0 +1,18 @@
+package com.yusufbatmaz.chatbot.exception;
+
+/**
+ * Sunucu geçici olarak aşırı yüklü olduğunda fırlatılır (503).
+ * İstemciye ne kadar sonra tekrar denemesi gerektiğini bildirir.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,18 @@
+package com.yusufbatmaz.chatbot.exception;
+
+/**
+ * Kullanıcı kendi payına düşen kapasiteyi aştığında fırlatılır (429).
+ * İstemciye ne kadar sonra tekrar denemesi gerektiğini bildirir.
+ */
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
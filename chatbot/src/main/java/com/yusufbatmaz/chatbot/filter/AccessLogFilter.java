@@ -0,0 +1,192 @@
+package com.yusufbatmaz.chatbot.filter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yusufbatmaz.chatbot.config.AccessLogProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.logging.AsyncRingAppender;
+import com.yusufbatmaz.chatbot.logging.PiiRedactor;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Her istek için "ACCESS" logger'ına tek satır JSON erişim kaydı yazar
+ * (method, path, status, süre, kullanıcı, maskelenmiş istemci IP'si).
+ *
+ * Mesaj içeriği yalnızca controller'ın {@link #PAYLOAD_MESSAGE} /
+ * {@link #PAYLOAD_RESPONSE} attribute'larına koyduğu değerlerden, ayarlanan
+ * örnekleme oranıyla ve kişisel veriler maskelenerek eklenir.
+ * Kayıtlar {@link AsyncRingAppender} üzerinden yazıldığı için istek thread'i
+ * log I/O'sunu beklemez.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter implements MetricsSource {
+
+    public static final String PAYLOAD_MESSAGE = AccessLogFilter.class.getName() + ".message";
+    public static final String PAYLOAD_RESPONSE = AccessLogFilter.class.getName() + ".response";
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private static final Logger access = LoggerFactory.getLogger("ACCESS");
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final AccessLogProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder sampledPayloads = new LongAdder();
+
+    public AccessLogFilter(AccessLogProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (!properties.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long started = System.nanoTime();
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        MDC.put("requestId", requestId);
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Akış halindeki cevaplar (örn. dışa aktarma) tamamlanınca loglanır
+                async = true;
+                String id = requestId;
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        log(request, response, id, started, null);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            log(request, response, requestId, started, e);
+            throw e;
+        } finally {
+            MDC.remove("requestId");
+        }
+        if (!async) {
+            log(request, response, requestId, started, null);
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, String requestId, long started,
+                     Exception error) {
+        if (!access.isInfoEnabled()) {
+            return;
+        }
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "access");
+        record.put("time", Instant.now().toString());
+        record.put("requestId", requestId);
+        record.put("method", request.getMethod());
+        record.put("path", request.getRequestURI());
+        record.put("status", error != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus());
+        record.put("durationMs", (System.nanoTime() - started) / 1_000_000.0);
+        Object userId = request.getAttribute(SessionTokenFilter.AUTHENTICATED_USER_ID);
+        if (userId != null) {
+            record.put("userId", userId.toString());
+        }
+        record.put("client", PiiRedactor.maskIp(request.getRemoteAddr()));
+        if (error != null) {
+            record.put("error", error.getClass().getSimpleName());
+        }
+
+        Object message = request.getAttribute(PAYLOAD_MESSAGE);
+        if (message != null && ThreadLocalRandom.current().nextDouble() < properties.getPayloadSampleRate()) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("message", payload(message));
+            payload.put("response", payload(request.getAttribute(PAYLOAD_RESPONSE)));
+            record.put("payload", payload);
+            sampledPayloads.increment();
+        }
+
+        try {
+            access.info(objectMapper.writeValueAsString(record));
+            records.increment();
+        } catch (JsonProcessingException e) {
+            access.warn("Erişim kaydı yazılamadı: {}", requestId);
+        }
+    }
+
+    private String payload(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString();
+        int max = properties.getMaxPayloadLength();
+        return PiiRedactor.redact(text.length() > max ? text.substring(0, max) + "..." : text);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "logging";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("accessRecords", records.sum());
+        metrics.put("sampledPayloads", sampledPayloads.sum());
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            context.getLoggerList().forEach(logger -> {
+                Iterator<Appender<ILoggingEvent>> appenders = logger.iteratorForAppenders();
+                while (appenders.hasNext()) {
+                    if (appenders.next() instanceof AsyncRingAppender appender) {
+                        metrics.put("appender." + appender.getName(), appender.getStatistics());
+                    }
+                }
+            });
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,128 @@
+package com.yusufbatmaz.chatbot.filter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yusufbatmaz.chatbot.config.AdmissionControlProperties;
+import com.yusufbatmaz.chatbot.service.AdmissionController;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Chat isteklerini {@link AdmissionController} üzerinden kabul eden filtre.
+ * Süresi içinde tamamlanamayacak istekler upstream'e gitmeden 503 ve
+ * Retry-After ile döner. Rate limit'ten önce çalışır; böylece reddedilen istek
+ * kullanıcının rate limit hakkını harcamaz. Sağlık kontrolü ve giriş path'leri
+ * hiçbir zaman reddedilmez.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 8)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /**
+     * İstemcinin bekleyeceği süre (saniye); verilmezse varsayılan süre kullanılır
+     */
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final AdmissionControlProperties properties;
+    private final AdmissionController admissionController;
+    private final ObjectMapper objectMapper;
+
+    public AdmissionControlFilter(AdmissionControlProperties properties, AdmissionController admissionController,
+                                  ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.admissionController = admissionController;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!properties.isEnabled() || "OPTIONS".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String method = request.getMethod();
+        if (!properties.getMethods().isEmpty()
+                && properties.getMethods().stream().noneMatch(m -> m.equalsIgnoreCase(method))) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (properties.getExcludedPaths().stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path))) {
+            return true;
+        }
+        return properties.getPaths().stream().noneMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        AdmissionController.Decision decision = admissionController.tryAdmit(requestedDeadline(request));
+        if (!decision.admitted()) {
+            reject(response, decision);
+            return;
+        }
+
+        boolean success = false;
+        try {
+            filterChain.doFilter(request, response);
+            success = response.getStatus() < 400;
+        } finally {
+            decision.ticket().complete(success);
+        }
+    }
+
+    /**
+     * X-Request-Timeout header'ından istemcinin bekleyeceği süreyi okur.
+     */
+    private Duration requestedDeadline(HttpServletRequest request) {
+        String header = request.getHeader(REQUEST_TIMEOUT_HEADER);
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            double seconds = Double.parseDouble(header.trim());
+            return seconds > 0 ? Duration.ofMillis((long) (seconds * 1000)) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 503 yanıtını GlobalExceptionHandler ile aynı gövde formatında yazar.
+     */
+    private void reject(HttpServletResponse response, AdmissionController.Decision decision) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("error", "Service Unavailable");
+        body.put("message", "Sunucu şu anda yoğun. Lütfen " + decision.retryAfterSeconds()
+                + " saniye sonra tekrar deneyin.");
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), body);
+        logger.debug("Chat isteği kabul edilmedi - Neden: {}", decision.reason());
+    }
+}
@@ -0,0 +1,194 @@
+package com.yusufbatmaz.chatbot.filter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.config.RateLimitConfig;
+import com.yusufbatmaz.chatbot.config.RateLimitProperties;
+import com.yusufbatmaz.chatbot.config.RateLimiter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Controller'a ulaşmadan, hiçbir veritabanı işlemi yapılmadan rate limit uygulayan filtre.
+ * Path, kullanıcı ID'si ve istemci IP'sine göre tanımlanan kuralları
+ * {@link RateLimitProperties} üzerinden okur. Limit aşıldığında 429,
+ * Retry-After ve X-RateLimit-* header'ları döner. Bir kural reddederse,
+ * önceki kuralların bu istek için tükettiği haklar geri verilir.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final List<RouteRule> rules = new ArrayList<>();
+    private final ObjectMapper objectMapper;
+
+    // Route adı -> kabul / red sayaçları
+    private final Map<String, LongAdder> allowedCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rejectedCounts = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(RateLimitProperties properties, RateLimitConfig rateLimitConfig, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        properties.getRoutes().forEach((route, rule) -> {
+            if (!rule.getPaths().isEmpty()) {
+                rules.add(new RouteRule(route, rule, rateLimitConfig.getLimiter(route)));
+                allowedCounts.put(route, new LongAdder());
+                rejectedCounts.put(route, new LongAdder());
+            }
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        // CORS preflight istekleri sınırlandırılmaz
+        if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        List<RouteRule> acquired = new ArrayList<>(2);
+        List<String> acquiredKeys = new ArrayList<>(2);
+        for (RouteRule rule : rules) {
+            if (!rule.matches(request.getMethod(), path)) {
+                continue;
+            }
+
+            String key = resolveKey(rule.rule.getKeyBy(), request);
+            RateLimiter.Decision decision = rule.limiter.tryAcquire(key);
+            response.setHeader("X-RateLimit-Limit", String.valueOf(decision.limit()));
+            response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+
+            if (!decision.allowed()) {
+                // Reddedilen istek önceki kuralların hakkını harcamamalı
+                for (int i = 0; i < acquired.size(); i++) {
+                    acquired.get(i).limiter.refund(acquiredKeys.get(i));
+                }
+                rejectedCounts.get(rule.route).increment();
+                reject(response, rule.route, decision);
+                return;
+            }
+            acquired.add(rule);
+            acquiredKeys.add(key);
+        }
+        acquired.forEach(rule -> allowedCounts.get(rule.route).increment());
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Kurala göre limit anahtarını belirler.
+     * Kullanıcı anahtarı yalnızca SessionTokenFilter'ın doğruladığı kimlikten gelir;
+     * istemcinin gönderdiği userId parametresi her istekte değiştirilebileceği için kullanılmaz.
+     */
+    private String resolveKey(RateLimitProperties.KeyBy keyBy, HttpServletRequest request) {
+        switch (keyBy) {
+            case GLOBAL:
+                return "*";
+            case USER:
+                return userKey(request);
+            case IP:
+            default:
+                return "ip:" + request.getRemoteAddr();
+        }
+    }
+
+    /**
+     * USER kuralları için anahtar: doğrulanmış token'daki kullanıcı ID'si, yoksa istemci IP'si.
+     * Rate limit bilgisini dönen endpoint de aynı anahtarı kullanır.
+     */
+    public static String userKey(HttpServletRequest request) {
+        Object authenticated = request.getAttribute(SessionTokenFilter.AUTHENTICATED_USER_ID);
+        if (authenticated != null) {
+            return authenticated.toString();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * 429 yanıtını GlobalExceptionHandler ile aynı gövde formatında yazar.
+     */
+    private void reject(HttpServletResponse response, String route, RateLimiter.Decision decision) throws IOException {
+        long retryAfterSeconds = Math.max(1, (decision.retryAfterMillis() + 999) / 1000);
+        logger.debug("Rate limit aşıldı - Route: {}, Retry-After: {}s", route, retryAfterSeconds);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("error", "Too Many Requests");
+        body.put("message", "Rate limit aşıldı. Lütfen " + retryAfterSeconds + " saniye sonra tekrar deneyin.");
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "rateLimit";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (RouteRule rule : rules) {
+            Map<String, Object> routeMetrics = new LinkedHashMap<>();
+            routeMetrics.put("allowed", allowedCounts.get(rule.route).sum());
+            routeMetrics.put("rejected", rejectedCounts.get(rule.route).sum());
+            routeMetrics.put("trackedKeys", rule.limiter.size());
+            metrics.put(rule.route, routeMetrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Bir route kuralının path/metod eşleştirmesi ve limiter'ı.
+     */
+    private static final class RouteRule {
+        private final String route;
+        private final RateLimitProperties.Rule rule;
+        private final RateLimiter limiter;
+
+        private RouteRule(String route, RateLimitProperties.Rule rule, RateLimiter limiter) {
+            this.route = route;
+            this.rule = rule;
+            this.limiter = limiter;
+        }
+
+        private boolean matches(String method, String path) {
+            if (!rule.getMethods().isEmpty()
+                    && rule.getMethods().stream().noneMatch(m -> m.equalsIgnoreCase(method))) {
+                return false;
+            }
+            return rule.getPaths().stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.yusufbatmaz.chatbot.filter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yusufbatmaz.chatbot.config.AuthTokenProperties;
+import com.yusufbatmaz.chatbot.exception.AuthenticationException;
+import com.yusufbatmaz.chatbot.service.SessionTokenService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * "Authorization: Bearer" header'ındaki oturum token'ını doğrulayan filtre.
+ * Geçerli token'ın kullanıcı ID'si request attribute'una yazılır; controller'lar
+ * kullanıcıyı veritabanından doğrulamak zorunda kalmaz.
+ *
+ * İstek ayrıca ?userId= veya /api/profile/{userId} ile bir kullanıcı belirtiyorsa
+ * token'daki kullanıcıyla aynı olmalıdır. Rate limit filtresinden önce çalışır,
+ * böylece limit anahtarı doğrulanmış kullanıcı ID'si olur.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+    /**
+     * Doğrulanmış kullanıcı ID'sinin (UUID) tutulduğu request attribute'u
+     */
+    public static final String AUTHENTICATED_USER_ID = SessionTokenFilter.class.getName() + ".userId";
+
+    /**
+     * Doğrulanmış token içeriğinin tutulduğu request attribute'u
+     */
+    public static final String SESSION_TOKEN = SessionTokenFilter.class.getName() + ".token";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final String PROFILE_PATH = "/api/profile/{userId}/**";
+
+    private final SessionTokenService sessionTokenService;
+    private final AuthTokenProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public SessionTokenFilter(SessionTokenService sessionTokenService, AuthTokenProperties properties,
+                              ObjectMapper objectMapper) {
+        this.sessionTokenService = sessionTokenService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean protectedPath = properties.getProtectedPaths().stream()
+                .anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+        String token = extractToken(request);
+
+        if (token == null) {
+            if (protectedPath && properties.isRequired()) {
+                write(response, HttpStatus.UNAUTHORIZED, "Oturum token'ı gerekli");
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        SessionTokenService.SessionToken session;
+        try {
+            session = sessionTokenService.verify(token);
+        } catch (AuthenticationException e) {
+            write(response, HttpStatus.UNAUTHORIZED, e.getMessage());
+            return;
+        }
+
+        if (!matchesRequestedUser(request, path, session.userId())) {
+            write(response, HttpStatus.FORBIDDEN, "Bu kullanıcı için yetkiniz yok");
+            return;
+        }
+
+        request.setAttribute(AUTHENTICATED_USER_ID, session.userId());
+        request.setAttribute(SESSION_TOKEN, session);
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Header'dan Bearer token'ı alır; yoksa null döner.
+     */
+    public static String extractToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        String token = header.substring(BEARER_PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    /**
+     * İstekte belirtilen kullanıcı (varsa) token'daki kullanıcı mı kontrol eder.
+     */
+    private boolean matchesRequestedUser(HttpServletRequest request, String path, UUID tokenUserId) {
+        String requested = request.getParameter("userId");
+        if ((requested == null || requested.isBlank()) && PATH_MATCHER.match(PROFILE_PATH, path)) {
+            requested = PATH_MATCHER.extractUriTemplateVariables(PROFILE_PATH, path).get("userId");
+        }
+        if (requested == null || requested.isBlank()) {
+            return true;
+        }
+        try {
+            return tokenUserId.equals(UUID.fromString(requested.trim()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hata yanıtını GlobalExceptionHandler ile aynı gövde formatında yazar.
+     */
+    private void write(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,192 @@
+package com.yusufbatmaz.chatbot.logging;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/**
+ * Log olaylarını kilitsiz, sınırlı bir halka kuyruğa yazan ve bağlı
+ * appender'lara tek bir arka plan thread'inden ileten Logback appender'ı.
+ *
+ * İstek thread'i konsol/dosya I/O'sunu hiç beklemez. Kuyruk doluysa olay
+ * atılır ve sayılır (drop-on-full); log yüzünden istek yavaşlamaz.
+ * {@code neverDropLevel} ve üstündeki olaylar (varsayılan WARN) atılmaz;
+ * kuyrukta yer açılana kadar çağıran thread bekler. Audit kayıtları için
+ * ALL verilerek hiçbir olayın atılmaması sağlanır.
+ * logback-spring.xml'de {@code <appender-ref>} ile sarmalanan appender'lar verilir.
+ */
+public class AsyncRingAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    private int bufferSize = 8192;
+    private int maxFlushTime = 1000;
+    private Level neverDropLevel = Level.WARN;
+    private RingBuffer<ILoggingEvent> buffer;
+    private Thread worker;
+    private volatile boolean idle;
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Kuyruk doluyken atılmayıp yer açılması beklenecek en düşük seviye (örn. WARN, ALL)
+     */
+    public void setNeverDropLevel(String level) {
+        this.neverDropLevel = Level.toLevel(level, Level.WARN);
+    }
+
+    /**
+     * Kapanışta kuyruğun boşaltılması için beklenecek süre (ms)
+     */
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        buffer = new RingBuffer<>(bufferSize);
+        worker = new Thread(this::drain, "async-log-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        LockSupport.unpark(worker);
+        try {
+            worker.join(maxFlushTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // Mesaj, MDC ve thread adı istek thread'indeyken sabitlenir
+        event.prepareForDeferredProcessing();
+        if (!buffer.offer(event)) {
+            if (!event.getLevel().isGreaterOrEqual(neverDropLevel) || !awaitSpace(event)) {
+                dropped.increment();
+                return;
+            }
+        }
+        appended.increment();
+        if (idle) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Kuyrukta yer açılana kadar bekleyip olayı ekler; appender kapanırsa false döner.
+     */
+    private boolean awaitSpace(ILoggingEvent event) {
+        if (Thread.currentThread() == worker) {
+            // Kuyruğu boşaltacak thread kendini bekleyemez
+            return false;
+        }
+        blocked.increment();
+        do {
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+            if (!isStarted()) {
+                return false;
+            }
+        } while (!buffer.offer(event));
+        return true;
+    }
+
+    private void drain() {
+        while (true) {
+            ILoggingEvent event = buffer.poll();
+            if (event != null) {
+                appenders.appendLoopOnAppenders(event);
+                continue;
+            }
+            if (!isStarted()) {
+                return;
+            }
+            idle = true;
+            // idle işaretlendikten sonra gelen olay kaçmasın diye tekrar bakılır
+            if (buffer.size() == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            idle = false;
+        }
+    }
+
+    /**
+     * Kuyruk doluluğu ve atılan olay sayısı.
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("capacity", buffer != null ? buffer.capacity() : 0);
+        statistics.put("queued", buffer != null ? buffer.size() : 0);
+        statistics.put("appended", appended.sum());
+        statistics.put("dropped", dropped.sum());
+        statistics.put("blocked", blocked.sum());
+        return statistics;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,54 @@
+package com.yusufbatmaz.chatbot.logging;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Güvenlik açısından önemli işlemleri (giriş, toplu dışa/içe aktarma,
+ * destek erişimi) "AUDIT" logger'ına tek satır JSON olarak yazar.
+ * Kayıtlar serbest metin içermez; kimlikler ve sayılar yazılır.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditLog {
+
+    private static final Logger audit = LoggerFactory.getLogger("AUDIT");
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param action İşlem adı (örn. "login.success")
+     * @param actor İşlemi yapan (kullanıcı ID'si, maskelenmiş e-posta veya "support")
+     * @param details Ek alanlar
+     */
+    public void record(String action, Object actor, Map<String, ?> details) {
+        if (!audit.isInfoEnabled()) {
+            return;
+        }
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "audit");
+        record.put("time", Instant.now().toString());
+        record.put("action", action);
+        record.put("actor", actor != null ? actor.toString() : null);
+        record.putAll(details);
+        try {
+            audit.info(objectMapper.writeValueAsString(record));
+        } catch (JsonProcessingException e) {
+            audit.warn("Audit kaydı yazılamadı: {}", action);
+        }
+    }
+
+    public void record(String action, Object actor) {
+        record(action, actor, Map.of());
+    }
+}
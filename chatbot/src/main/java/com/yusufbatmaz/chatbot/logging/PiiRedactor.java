@@ -0,0 +1,92 @@
+package com.yusufbatmaz.chatbot.logging;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Log'a yazılacak serbest metindeki kişisel verileri maskeler:
+ * e-posta, IBAN, kart numarası (Luhn ile doğrulanır), T.C. kimlik numarası,
+ * telefon numarası ve IPv4 adresi.
+ */
+public final class PiiRedactor {
+
+    private static final Pattern EMAIL = Pattern.compile("[\\w.+-]+@[\\w-]+(?:\\.[\\w-]+)+");
+    private static final Pattern IBAN = Pattern.compile("\\b[A-Z]{2}\\d{2}(?:\\s?[A-Z0-9]{4}){3,7}(?:\\s?[A-Z0-9]{1,4})?\\b");
+    private static final Pattern CARD = Pattern.compile("\\b\\d(?:[ -]?\\d){12,18}\\b");
+    private static final Pattern NATIONAL_ID = Pattern.compile("\\b[1-9]\\d{10}\\b");
+    private static final Pattern PHONE = Pattern.compile("(?<![\\w])(?:\\+\\d{1,3}[\\s-]?)?\\(?0?\\d{3}\\)?[\\s-]?\\d{3}[\\s-]?\\d{2}[\\s-]?\\d{2}\\b");
+    private static final Pattern IPV4 = Pattern.compile("\\b(?:\\d{1,3}\\.){3}\\d{1,3}\\b");
+
+    private PiiRedactor() {}
+
+    /**
+     * Metindeki kişisel verileri etiketlerle değiştirir.
+     */
+    public static String redact(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        String result = EMAIL.matcher(text).replaceAll("[EMAIL]");
+        result = IBAN.matcher(result).replaceAll("[IBAN]");
+        result = redactCards(result);
+        result = NATIONAL_ID.matcher(result).replaceAll("[ID]");
+        result = PHONE.matcher(result).replaceAll("[PHONE]");
+        return IPV4.matcher(result).replaceAll("[IP]");
+    }
+
+    /**
+     * E-postayı kullanıcı adının ilk harfi dışında maskeler (örn. "a***@example.com").
+     */
+    public static String maskEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        int at = email.indexOf('@');
+        return at <= 0 ? "***" : email.charAt(0) + "***" + email.substring(at);
+    }
+
+    /**
+     * IPv4 adresinin son okteti, IPv6 adresinin son 80 biti sıfırlanır.
+     */
+    public static String maskIp(String address) {
+        if (address == null) {
+            return null;
+        }
+        int dot = address.lastIndexOf('.');
+        if (dot > 0 && address.indexOf(':') < 0) {
+            return address.substring(0, dot) + ".0";
+        }
+        String[] groups = address.split(":", -1);
+        return groups.length >= 3 ? groups[0] + ":" + groups[1] + ":" + groups[2] + "::" : address;
+    }
+
+    private static String redactCards(String text) {
+        Matcher matcher = CARD.matcher(text);
+        StringBuilder result = new StringBuilder(text.length());
+        while (matcher.find()) {
+            matcher.appendReplacement(result, luhn(matcher.group()) ? "[CARD]" : Matcher.quoteReplacement(matcher.group()));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static boolean luhn(String number) {
+        int sum = 0;
+        int digits = 0;
+        for (int i = number.length() - 1; i >= 0; i--) {
+            char c = number.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            int digit = c - '0';
+            if (digits++ % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return digits >= 13 && sum % 10 == 0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.yusufbatmaz.chatbot.migration;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * EntityManagerFactory'nin {@link SchemaMigrator}'dan sonra oluşturulmasını sağlar;
+ * böylece repository'ler her zaman güncel şemayla çalışır.
+ */
+@Component
+public class MigrationDependsOnPostProcessor extends EntityManagerFactoryDependsOnPostProcessor {
+
+    public MigrationDependsOnPostProcessor() {
+        super(SchemaMigrator.class);
+    }
+}
@@ -0,0 +1,227 @@
+package com.yusufbatmaz.chatbot.migration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Versiyonlu SQL migration'larını uygulama açılışında çalıştırır.
+ *
+ * Dosyalar "V{versiyon}__{açıklama}.sql" formatındadır ve versiyon sırasıyla
+ * uygulanır. Uygulananlar schema_migrations tablosunda checksum ile tutulur;
+ * uygulanmış bir dosya sonradan değiştirilirse açılış durdurulur. Birden fazla
+ * node aynı anda açılırsa advisory lock sayesinde migration'ları tek node çalıştırır.
+ *
+ * JPA, bu bean hazır olmadan başlamaz ({@link MigrationDependsOnPostProcessor}).
+ */
+@Component
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final Pattern FILE_PATTERN = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final Pattern SCHEMA_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    // pg_advisory_lock anahtarı (uygulamaya özgü sabit)
+    private static final long LOCK_KEY = 0x6368_6174_626f_7401L;
+
+    private static final String CREATE_HISTORY_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS schema_migrations (
+                version INTEGER PRIMARY KEY,
+                description VARCHAR(255) NOT NULL,
+                checksum BIGINT NOT NULL,
+                execution_ms INTEGER NOT NULL,
+                installed_at TIMESTAMPTZ NOT NULL DEFAULT now()
+            )
+            """;
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final String locations;
+    private final String schema;
+
+    public SchemaMigrator(DataSource dataSource,
+                          @Value("${migration.enabled:true}") boolean enabled,
+                          @Value("${migration.locations:classpath:db/migration}") String locations,
+                          @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.locations = locations;
+        this.schema = schema == null ? "" : schema.trim();
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (!enabled) {
+            logger.info("Schema migration kapalı");
+            return;
+        }
+        migrate();
+    }
+
+    /**
+     * Bekleyen migration'ları uygular.
+     * @return Uygulanan migration sayısı
+     */
+    public int migrate() throws SQLException, IOException {
+        List<Migration> migrations = loadMigrations();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(true);
+            useSchema(connection);
+            lock(connection);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_HISTORY_TABLE_SQL);
+                }
+                Map<Integer, Long> applied = loadApplied(connection);
+
+                int count = 0;
+                for (Migration migration : migrations) {
+                    Long checksum = applied.get(migration.version);
+                    if (checksum != null) {
+                        if (checksum != migration.checksum) {
+                            throw new IllegalStateException("Uygulanmış migration değiştirilmiş: " + migration.fileName);
+                        }
+                        continue;
+                    }
+                    apply(connection, migration);
+                    count++;
+                }
+                logger.info("Schema migration tamamlandı - Uygulanan: {}, Toplam: {}", count, migrations.size());
+                return count;
+            } finally {
+                unlock(connection);
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Migration'ı ve geçmiş kaydını tek transaction'da uygular.
+     */
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        logger.info("Migration uygulanıyor: {}", migration.fileName);
+        long start = System.currentTimeMillis();
+        connection.setAutoCommit(false);
+        try {
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.resource, StandardCharsets.UTF_8));
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                insert.setInt(1, migration.version);
+                insert.setString(2, migration.description);
+                insert.setLong(3, migration.checksum);
+                insert.setInt(4, (int) (System.currentTimeMillis() - start));
+                insert.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw new IllegalStateException("Migration başarısız: " + migration.fileName, e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private List<Migration> loadMigrations() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver()
+                .getResources(locations + "/V*__*.sql");
+        List<Migration> migrations = new ArrayList<>();
+        Map<Integer, String> seen = new HashMap<>();
+        for (Resource resource : resources) {
+            String fileName = resource.getFilename();
+            Matcher matcher = FILE_PATTERN.matcher(fileName == null ? "" : fileName);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Geçersiz migration dosya adı: " + fileName);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            String previous = seen.put(version, fileName);
+            if (previous != null) {
+                throw new IllegalStateException("Aynı versiyonlu iki migration: " + previous + ", " + fileName);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(StreamUtils.copyToByteArray(resource.getInputStream()));
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), fileName, crc.getValue(), resource));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    private Map<Integer, Long> loadApplied(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Hibernate'e verilen default_schema varsa migration'lar da o şemada çalışır.
+     */
+    private void useSchema(Connection connection) throws SQLException {
+        if (schema.isEmpty()) {
+            return;
+        }
+        if (!SCHEMA_PATTERN.matcher(schema).matches()) {
+            throw new IllegalStateException("Geçersiz şema adı: " + schema);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+            statement.execute("SET search_path TO " + schema);
+        }
+    }
+
+    private void lock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_lock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            statement.execute();
+        }
+        // Havuza dönen bağlantı varsayılan search_path ile kullanılmaya devam etsin
+        if (!schema.isEmpty()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("RESET search_path");
+            }
+        }
+    }
+
+    /**
+     * Tek bir migration dosyası.
+     */
+    private record Migration(int version, String description, String fileName, long checksum, Resource resource) {
+    }
+}
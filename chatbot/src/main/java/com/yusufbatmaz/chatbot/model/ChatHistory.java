@@ -3,7 +3,10 @@ package com.yusufbatmaz.chatbot.model;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import com.yusufbatmaz.chatbot.compression.CompressedTextConverter;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -26,10 +29,13 @@ public class ChatHistory {
     @JoinColumn(name = "user_id", nullable = false)
     private User user; // Bu sohbet kaydının hangi kullanıcıya ait olduğunu gösterir.
 
-    @Column(nullable = false, columnDefinition = "TEXT")
+    // Metinler eşik üstündeyse sıkıştırılarak bytea olarak saklanır
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(nullable = false, columnDefinition = "BYTEA")
     private String userMessage;
 
-    @Column(nullable = false, length = 2000)
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(nullable = false, columnDefinition = "BYTEA")
     private String botResponse;
 
     @Column(nullable = false)
@@ -37,4 +43,8 @@ public class ChatHistory {
 
     @Column(name = "question_category")
     private String questionCategory;
+
+    // LLM'e gitmeden yerel şablonla cevaplandı mı
+    @Column(name = "answered_locally", nullable = false)
+    private boolean answeredLocally;
 }
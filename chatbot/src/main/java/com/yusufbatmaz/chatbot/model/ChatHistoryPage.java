@@ -0,0 +1,31 @@
+package com.yusufbatmaz.chatbot.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Cursor ile sayfalanan sohbet geçmişi cevabı.
+ */
+@Data
+@AllArgsConstructor
+public class ChatHistoryPage {
+
+    /**
+     * Kayıtlar: normal modda yeniden eskiye, since modunda eskiden yeniye
+     */
+    private List<? extends ChatHistorySummary> items;
+
+    /**
+     * Devam sayfası için cursor (normal modda "cursor", since modunda "since" ile); yoksa null
+     */
+    private String nextCursor;
+
+    /**
+     * Bu cevaptaki en yeni kayda kadar senkronize olmak için sonraki isteğin "since" değeri
+     */
+    private String syncCursor;
+
+    private boolean hasMore;
+}
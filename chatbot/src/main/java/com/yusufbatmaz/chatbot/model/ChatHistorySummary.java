@@ -0,0 +1,17 @@
+package com.yusufbatmaz.chatbot.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Sohbet geçmişi listesi için hafif projeksiyon.
+ * Yalnızca bu kolonlar seçilir; kullanıcı ilişkisi ve mesaj metinleri yüklenmez.
+ */
+public interface ChatHistorySummary {
+
+    UUID getId();
+
+    LocalDateTime getTimestamp();
+
+    String getQuestionCategory();
+}
@@ -0,0 +1,11 @@
+package com.yusufbatmaz.chatbot.model;
+
+/**
+ * Mesaj metinlerini de içeren sohbet geçmişi projeksiyonu.
+ */
+public interface ChatHistoryText extends ChatHistorySummary {
+
+    String getUserMessage();
+
+    String getBotResponse();
+}
@@ -0,0 +1,31 @@
+package com.yusufbatmaz.chatbot.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Sohbet geçmişi arama sonucu. Metinler yalnızca istenirse doldurulur.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChatSearchResult {
+
+    private UUID id;
+    private UUID userId;
+    private LocalDateTime timestamp;
+    private String questionCategory;
+
+    /**
+     * BM25 skoru; sonuçlar bu değere göre azalan sıradadır
+     */
+    private double score;
+
+    private String userMessage;
+    private String botResponse;
+}
@@ -0,0 +1,20 @@
+package com.yusufbatmaz.chatbot.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sohbet geçmişindeki tek bir mesaj/cevap çifti (entity'siz, cache'lenebilir hali).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatTurn {
+    private String userMessage;
+    private String botResponse;
+    private LocalDateTime timestamp;
+    private String questionCategory;
+}
@@ -0,0 +1,23 @@
+package com.yusufbatmaz.chatbot.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Başarılı giriş cevabı. Kullanıcı bilgileri ve sonraki isteklerde
+ * "Authorization: Bearer" header'ında gönderilecek oturum token'ını içerir.
+ * Şifre hash'i dönülmez.
+ */
+@Data
+@AllArgsConstructor
+public class LoginResponse {
+    private UUID id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String token;
+    private Instant expiresAt;
+}
@@ -0,0 +1,91 @@
+package com.yusufbatmaz.chatbot.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ChatBot özelliklerinin (trait) sabit listesi ve bit karşılıkları.
+ *
+ * Profilde özellikler tek bir bigint kolonda bit maskesi olarak tutulur;
+ * her özelliğin biti bu listedeki sırasıdır. Veritabanındaki maskeler bu
+ * sıraya bağlı olduğu için listeye yalnızca sona ekleme yapılmalı,
+ * mevcut elemanların yeri değiştirilmemelidir (en fazla 64 özellik).
+ */
+public final class TraitRegistry {
+
+    /**
+     * Frontend'deki özellik seçenekleriyle aynı sırada.
+     */
+    public static final List<String> TRAITS = List.of(
+            "chatty",
+            "witty",
+            "straightShooting",
+            "encouraging",
+            "genZ",
+            "traditional",
+            "forwardThinking");
+
+    private TraitRegistry() {}
+
+    /**
+     * Özelliğin bit değerini döner; bilinmeyen özellik için 0.
+     */
+    public static long bit(String trait) {
+        int index = TRAITS.indexOf(trait);
+        return index < 0 ? 0L : 1L << index;
+    }
+
+    /**
+     * Özellik kümesini bit maskesine çevirir.
+     *
+     * @throws IllegalArgumentException Bilinmeyen bir özellik varsa
+     */
+    public static long toMask(Collection<String> traits) {
+        long mask = 0L;
+        if (traits == null) {
+            return mask;
+        }
+        for (String trait : traits) {
+            long bit = bit(trait);
+            if (bit == 0L) {
+                throw new IllegalArgumentException("Bilinmeyen özellik: " + trait);
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Bit maskesini liste sırasında özellik kümesine çevirir.
+     */
+    public static Set<String> fromMask(long mask) {
+        if (mask == 0L) {
+            return Collections.emptySet();
+        }
+        Set<String> traits = new LinkedHashSet<>();
+        for (int i = 0; i < TRAITS.size(); i++) {
+            if ((mask & (1L << i)) != 0L) {
+                traits.add(TRAITS.get(i));
+            }
+        }
+        return Collections.unmodifiableSet(traits);
+    }
+
+    /**
+     * Tanımlı olmayan özellikleri döner (doğrulama mesajları için).
+     */
+    public static Set<String> unknown(Collection<String> traits) {
+        Set<String> unknown = new LinkedHashSet<>();
+        if (traits != null) {
+            for (String trait : traits) {
+                if (!TRAITS.contains(trait)) {
+                    unknown.add(trait);
+                }
+            }
+        }
+        return unknown;
+    }
+}
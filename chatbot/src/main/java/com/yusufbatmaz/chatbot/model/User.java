@@ -2,6 +2,8 @@ package com.yusufbatmaz.chatbot.model;
 
 import java.util.UUID;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -38,5 +40,6 @@ public class User {
 
     @NotBlank(message = "Şifre boş olamaz")
     @Size(min = 6, max = 100, message = "Şifre en az 6 karakter olmalıdır")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // Kayıtta alınır, cevaplarda hash dönülmez
     private String password;
 }
@@ -1,25 +1,34 @@
 package com.yusufbatmaz.chatbot.model;
 
+import java.time.LocalDateTime;
 import java.util.Set;
 import java.util.UUID;
 
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
-import jakarta.persistence.ElementCollection;
-import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 
 /**
  * Kullanıcı profil bilgilerini ve tercihlerini temsil eden JPA entity'si.
  * Dil, kişilik, özellikler ve diğer kullanıcı ayarlarını içerir.
+ *
+ * Ana dil, son görülme ve mesaj sayısı {@link com.yusufbatmaz.chatbot.service.ProfileWriteBehind}
+ * tarafından ayrıca yazıldığı için güncellemelerde yalnızca değişen kolonlar yazılır.
+ * Bu toplu yazım versiyonu artırmaz; versiyon yalnızca kullanıcının düzenlediği alanlar için değişir.
  */
 @Entity
+@DynamicUpdate
 @Getter
 @Setter
 public class UserProfile {
@@ -28,6 +37,11 @@ public class UserProfile {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
     
+    // Optimistic locking versiyonu; kaydedilmemiş (varsayılan) profilde null
+    @Version
+    @JsonIgnore
+    private Long version;
+    
     @OneToOne
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
@@ -44,11 +58,10 @@ public class UserProfile {
     // ChatBot'un kişiliği
     private String personality = "default";
     
-    // ChatBot'un özellikleri (virgülle ayrılmış)
-    @ElementCollection
-    @CollectionTable(name = "user_profile_traits", joinColumns = @JoinColumn(name = "profile_id"))
-    @Column(name = "trait")
-    private Set<String> traits;
+    // ChatBot'un özellikleri ({@link TraitRegistry} sırasına göre bit maskesi)
+    @JsonIgnore
+    @Column(name = "traits_mask", nullable = false)
+    private long traitsMask;
     
     // Ek bilgiler
     private String additionalInfo;
@@ -63,6 +76,13 @@ public class UserProfile {
     private boolean forceResponseLanguage = false;
     private String forcedResponseLanguage;
     
+    // Son mesaj zamanı ve toplam mesaj sayısı (yalnızca toplu yazma ile güncellenir)
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime lastSeenAt;
+    
+    @Column(insertable = false, updatable = false)
+    private long messageCount;
+    
     public UserProfile() {}
     
     public UserProfile(User user) {
@@ -86,10 +106,26 @@ public class UserProfile {
         return getPreferredLanguage();
     }
     
+    /**
+     * Aktif özellikleri döner
+     */
+    public Set<String> getTraits() {
+        return TraitRegistry.fromMask(traitsMask);
+    }
+    
+    /**
+     * Özellikleri ayarlar
+     * @throws IllegalArgumentException Bilinmeyen bir özellik varsa
+     */
+    public void setTraits(Set<String> traits) {
+        this.traitsMask = TraitRegistry.toMask(traits);
+    }
+    
     /**
      * Belirli bir özelliğin aktif olup olmadığını kontrol eder
      */
     public boolean hasTrait(String trait) {
-        return traits != null && traits.contains(trait);
+        long bit = TraitRegistry.bit(trait);
+        return bit != 0L && (traitsMask & bit) != 0L;
     }
 }
@@ -1,13 +1,37 @@
 package com.yusufbatmaz.chatbot.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.yusufbatmaz.chatbot.model.ChatHistory;
-import com.yusufbatmaz.chatbot.model.User;
 
 public interface ChatHistoryRepository extends JpaRepository<ChatHistory, UUID> {
-    List<ChatHistory> findByUser(User user);
+
+    List<ChatHistory> findByUser_IdOrderByTimestampDesc(UUID userId, Pageable pageable);
+
+    /**
+     * Kullanıcının geçmişini keyset (sıralama kolonları) ile kaydırarak okur.
+     * Sorgu yalnızca projeksiyondaki kolonları seçer ve LIMIT ile sınırlıdır;
+     * maliyeti kullanıcının toplam mesaj sayısından bağımsızdır.
+     *
+     * @param userId Kullanıcı ID'si
+     * @param position Başlangıç konumu (keyset)
+     * @param sort Sıralama (timestamp, id)
+     * @param limit Sayfa boyutu
+     * @param type Projeksiyon tipi
+     */
+    <T> Window<T> findByUser_Id(UUID userId, ScrollPosition position, Sort sort, Limit limit, Class<T> type);
+
+    /**
+     * Verilen ID'lerdeki kayıtları projeksiyonla okur (arama sonuçları için).
+     */
+    <T> List<T> findByIdIn(Collection<UUID> ids, Class<T> type);
 }
@@ -3,6 +3,7 @@ package com.yusufbatmaz.chatbot.repository;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -16,10 +17,12 @@ import com.yusufbatmaz.chatbot.model.UserProfile;
 public interface UserProfileRepository extends JpaRepository<UserProfile, UUID> {
     
     /**
-     * Kullanıcı ID'sine göre profil bilgilerini bulur
+     * Kullanıcı ID'sine göre profil bilgilerini bulur.
+     * Profil ve kullanıcı tek sorguda (join) yüklenir.
      * @param userId Kullanıcı ID'si
      * @return Kullanıcı profili (varsa)
      */
+    @EntityGraph(attributePaths = "user")
     Optional<UserProfile> findByUser_Id(UUID userId);
     
     /**
@@ -4,6 +4,10 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.yusufbatmaz.chatbot.model.User;
 
@@ -14,11 +18,20 @@ import com.yusufbatmaz.chatbot.model.User;
 public interface UserRepository extends JpaRepository<User, UUID> {
    
    
-    /** Verilen email adresine sahip bir kullanıcı var mı kontrol eder. 
-    email Kullanıcının email adresi alır ve true/false döner.**/
-    boolean existsByEmail(String email);
+    /** Verilen email adresine sahip bir kullanıcı var mı kontrol eder (büyük/küçük harf duyarsız).
+    email Kullanıcının email adresi alır ve true/false döner. lower(email) indeksini kullanır.**/
+    @Query("SELECT COUNT(u) > 0 FROM User u WHERE lower(u.email) = lower(:email)")
+    boolean existsByEmail(@Param("email") String email);
 
-    /**Email adresine göre kullanıcıyı bulur. email Kullanıcının email adresi alır 
-    ve Optional<User> döner.*/
-    Optional<User> findByEmail(String email);
+    /**Email adresine göre kullanıcıyı bulur (büyük/küçük harf duyarsız). email Kullanıcının email adresi alır 
+    ve Optional<User> döner. lower(email) indeksini kullanır.*/
+    @Query("SELECT u FROM User u WHERE lower(u.email) = lower(:email)")
+    Optional<User> findByEmail(@Param("email") String email);
+
+    /** Şifre hash'ini sadece okunduğundan beri değişmediyse günceller.
+    Eşzamanlı bir şifre değişikliğini ezmemek için kullanılır; güncellenen satır sayısını döner.*/
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") UUID id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
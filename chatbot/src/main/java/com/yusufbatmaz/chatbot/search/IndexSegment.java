@@ -0,0 +1,138 @@
+package com.yusufbatmaz.chatbot.search;
+
+import java.util.Arrays;
+
+/**
+ * Değişmez indeks segmenti.
+ *
+ * Doküman numaraları [docBase, docBase + docCount) aralığındadır. Posting
+ * listeleri (terim, kullanıcı) anahtarına göre sıralıdır; anahtarın üst 32
+ * biti terim, alt 32 biti kullanıcı numarasıdır. Böylece bir kullanıcının
+ * terimi ikili aramayla, bir terimin tüm kullanıcıları ise ardışık aralık
+ * olarak bulunur. Tüm veriler primitive dizilerde tutulur.
+ */
+final class IndexSegment implements Segment {
+
+    final int docBase;
+    final int docCount;
+    final long[] idMsb;
+    final long[] idLsb;
+    final long[] timestamps;
+    final int[] users;
+    final int[] lengths;
+
+    final long[] keys;
+    final int[] offsets;
+    final int[] counts;
+    final byte[] data;
+
+    IndexSegment(int docBase, int docCount, long[] idMsb, long[] idLsb, long[] timestamps, int[] users, int[] lengths,
+                 long[] keys, int[] offsets, int[] counts, byte[] data) {
+        this.docBase = docBase;
+        this.docCount = docCount;
+        this.idMsb = idMsb;
+        this.idLsb = idLsb;
+        this.timestamps = timestamps;
+        this.users = users;
+        this.lengths = lengths;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.counts = counts;
+        this.data = data;
+    }
+
+    static long key(int term, int user) {
+        return ((long) term << 32) | (user & 0xffffffffL);
+    }
+
+    static int termOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int userOf(long key) {
+        return (int) key;
+    }
+
+    boolean containsDoc(int doc) {
+        return doc >= docBase && doc < docBase + docCount;
+    }
+
+    /**
+     * Anahtarın posting listesinin sırasını, yoksa -1 döner.
+     */
+    int find(long key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Terimin ilk anahtarının sırasını döner (terimin tüm kullanıcıları buradan başlar).
+     */
+    int firstOfTerm(int term) {
+        int index = Arrays.binarySearch(keys, key(term, 0));
+        return index >= 0 ? index : -index - 1;
+    }
+
+    Postings.Cursor cursor(int index) {
+        int end = index + 1 < offsets.length ? offsets[index + 1] : data.length;
+        return new Postings.Cursor(data, offsets[index], end - offsets[index], docBase);
+    }
+
+    @Override
+    public int docBase() {
+        return docBase;
+    }
+
+    @Override
+    public int docCount() {
+        return docCount;
+    }
+
+    @Override
+    public Postings.Cursor postings(int term, int user) {
+        int index = find(key(term, user));
+        return index < 0 ? null : cursor(index);
+    }
+
+    @Override
+    public void forEachUser(int term, PostingsConsumer consumer) {
+        for (int i = firstOfTerm(term); i < keys.length && termOf(keys[i]) == term; i++) {
+            consumer.accept(userOf(keys[i]), cursor(i));
+        }
+    }
+
+    @Override
+    public int documentFrequency(int term, int user) {
+        int index = find(key(term, user));
+        return index < 0 ? 0 : counts[index];
+    }
+
+    @Override
+    public long idMsb(int doc) {
+        return idMsb[doc - docBase];
+    }
+
+    @Override
+    public long idLsb(int doc) {
+        return idLsb[doc - docBase];
+    }
+
+    @Override
+    public long timestamp(int doc) {
+        return timestamps[doc - docBase];
+    }
+
+    @Override
+    public int user(int doc) {
+        return users[doc - docBase];
+    }
+
+    @Override
+    public int length(int doc) {
+        return lengths[doc - docBase];
+    }
+
+    long sizeInBytes() {
+        return docCount * 40L + keys.length * 16L + data.length;
+    }
+}
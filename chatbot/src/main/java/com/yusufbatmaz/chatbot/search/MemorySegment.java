@@ -0,0 +1,174 @@
+package com.yusufbatmaz.chatbot.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Yeni dokümanların eklendiği yazılabilir segment.
+ * Dolunca {@link #freeze()} ile değişmez segmente çevrilip diske yazılır.
+ * Thread-safe değildir; {@link SearchIndex} kilidiyle korunur.
+ */
+final class MemorySegment implements Segment {
+
+    private final int docBase;
+    private int docCount;
+    private long[] idMsb = new long[256];
+    private long[] idLsb = new long[256];
+    private long[] timestamps = new long[256];
+    private int[] users = new int[256];
+    private int[] lengths = new int[256];
+
+    private final Map<Long, PostingBuilder> postings = new HashMap<>();
+    // Destek aramaları için terim -> kullanıcılar
+    private final Map<Integer, int[]> usersByTerm = new HashMap<>();
+
+    MemorySegment(int docBase) {
+        this.docBase = docBase;
+    }
+
+    /**
+     * Dokümanı ekler ve numarasını döner.
+     * @param termFrequencies Terim numarası -> dokümandaki tekrar sayısı
+     */
+    int add(long msb, long lsb, long timestamp, int user, int length, Map<Integer, Integer> termFrequencies) {
+        if (docCount == idMsb.length) {
+            int capacity = docCount * 2;
+            idMsb = Arrays.copyOf(idMsb, capacity);
+            idLsb = Arrays.copyOf(idLsb, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            users = Arrays.copyOf(users, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        int doc = docBase + docCount;
+        idMsb[docCount] = msb;
+        idLsb[docCount] = lsb;
+        timestamps[docCount] = timestamp;
+        users[docCount] = user;
+        lengths[docCount] = length;
+        docCount++;
+
+        for (Map.Entry<Integer, Integer> entry : termFrequencies.entrySet()) {
+            int term = entry.getKey();
+            PostingBuilder builder = postings.get(IndexSegment.key(term, user));
+            if (builder == null) {
+                builder = new PostingBuilder(docBase);
+                postings.put(IndexSegment.key(term, user), builder);
+                int[] termUsers = usersByTerm.getOrDefault(term, new int[0]);
+                termUsers = Arrays.copyOf(termUsers, termUsers.length + 1);
+                termUsers[termUsers.length - 1] = user;
+                usersByTerm.put(term, termUsers);
+            }
+            builder.add(doc, entry.getValue());
+        }
+        return doc;
+    }
+
+    /**
+     * Değişmez segmente çevirir.
+     */
+    IndexSegment freeze() {
+        long[] keys = new long[postings.size()];
+        int i = 0;
+        for (Long key : postings.keySet()) {
+            keys[i++] = key;
+        }
+        Arrays.sort(keys);
+        int[] offsets = new int[keys.length];
+        int[] counts = new int[keys.length];
+        int total = 0;
+        for (PostingBuilder builder : postings.values()) {
+            total += builder.size;
+        }
+        byte[] data = new byte[total];
+        int position = 0;
+        for (int k = 0; k < keys.length; k++) {
+            PostingBuilder builder = postings.get(keys[k]);
+            offsets[k] = position;
+            counts[k] = builder.count;
+            System.arraycopy(builder.data, 0, data, position, builder.size);
+            position += builder.size;
+        }
+        return new IndexSegment(docBase, docCount, Arrays.copyOf(idMsb, docCount), Arrays.copyOf(idLsb, docCount),
+                Arrays.copyOf(timestamps, docCount), Arrays.copyOf(users, docCount), Arrays.copyOf(lengths, docCount),
+                keys, offsets, counts, data);
+    }
+
+    @Override
+    public int docBase() {
+        return docBase;
+    }
+
+    @Override
+    public int docCount() {
+        return docCount;
+    }
+
+    @Override
+    public Postings.Cursor postings(int term, int user) {
+        PostingBuilder builder = postings.get(IndexSegment.key(term, user));
+        return builder == null ? null : new Postings.Cursor(builder.data, 0, builder.size, docBase);
+    }
+
+    @Override
+    public void forEachUser(int term, PostingsConsumer consumer) {
+        for (int user : usersByTerm.getOrDefault(term, new int[0])) {
+            consumer.accept(user, postings(term, user));
+        }
+    }
+
+    @Override
+    public int documentFrequency(int term, int user) {
+        PostingBuilder builder = postings.get(IndexSegment.key(term, user));
+        return builder == null ? 0 : builder.count;
+    }
+
+    @Override
+    public long idMsb(int doc) {
+        return idMsb[doc - docBase];
+    }
+
+    @Override
+    public long idLsb(int doc) {
+        return idLsb[doc - docBase];
+    }
+
+    @Override
+    public long timestamp(int doc) {
+        return timestamps[doc - docBase];
+    }
+
+    @Override
+    public int user(int doc) {
+        return users[doc - docBase];
+    }
+
+    @Override
+    public int length(int doc) {
+        return lengths[doc - docBase];
+    }
+
+    /**
+     * Tek bir (terim, kullanıcı) için büyüyen delta kodlu posting listesi.
+     */
+    private static final class PostingBuilder {
+        private byte[] data = new byte[8];
+        private int size;
+        private int lastDoc;
+        private int count;
+
+        private PostingBuilder(int docBase) {
+            this.lastDoc = docBase;
+        }
+
+        private void add(int doc, int frequency) {
+            if (size + 10 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            size = Postings.writeVarint(data, size, doc - lastDoc);
+            size = Postings.writeVarint(data, size, frequency);
+            lastDoc = doc;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.yusufbatmaz.chatbot.search;
+
+/**
+ * Posting listesi kodlaması: her giriş (doküman farkı, terim frekansı) çifti
+ * olarak varint yazılır. Dokümanlar artan sıradadır; ilk fark segmentin
+ * taban doküman numarasına göredir.
+ */
+final class Postings {
+
+    private Postings() {}
+
+    static int writeVarint(byte[] buffer, int position, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Okuma imleci; tek bir posting listesini sırayla çözer.
+     */
+    static final class Cursor {
+        private final byte[] data;
+        private int position;
+        private final int end;
+        private int doc;
+        private int frequency;
+
+        Cursor(byte[] data, int offset, int length, int docBase) {
+            this.data = data;
+            this.position = offset;
+            this.end = offset + length;
+            this.doc = docBase;
+        }
+
+        boolean next() {
+            if (position >= end) {
+                return false;
+            }
+            doc += readVarint();
+            frequency = readVarint();
+            return true;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.yusufbatmaz.chatbot.search;
+
+import java.util.UUID;
+
+/**
+ * Arama sonucu: sohbet kaydının ID'si, sahibi, zamanı (epoch mikrosaniye, UTC) ve BM25 skoru.
+ */
+public record SearchHit(UUID id, UUID userId, long timestampMicros, double score) {
+}
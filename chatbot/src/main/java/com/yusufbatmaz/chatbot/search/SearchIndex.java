@@ -0,0 +1,459 @@
+package com.yusufbatmaz.chatbot.search;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Sohbet geçmişi için süreç içi, artımlı tam metin indeksi.
+ *
+ * Yeni dokümanlar bellekteki segmente eklenir; {@link #flush()} bu segmenti
+ * değişmez hale getirip diske yazar, {@link #merge(int)} küçük segmentleri
+ * arka planda birleştirir. Posting listeleri (terim, kullanıcı) başına
+ * tutulur; kullanıcı araması yalnızca o kullanıcının listelerini okur.
+ * Skorlama BM25'tir; doküman sayısı ve ortalama uzunluk arama kapsamına
+ * (tek kullanıcı veya tümü) göre hesaplanır.
+ *
+ * Yazma işlemleri (add, flush, merge, load, clear) tek bir thread'den
+ * yapılmalıdır; aramalar herhangi bir thread'den okuma kilidiyle yapılır.
+ */
+public final class SearchIndex {
+
+    private static final String MANIFEST = "manifest.properties";
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Path directory;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> termOrdinals = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final Map<UUID, Integer> userOrdinals = new HashMap<>();
+    private final List<UUID> users = new ArrayList<>();
+    private int[] userDocs = new int[64];
+    private long[] userLengths = new long[64];
+    private long totalDocs;
+    private long totalLength;
+
+    // Doküman numarası sırasıyla: diskteki segmentler, yazılamamış segmentler, bellekteki segment
+    private List<IndexSegment> segments = new ArrayList<>();
+    private final List<IndexSegment> unflushed = new ArrayList<>();
+    private MemorySegment memory = new MemorySegment(0);
+    private int nextDoc;
+    private long watermark = Long.MIN_VALUE;
+
+    public SearchIndex(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Diskteki indeksi yükler.
+     *
+     * @return Yüklenen doküman sayısı (indeks yoksa 0)
+     * @throws IOException Dosyalar okunamazsa veya tutarsızsa; bu durumda {@link #clear()} çağrılmalıdır
+     */
+    public int load() throws IOException {
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return 0;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(manifest)) {
+            properties.load(in);
+        }
+        lock.writeLock().lock();
+        try {
+            List<IndexSegment> loaded = new ArrayList<>();
+            int expected = 0;
+            for (String name : properties.getProperty("segments", "").split(",")) {
+                if (name.isBlank()) {
+                    continue;
+                }
+                IndexSegment segment = SegmentFiles.read(directory.resolve(name), this::termOrdinal, this::userOrdinal);
+                if (segment.docBase != expected) {
+                    throw new IOException("İndeks segmentleri ardışık değil: " + name);
+                }
+                for (int i = 0; i < segment.docCount; i++) {
+                    count(segment.users[i], segment.lengths[i]);
+                }
+                loaded.add(segment);
+                expected += segment.docCount;
+            }
+            segments = loaded;
+            nextDoc = expected;
+            memory = new MemorySegment(nextDoc);
+            watermark = Long.parseLong(properties.getProperty("watermark", String.valueOf(Long.MIN_VALUE)));
+            return expected;
+        } catch (RuntimeException e) {
+            throw new IOException("İndeks yüklenemedi", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * İndeksi bellekten ve diskten tamamen siler.
+     */
+    public void clear() throws IOException {
+        lock.writeLock().lock();
+        try {
+            termOrdinals.clear();
+            terms.clear();
+            userOrdinals.clear();
+            users.clear();
+            userDocs = new int[64];
+            userLengths = new long[64];
+            totalDocs = 0;
+            totalLength = 0;
+            segments = new ArrayList<>();
+            unflushed.clear();
+            memory = new MemorySegment(0);
+            nextDoc = 0;
+            watermark = Long.MIN_VALUE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + SegmentFiles.EXTENSION + ",.tmp,.properties}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Dokümanı bellekteki segmente ekler.
+     *
+     * @param id Sohbet kaydı ID'si
+     * @param userId Kaydın sahibi
+     * @param timestampMicros Kayıt zamanı (epoch mikrosaniye, UTC)
+     * @param tokens Dokümanın normalize edilmiş token'ları
+     */
+    public void add(UUID id, UUID userId, long timestampMicros, List<String> tokens) {
+        Map<Integer, Integer> frequencies = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            for (String token : tokens) {
+                frequencies.merge(termOrdinal(token), 1, Integer::sum);
+            }
+            int user = userOrdinal(userId);
+            memory.add(id.getMostSignificantBits(), id.getLeastSignificantBits(), timestampMicros,
+                    user, tokens.size(), frequencies);
+            count(user, tokens.size());
+            nextDoc++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bellekteki segmenti diske yazar.
+     *
+     * @return Yazılacak doküman yoksa false
+     */
+    public boolean flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (memory.docCount() > 0) {
+                unflushed.add(memory.freeze());
+                memory = new MemorySegment(nextDoc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (unflushed.isEmpty()) {
+            return false;
+        }
+        // Yazılamayan segmentler bellekte aranabilir kalır; sonraki flush'ta yeniden denenir
+        while (!unflushed.isEmpty()) {
+            IndexSegment segment = unflushed.get(0);
+            SegmentFiles.write(segment, directory.resolve(SegmentFiles.fileName(segment)), terms::get, users::get);
+            lock.writeLock().lock();
+            try {
+                List<IndexSegment> next = new ArrayList<>(segments);
+                next.add(segment);
+                segments = next;
+                unflushed.remove(0);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (long timestamp : segment.timestamps) {
+                watermark = Math.max(watermark, timestamp);
+            }
+        }
+        writeManifest();
+        return true;
+    }
+
+    /**
+     * Segment sayısı sınırı aşıldıkça toplam boyutu en küçük komşu segment çiftini birleştirir.
+     *
+     * @return Yapılan birleştirme sayısı
+     */
+    public int merge(int maxSegments) throws IOException {
+        int merges = 0;
+        while (segments.size() > Math.max(1, maxSegments)) {
+            int best = 0;
+            for (int i = 1; i + 1 < segments.size(); i++) {
+                if (segments.get(i).docCount + segments.get(i + 1).docCount
+                        < segments.get(best).docCount + segments.get(best + 1).docCount) {
+                    best = i;
+                }
+            }
+            List<IndexSegment> pair = List.copyOf(segments.subList(best, best + 2));
+            IndexSegment merged = SegmentFiles.merge(pair);
+            SegmentFiles.write(merged, directory.resolve(SegmentFiles.fileName(merged)), terms::get, users::get);
+            lock.writeLock().lock();
+            try {
+                List<IndexSegment> next = new ArrayList<>(segments);
+                next.subList(best, best + 2).clear();
+                next.add(best, merged);
+                segments = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            writeManifest();
+            for (IndexSegment segment : pair) {
+                Files.deleteIfExists(directory.resolve(SegmentFiles.fileName(segment)));
+            }
+            merges++;
+        }
+        return merges;
+    }
+
+    /**
+     * Sorgu terimlerini BM25 ile skorlar ve en iyi sonuçları döner.
+     * Eşit skorlarda yeni kayıt önce gelir.
+     *
+     * @param userId Arama kapsamı; null ise tüm kullanıcılar
+     * @param queryTerms Normalize edilmiş sorgu token'ları
+     * @param limit Maksimum sonuç sayısı
+     */
+    public List<SearchHit> search(UUID userId, Collection<String> queryTerms, int limit) {
+        lock.readLock().lock();
+        try {
+            int user = -1;
+            long docs = totalDocs;
+            long length = totalLength;
+            if (userId != null) {
+                Integer ordinal = userOrdinals.get(userId);
+                if (ordinal == null) {
+                    return List.of();
+                }
+                user = ordinal;
+                docs = userDocs[user];
+                length = userLengths[user];
+            }
+            if (docs == 0) {
+                return List.of();
+            }
+            double averageLength = Math.max(1.0, (double) length / docs);
+            List<Segment> searchable = searchable();
+
+            Map<Integer, double[]> scores = new HashMap<>();
+            for (String text : new LinkedHashSet<>(queryTerms)) {
+                Integer term = termOrdinals.get(text);
+                if (term == null) {
+                    continue;
+                }
+                Matches matches = new Matches();
+                for (Segment segment : searchable) {
+                    if (user >= 0) {
+                        Postings.Cursor cursor = segment.postings(term, user);
+                        if (cursor != null) {
+                            matches.addAll(segment, cursor);
+                        }
+                    } else {
+                        segment.forEachUser(term, (owner, cursor) -> matches.addAll(segment, cursor));
+                    }
+                }
+                double idf = Math.log(1 + (docs - matches.size + 0.5) / (matches.size + 0.5));
+                for (int i = 0; i < matches.size; i++) {
+                    double tf = matches.frequencies[i];
+                    double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * matches.lengths[i] / averageLength));
+                    scores.computeIfAbsent(matches.docs[i], d -> new double[1])[0] += idf * norm;
+                }
+            }
+
+            Comparator<SearchHit> order = Comparator.comparingDouble(SearchHit::score)
+                    .thenComparingLong(SearchHit::timestampMicros);
+            PriorityQueue<SearchHit> top = new PriorityQueue<>(limit + 1, order);
+            for (Map.Entry<Integer, double[]> entry : scores.entrySet()) {
+                int doc = entry.getKey();
+                Segment segment = segmentOf(searchable, doc);
+                SearchHit hit = new SearchHit(new UUID(segment.idMsb(doc), segment.idLsb(doc)),
+                        users.get(segment.user(doc)), segment.timestamp(doc), entry.getValue()[0]);
+                top.add(hit);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<SearchHit> hits = new ArrayList<>(top);
+            hits.sort(order.reversed());
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Verilen zamandan (dahil) sonraki dokümanların ID'leri; yeniden yüklemede tekrarları ayıklamak için.
+     */
+    public Set<UUID> idsSince(long timestampMicros) {
+        lock.readLock().lock();
+        try {
+            Set<UUID> ids = new HashSet<>();
+            for (Segment segment : searchable()) {
+                for (int doc = segment.docBase(); doc < segment.docBase() + segment.docCount(); doc++) {
+                    if (segment.timestamp(doc) >= timestampMicros) {
+                        ids.add(new UUID(segment.idMsb(doc), segment.idLsb(doc)));
+                    }
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Diske yazılmış en yeni dokümanın zamanı (epoch mikrosaniye); indeks boşsa Long.MIN_VALUE.
+     */
+    public long watermark() {
+        return watermark;
+    }
+
+    /**
+     * Bellekte bekleyen (henüz diske yazılmamış) doküman sayısı.
+     */
+    public int pendingDocs() {
+        lock.readLock().lock();
+        try {
+            return memory.docCount() + unflushed.stream().mapToInt(segment -> segment.docCount).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> statistics() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("documents", totalDocs);
+            statistics.put("terms", terms.size());
+            statistics.put("users", users.size());
+            statistics.put("segments", segments.size());
+            statistics.put("pendingDocuments", memory.docCount() + unflushed.stream().mapToInt(s -> s.docCount).sum());
+            statistics.put("segmentBytes", segments.stream().mapToLong(IndexSegment::sizeInBytes).sum());
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Segment> searchable() {
+        List<Segment> searchable = new ArrayList<>(segments.size() + unflushed.size() + 1);
+        searchable.addAll(segments);
+        searchable.addAll(unflushed);
+        searchable.add(memory);
+        return searchable;
+    }
+
+    private static Segment segmentOf(List<Segment> searchable, int doc) {
+        for (int i = searchable.size() - 1; i > 0; i--) {
+            if (doc >= searchable.get(i).docBase()) {
+                return searchable.get(i);
+            }
+        }
+        return searchable.get(0);
+    }
+
+    private int termOrdinal(String term) {
+        Integer ordinal = termOrdinals.get(term);
+        if (ordinal == null) {
+            ordinal = terms.size();
+            termOrdinals.put(term, ordinal);
+            terms.add(term);
+        }
+        return ordinal;
+    }
+
+    private int userOrdinal(UUID userId) {
+        Integer ordinal = userOrdinals.get(userId);
+        if (ordinal == null) {
+            ordinal = users.size();
+            userOrdinals.put(userId, ordinal);
+            users.add(userId);
+            if (ordinal == userDocs.length) {
+                userDocs = Arrays.copyOf(userDocs, ordinal * 2);
+                userLengths = Arrays.copyOf(userLengths, ordinal * 2);
+            }
+        }
+        return ordinal;
+    }
+
+    private void count(int user, int length) {
+        userDocs[user]++;
+        userLengths[user] += length;
+        totalDocs++;
+        totalLength += length;
+    }
+
+    private void writeManifest() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("version", String.valueOf(SegmentFiles.VERSION));
+        properties.setProperty("segments", segments.stream().map(SegmentFiles::fileName).collect(Collectors.joining(",")));
+        properties.setProperty("watermark", String.valueOf(watermark));
+        Path tmp = directory.resolve(MANIFEST + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, null);
+        }
+        Files.move(tmp, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Bir terimin eşleşmeleri (doküman, frekans, doküman uzunluğu).
+     */
+    private static final class Matches {
+        private int[] docs = new int[16];
+        private int[] frequencies = new int[16];
+        private int[] lengths = new int[16];
+        private int size;
+
+        private void addAll(Segment segment, Postings.Cursor cursor) {
+            while (cursor.next()) {
+                if (size == docs.length) {
+                    docs = Arrays.copyOf(docs, size * 2);
+                    frequencies = Arrays.copyOf(frequencies, size * 2);
+                    lengths = Arrays.copyOf(lengths, size * 2);
+                }
+                docs[size] = cursor.doc();
+                frequencies[size] = cursor.frequency();
+                lengths[size] = segment.length(cursor.doc());
+                size++;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.yusufbatmaz.chatbot.search;
+
+/**
+ * Aranabilir segment (bellekteki yazılabilir segment veya değişmez segment).
+ */
+interface Segment {
+
+    int docBase();
+
+    int docCount();
+
+    /**
+     * Kullanıcının terim için posting listesi; yoksa null.
+     */
+    Postings.Cursor postings(int term, int user);
+
+    /**
+     * Terimi içeren tüm kullanıcıların posting listelerini gezer.
+     */
+    void forEachUser(int term, PostingsConsumer consumer);
+
+    /**
+     * Posting listesindeki doküman sayısı (yoksa 0).
+     */
+    int documentFrequency(int term, int user);
+
+    long idMsb(int doc);
+
+    long idLsb(int doc);
+
+    long timestamp(int doc);
+
+    int user(int doc);
+
+    int length(int doc);
+
+    @FunctionalInterface
+    interface PostingsConsumer {
+        void accept(int user, Postings.Cursor cursor);
+    }
+}
@@ -0,0 +1,252 @@
+package com.yusufbatmaz.chatbot.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Değişmez segmentlerin disk formatı (big-endian).
+ *
+ * <pre>
+ * header    : magic(4) version(4) docBase(4) docCount(4)
+ * kullanıcı : count(4) + count * (msb(8) lsb(8))
+ * terim     : count(4) + count * UTF
+ * doküman   : docCount * (idMsb(8) idLsb(8) timestampMicros(8) localUser(4) length(4))
+ * posting   : count(4) + count * (localTerm(4) localUser(4) docCount(4) byteLength(4) bytes)
+ * </pre>
+ *
+ * Terim ve kullanıcı numaraları süreç içinde atanır; dosyada segmente özel
+ * yerel numaralar tutulur ve okunurken global sözlüğe çevrilir.
+ */
+final class SegmentFiles {
+
+    static final int MAGIC = 0x43534958; // "CSIX"
+    static final int VERSION = 1;
+    static final String EXTENSION = ".idx";
+
+    private SegmentFiles() {}
+
+    static String fileName(IndexSegment segment) {
+        return "seg-" + segment.docBase + "-" + segment.docCount + EXTENSION;
+    }
+
+    /**
+     * Segmenti önce geçici dosyaya yazar, sonra atomik olarak yerine taşır.
+     *
+     * @param termNames Global terim numarası -> terim
+     * @param userIds Global kullanıcı numarası -> kullanıcı ID'si
+     */
+    static void write(IndexSegment segment, Path target, IntFunction<String> termNames,
+                      IntFunction<UUID> userIds) throws IOException {
+        Map<Integer, Integer> localUsers = new HashMap<>();
+        Map<Integer, Integer> localTerms = new HashMap<>();
+        for (int user : segment.users) {
+            localUsers.putIfAbsent(user, localUsers.size());
+        }
+        for (long key : segment.keys) {
+            localUsers.putIfAbsent(IndexSegment.userOf(key), localUsers.size());
+            localTerms.putIfAbsent(IndexSegment.termOf(key), localTerms.size());
+        }
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(segment.docBase);
+            out.writeInt(segment.docCount);
+
+            out.writeInt(localUsers.size());
+            for (int user : ordered(localUsers)) {
+                UUID id = userIds.apply(user);
+                out.writeLong(id.getMostSignificantBits());
+                out.writeLong(id.getLeastSignificantBits());
+            }
+            out.writeInt(localTerms.size());
+            for (int term : ordered(localTerms)) {
+                out.writeUTF(termNames.apply(term));
+            }
+
+            for (int i = 0; i < segment.docCount; i++) {
+                out.writeLong(segment.idMsb[i]);
+                out.writeLong(segment.idLsb[i]);
+                out.writeLong(segment.timestamps[i]);
+                out.writeInt(localUsers.get(segment.users[i]));
+                out.writeInt(segment.lengths[i]);
+            }
+
+            out.writeInt(segment.keys.length);
+            for (int i = 0; i < segment.keys.length; i++) {
+                int end = i + 1 < segment.offsets.length ? segment.offsets[i + 1] : segment.data.length;
+                out.writeInt(localTerms.get(IndexSegment.termOf(segment.keys[i])));
+                out.writeInt(localUsers.get(IndexSegment.userOf(segment.keys[i])));
+                out.writeInt(segment.counts[i]);
+                out.writeInt(end - segment.offsets[i]);
+                out.write(segment.data, segment.offsets[i], end - segment.offsets[i]);
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Segmenti okur; yerel numaraları verilen fonksiyonlarla global numaralara çevirir.
+     *
+     * @param termOrdinal Terim -> global numara (yoksa atanır)
+     * @param userOrdinal Kullanıcı ID'si -> global numara (yoksa atanır)
+     */
+    static IndexSegment read(Path file, Function<String, Integer> termOrdinal,
+                             Function<UUID, Integer> userOrdinal) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Geçersiz indeks segmenti: " + file);
+            }
+            int docBase = in.readInt();
+            int docCount = in.readInt();
+
+            int[] users = new int[in.readInt()];
+            for (int i = 0; i < users.length; i++) {
+                users[i] = userOrdinal.apply(new UUID(in.readLong(), in.readLong()));
+            }
+            int[] terms = new int[in.readInt()];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = termOrdinal.apply(in.readUTF());
+            }
+
+            long[] idMsb = new long[docCount];
+            long[] idLsb = new long[docCount];
+            long[] timestamps = new long[docCount];
+            int[] docUsers = new int[docCount];
+            int[] lengths = new int[docCount];
+            for (int i = 0; i < docCount; i++) {
+                idMsb[i] = in.readLong();
+                idLsb[i] = in.readLong();
+                timestamps[i] = in.readLong();
+                docUsers[i] = users[in.readInt()];
+                lengths[i] = in.readInt();
+            }
+
+            int postingCount = in.readInt();
+            long[] keys = new long[postingCount];
+            int[] counts = new int[postingCount];
+            byte[][] lists = new byte[postingCount][];
+            int total = 0;
+            for (int i = 0; i < postingCount; i++) {
+                keys[i] = IndexSegment.key(terms[in.readInt()], users[in.readInt()]);
+                counts[i] = in.readInt();
+                lists[i] = new byte[in.readInt()];
+                in.readFully(lists[i]);
+                total += lists[i].length;
+            }
+
+            // Global numaralar dosyadakilerden farklı olabilir; anahtar sırası yeniden kurulur
+            Integer[] order = new Integer[postingCount];
+            for (int i = 0; i < postingCount; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+            long[] sortedKeys = new long[postingCount];
+            int[] sortedCounts = new int[postingCount];
+            int[] offsets = new int[postingCount];
+            byte[] data = new byte[total];
+            int position = 0;
+            for (int i = 0; i < postingCount; i++) {
+                int source = order[i];
+                sortedKeys[i] = keys[source];
+                sortedCounts[i] = counts[source];
+                offsets[i] = position;
+                System.arraycopy(lists[source], 0, data, position, lists[source].length);
+                position += lists[source].length;
+            }
+            return new IndexSegment(docBase, docCount, idMsb, idLsb, timestamps, docUsers, lengths,
+                    sortedKeys, offsets, sortedCounts, data);
+        }
+    }
+
+    /**
+     * Ardışık doküman aralıklarına sahip segmentleri tek segmentte birleştirir.
+     * Posting listeleri çözülüp yeni taban numarasına göre yeniden kodlanır.
+     */
+    static IndexSegment merge(List<IndexSegment> segments) {
+        IndexSegment first = segments.get(0);
+        int docCount = 0;
+        int keyCount = 0;
+        int dataSize = 0;
+        for (IndexSegment segment : segments) {
+            if (segment.docBase != first.docBase + docCount) {
+                throw new IllegalArgumentException("Segmentler ardışık değil");
+            }
+            docCount += segment.docCount;
+            keyCount += segment.keys.length;
+            dataSize += segment.data.length;
+        }
+
+        long[] idMsb = new long[docCount];
+        long[] idLsb = new long[docCount];
+        long[] timestamps = new long[docCount];
+        int[] users = new int[docCount];
+        int[] lengths = new int[docCount];
+        long[] allKeys = new long[keyCount];
+        int docPosition = 0;
+        int keyPosition = 0;
+        for (IndexSegment segment : segments) {
+            System.arraycopy(segment.idMsb, 0, idMsb, docPosition, segment.docCount);
+            System.arraycopy(segment.idLsb, 0, idLsb, docPosition, segment.docCount);
+            System.arraycopy(segment.timestamps, 0, timestamps, docPosition, segment.docCount);
+            System.arraycopy(segment.users, 0, users, docPosition, segment.docCount);
+            System.arraycopy(segment.lengths, 0, lengths, docPosition, segment.docCount);
+            System.arraycopy(segment.keys, 0, allKeys, keyPosition, segment.keys.length);
+            docPosition += segment.docCount;
+            keyPosition += segment.keys.length;
+        }
+
+        Arrays.sort(allKeys);
+        int unique = 0;
+        for (int i = 0; i < allKeys.length; i++) {
+            if (i == 0 || allKeys[i] != allKeys[i - 1]) {
+                allKeys[unique++] = allKeys[i];
+            }
+        }
+        long[] keys = Arrays.copyOf(allKeys, unique);
+        int[] offsets = new int[unique];
+        int[] counts = new int[unique];
+        // Segment sınırındaki farklar büyüyebilir; her kaynak liste için en fazla 5 byte pay
+        byte[] data = new byte[dataSize + 5 * keyCount];
+        int position = 0;
+        for (int k = 0; k < unique; k++) {
+            offsets[k] = position;
+            int last = first.docBase;
+            for (IndexSegment segment : segments) {
+                int index = segment.find(keys[k]);
+                if (index < 0) {
+                    continue;
+                }
+                Postings.Cursor cursor = segment.cursor(index);
+                while (cursor.next()) {
+                    position = Postings.writeVarint(data, position, cursor.doc() - last);
+                    position = Postings.writeVarint(data, position, cursor.frequency());
+                    last = cursor.doc();
+                    counts[k]++;
+                }
+            }
+        }
+        return new IndexSegment(first.docBase, docCount, idMsb, idLsb, timestamps, users, lengths,
+                keys, offsets, counts, Arrays.copyOf(data, position));
+    }
+
+    private static int[] ordered(Map<Integer, Integer> local) {
+        int[] globals = new int[local.size()];
+        local.forEach((global, index) -> globals[index] = global);
+        return globals;
+    }
+}
@@ -0,0 +1,237 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.yusufbatmaz.chatbot.config.AdmissionControlProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.config.UpstreamSchedulerProperties;
+
+/**
+ * Chat istekleri için kabul kontrolü (load shedding).
+ *
+ * Yeni bir isteğin ne zaman biteceği, içerideki istek sayısı ve son servis
+ * sürelerinden tahmin edilir: paralel slotlar doluysa istek önündekilerin
+ * bitmesini bekler. Tahmin isteğin süresini aşıyorsa istek daha upstream'e
+ * gitmeden reddedilir; böylece istemcinin zaten vazgeçeceği istekler için
+ * token harcanmaz ve Tomcat kuyruğu şişmez.
+ *
+ * Servis süresi tamamlanan isteklerin hareketli ortalamasıdır. Slotlar doluyken
+ * upstream yavaşlarsa tamamlanma gecikeceği için içerideki isteklerin ortalama
+ * yaşı da alt sınır olarak kullanılır; tahmin yavaşlamaya hemen tepki verir.
+ * Boş slot varken istek beklemeyeceği için takılmış tek bir istek yeni
+ * istekleri reddettirmez.
+ */
+@Component
+public class AdmissionController implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    // Son kararlardaki reddetme oranının hareketli ortalaması için ağırlık
+    private static final double SHED_RATIO_SMOOTHING = 0.05;
+
+    /**
+     * Reddetme nedeni.
+     */
+    public enum Reason {
+        /** Tahmini tamamlanma süresi isteğin süresini aşıyor */
+        QUEUE_DELAY,
+        /** Kabul edilmiş istek sayısı sınırda */
+        MAX_IN_FLIGHT
+    }
+
+    private final AdmissionControlProperties properties;
+    private final int concurrency;
+    private final long baseNanos = System.nanoTime();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // İçerideki isteklerin başlangıç zamanlarının toplamı (baseNanos'a göre); ortalama yaş için
+    private final AtomicLong inFlightStartSum = new AtomicLong();
+    // double değerler bit olarak tutulur
+    private final AtomicLong serviceTimeNanos;
+    private final AtomicLong shedRatio = new AtomicLong(Double.doubleToLongBits(0));
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final Map<Reason, LongAdder> rejected = new EnumMap<>(Reason.class);
+
+    public AdmissionController(AdmissionControlProperties properties, UpstreamSchedulerProperties upstreamProperties) {
+        this.properties = properties;
+        this.concurrency = Math.max(1, properties.getConcurrency() > 0
+                ? properties.getConcurrency() : upstreamProperties.getMaxConcurrency());
+        this.serviceTimeNanos = new AtomicLong(Double.doubleToLongBits(properties.getInitialServiceTime().toNanos()));
+        for (Reason reason : Reason.values()) {
+            rejected.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * İsteği kabul etmeye çalışır.
+     * @param deadline İsteğin tamamlanması gereken süre; null ise varsayılan
+     * @return Karar; kabul edildiyse {@link Decision#ticket()} iş bitince kapatılmalı
+     */
+    public Decision tryAdmit(Duration deadline) {
+        long deadlineNanos = effectiveDeadline(deadline).toNanos();
+        long now = System.nanoTime() - baseNanos;
+
+        // Önce yer ayrılır, reddedilirse geri alınır; eşzamanlı kararlar aynı boşluğu paylaşamaz
+        int position = inFlight.incrementAndGet();
+        long startSum = inFlightStartSum.addAndGet(now);
+        int ahead = position - 1;
+
+        Reason reason = null;
+        long estimatedNanos = estimateCompletion(ahead, now, startSum - now);
+        if (properties.getMaxInFlight() > 0 && position > properties.getMaxInFlight()) {
+            reason = Reason.MAX_IN_FLIGHT;
+        } else if (estimatedNanos > deadlineNanos) {
+            reason = Reason.QUEUE_DELAY;
+        }
+
+        if (reason != null) {
+            inFlight.decrementAndGet();
+            inFlightStartSum.addAndGet(-now);
+            rejected.get(reason).increment();
+            updateShedRatio(1);
+            long retryAfter = retryAfterSeconds(estimatedNanos - deadlineNanos);
+            logger.debug("İstek reddedildi - Neden: {}, Tahmini süre: {} ms, İçeride: {}",
+                    reason, estimatedNanos / 1_000_000, ahead);
+            return new Decision(null, reason, retryAfter, estimatedNanos);
+        }
+
+        admitted.increment();
+        updateShedRatio(0);
+        return new Decision(new Ticket(now), null, 0, estimatedNanos);
+    }
+
+    /**
+     * Önünde "ahead" istek varken yeni bir isteğin tahmini tamamlanma süresi.
+     */
+    private long estimateCompletion(int ahead, long now, long othersStartSum) {
+        double serviceTime = Double.longBitsToDouble(serviceTimeNanos.get());
+        if (ahead < concurrency) {
+            // Boş slot var: istek beklemeden işlenir
+            return (long) serviceTime;
+        }
+        // Slotlar dolu: tamamlanmamış isteklerin ortalama yaşı servis süresi için alt sınırdır
+        double meanAge = now - (double) othersStartSum / ahead;
+        serviceTime = Math.max(serviceTime, meanAge);
+        // İstek, önündekilerin ayrıldığı her "tur" kadar bekler
+        double waitRounds = (double) (ahead - concurrency + 1) / concurrency;
+        return (long) (serviceTime * (1 + waitRounds));
+    }
+
+    private Duration effectiveDeadline(Duration requested) {
+        Duration max = properties.getDeadline();
+        if (requested == null || requested.compareTo(max) > 0) {
+            return max;
+        }
+        return requested.compareTo(properties.getMinDeadline()) < 0 ? properties.getMinDeadline() : requested;
+    }
+
+    private long retryAfterSeconds(long excessNanos) {
+        long seconds = (Math.max(0, excessNanos) + 999_999_999L) / 1_000_000_000L;
+        return Math.min(Math.max(1, seconds), Math.max(1, properties.getMaxRetryAfter().toSeconds()));
+    }
+
+    private void complete(long startNanos, boolean success) {
+        inFlight.decrementAndGet();
+        inFlightStartSum.addAndGet(-startNanos);
+        completed.increment();
+        if (success) {
+            double sample = System.nanoTime() - baseNanos - startNanos;
+            updateAverage(serviceTimeNanos, sample, properties.getSmoothing());
+        }
+    }
+
+    private void updateShedRatio(double sample) {
+        updateAverage(shedRatio, sample, SHED_RATIO_SMOOTHING);
+    }
+
+    private static void updateAverage(AtomicLong average, double sample, double weight) {
+        long current;
+        long next;
+        do {
+            current = average.get();
+            double value = Double.longBitsToDouble(current);
+            next = Double.doubleToLongBits(value + weight * (sample - value));
+        } while (!average.compareAndSet(current, next));
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "admissionControl";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long now = System.nanoTime() - baseNanos;
+        int current = inFlight.get();
+        long startSum = inFlightStartSum.get();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        metrics.put("concurrency", concurrency);
+        metrics.put("inFlight", current);
+        metrics.put("serviceTimeMillis", (long) Double.longBitsToDouble(serviceTimeNanos.get()) / 1_000_000);
+        metrics.put("meanInFlightAgeMillis", current > 0 ? (now - startSum / current) / 1_000_000 : 0);
+        metrics.put("estimatedCompletionMillis", estimateCompletion(current, now, startSum) / 1_000_000);
+        metrics.put("deadlineMillis", properties.getDeadline().toMillis());
+        metrics.put("admitted", admitted.sum());
+        metrics.put("completed", completed.sum());
+        Map<String, Long> rejectedByReason = new LinkedHashMap<>();
+        long totalRejected = 0;
+        for (Map.Entry<Reason, LongAdder> entry : rejected.entrySet()) {
+            long count = entry.getValue().sum();
+            rejectedByReason.put(entry.getKey().name(), count);
+            totalRejected += count;
+        }
+        metrics.put("rejected", totalRejected);
+        metrics.put("rejectedByReason", rejectedByReason);
+        metrics.put("recentShedRatio", Math.round(Double.longBitsToDouble(shedRatio.get()) * 1000) / 1000.0);
+        return metrics;
+    }
+
+    /**
+     * Kabul kararı.
+     *
+     * @param ticket Kabul edildiyse iş bitince kapatılacak bilet, reddedildiyse null
+     * @param reason Reddedildiyse neden
+     * @param retryAfterSeconds Reddedildiyse önerilen bekleme süresi
+     * @param estimatedNanos Tahmini tamamlanma süresi
+     */
+    public record Decision(Ticket ticket, Reason reason, long retryAfterSeconds, long estimatedNanos) {
+
+        public boolean admitted() {
+            return ticket != null;
+        }
+    }
+
+    /**
+     * Kabul edilmiş bir istek. İş bitince bir kez kapatılır; yalnızca başarılı
+     * istekler servis süresi ortalamasına katılır.
+     */
+    public final class Ticket {
+        private final long startNanos;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Ticket(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void complete(boolean success) {
+            if (closed.compareAndSet(false, true)) {
+                AdmissionController.this.complete(startNanos, success);
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yusufbatmaz.chatbot.archive.ArchivedChatEntry;
+import com.yusufbatmaz.chatbot.archive.ChatArchive;
+import com.yusufbatmaz.chatbot.compression.TextCompressor;
+import com.yusufbatmaz.chatbot.config.ChatExportProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.exception.TooManyRequestsException;
+import com.yusufbatmaz.chatbot.exception.ValidationException;
+
+/**
+ * Sohbet geçmişini NDJSON veya CSV olarak akış halinde dışa aktarır.
+ *
+ * Satırlar düz JDBC ile, fetch size'lı ileri yönlü bir cursor'dan okunur ve
+ * okundukça yazılır; persistence context'e hiçbir entity girmez. Bellek
+ * kullanımı satır sayısından bağımsızdır.
+ *
+ * Kullanıcı dışa aktarması veritabanındaki kayıtları yeniden eskiye yazar ve
+ * arşivlenmiş kayıtlarla ({@link ChatArchive}) aynı sırayla devam eder.
+ * Tüm kullanıcılar için dışa aktarma bir tarih aralığı ister, yalnızca
+ * veritabanını okur ve satırları partition sırasıyla (sıralamasız) yazar;
+ * arşivlenmiş kayıtlar sessizce eksik kalmasın diye saklama süresinden eski
+ * aralıklar reddedilir.
+ *
+ * CSV'de "=", "+", "-", "@" ile başlayan alanların başına "'" eklenir;
+ * dosya bir tablo programında açıldığında formül olarak çalışmazlar.
+ */
+@Service
+public class ChatExportService implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatExportService.class);
+
+    private static final String COLUMNS = "id, user_id, timestamp, question_category, user_message, bot_response";
+    private static final int ARCHIVE_PAGE_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ChatArchive chatArchive;
+    private final ObjectMapper objectMapper;
+    private final Semaphore exportPermits;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder exports = new LongAdder();
+    private final LongAdder rowsExported = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public ChatExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             ChatArchive chatArchive, ObjectMapper objectMapper, ChatExportProperties properties) {
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(properties.getFetchSize());
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.chatArchive = chatArchive;
+        this.objectMapper = objectMapper;
+        this.exportPermits = new Semaphore(Math.max(1, properties.getMaxConcurrentExports()));
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("format 'ndjson' veya 'csv' olmalıdır");
+            }
+        }
+    }
+
+    /**
+     * Dışa aktarmayı hazırlar. İzin hemen alınır (yoksa 429); dönen gövde
+     * yazılıp bittiğinde (veya istemci koptuğunda) bırakılır.
+     *
+     * @param userId Kullanıcı; null ise tüm kullanıcılar (from ve to zorunlu, from saklama süresi içinde)
+     * @param from Başlangıç zamanı (dahil); null ise sınırsız
+     * @param to Bitiş zamanı (hariç); null ise sınırsız
+     * @param format Çıktı formatı
+     * @param gzip Çıktı gzip ile sıkıştırılsın mı
+     */
+    public StreamingResponseBody export(UUID userId, LocalDateTime from, LocalDateTime to, Format format, boolean gzip) {
+        if (userId == null && (from == null || to == null)) {
+            throw new ValidationException("Tüm kullanıcılar için from ve to zorunludur");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ValidationException("from, to'dan önce olmalıdır");
+        }
+        LocalDateTime cutoff = chatArchive.retentionCutoff();
+        if (userId == null && cutoff != null && from.isBefore(cutoff)) {
+            throw new ValidationException("Tüm kullanıcılar için from en erken " + cutoff
+                    + " olabilir; daha eski kayıtlar arşivlenmiştir");
+        }
+        if (!exportPermits.tryAcquire()) {
+            throw new TooManyRequestsException("Şu anda çok fazla dışa aktarma çalışıyor. Lütfen daha sonra tekrar deneyin.", 30);
+        }
+        return out -> {
+            long started = System.nanoTime();
+            exports.increment();
+            active.incrementAndGet();
+            try {
+                OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+                try (RowWriter writer = format == Format.CSV ? new CsvRowWriter(target) : new JsonRowWriter(target)) {
+                    long rows = userId != null ? exportUser(userId, from, to, writer) : exportRange(from, to, writer);
+                    logger.info("Sohbet geçmişi dışa aktarıldı - Kullanıcı: {}, Satır: {}, Süre: {} ms",
+                            userId != null ? userId : "tümü", rows, (System.nanoTime() - started) / 1_000_000);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Çoğunlukla istemcinin bağlantıyı kapatması; cursor ve transaction kapanmıştır
+                failures.increment();
+                logger.warn("Dışa aktarma yarıda kaldı - Kullanıcı: {}, Hata: {}", userId, e.getMessage());
+                throw e;
+            } finally {
+                active.decrementAndGet();
+                exportPermits.release();
+            }
+        };
+    }
+
+    private long exportUser(UUID userId, LocalDateTime from, LocalDateTime to, RowWriter writer) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM chat_history WHERE user_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        appendRange(sql, args, from, to);
+        sql.append(" ORDER BY timestamp DESC, id DESC");
+        Object[] last = new Object[2];
+        long rows = query(sql.toString(), args, writer, (timestamp, id) -> {
+            last[0] = timestamp;
+            last[1] = id;
+        });
+
+        // Veritabanı bitti; aynı sırayla arşivden devam edilir
+        LocalDateTime beforeTimestamp = (LocalDateTime) last[0];
+        UUID beforeId = (UUID) last[1];
+        while (chatArchive.hasSegments()) {
+            List<ArchivedChatEntry> page = chatArchive.findOlder(userId, beforeTimestamp, beforeId, ARCHIVE_PAGE_SIZE, true);
+            for (ArchivedChatEntry entry : page) {
+                if (from != null && entry.getTimestamp().isBefore(from)) {
+                    return rows;
+                }
+                if (to == null || entry.getTimestamp().isBefore(to)) {
+                    writer.write(entry.getId(), userId, entry.getTimestamp(), entry.getQuestionCategory(),
+                            entry.getUserMessage(), entry.getBotResponse());
+                    rows++;
+                    rowsExported.increment();
+                }
+            }
+            if (page.size() < ARCHIVE_PAGE_SIZE) {
+                break;
+            }
+            ArchivedChatEntry oldest = page.get(page.size() - 1);
+            beforeTimestamp = oldest.getTimestamp();
+            beforeId = oldest.getId();
+        }
+        return rows;
+    }
+
+    private long exportRange(LocalDateTime from, LocalDateTime to, RowWriter writer) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM chat_history WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        appendRange(sql, args, from, to);
+        return query(sql.toString(), args, writer, (timestamp, id) -> {});
+    }
+
+    private static void appendRange(StringBuilder sql, List<Object> args, LocalDateTime from, LocalDateTime to) {
+        if (from != null) {
+            sql.append(" AND timestamp >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND timestamp < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+    }
+
+    /**
+     * Sorguyu read-only transaction içinde çalıştırır (Postgres cursor'ı yalnızca
+     * autocommit kapalıyken fetch size'a uyar) ve her satırı hemen yazar.
+     */
+    private long query(String sql, List<Object> args, RowWriter writer, RowListener listener) throws IOException {
+        long[] rows = new long[1];
+        try {
+            readOnlyTransactionTemplate.executeWithoutResult(status ->
+                    streamingTemplate.query(sql, (ResultSet rs) -> {
+                        UUID id = rs.getObject(1, UUID.class);
+                        LocalDateTime timestamp = rs.getTimestamp(3).toLocalDateTime();
+                        try {
+                            writer.write(id, rs.getObject(2, UUID.class), timestamp, rs.getString(4),
+                                    TextCompressor.decode(rs.getBytes(5)), TextCompressor.decode(rs.getBytes(6)));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        listener.onRow(timestamp, id);
+                        rows[0]++;
+                        rowsExported.increment();
+                    }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    @FunctionalInterface
+    private interface RowListener {
+        void onRow(LocalDateTime timestamp, UUID id);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "chatExport";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("exports", exports.sum());
+        metrics.put("active", active.get());
+        metrics.put("rowsExported", rowsExported.sum());
+        metrics.put("failures", failures.sum());
+        return metrics;
+    }
+
+    /**
+     * Tek bir sohbet kaydını çıktı formatına yazar.
+     */
+    private interface RowWriter extends AutoCloseable {
+        void write(UUID id, UUID userId, LocalDateTime timestamp, String questionCategory,
+                   String userMessage, String botResponse) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Her satıra bir JSON nesnesi; ara nesne oluşturmadan doğrudan akışa yazar.
+     */
+    private final class JsonRowWriter implements RowWriter {
+        private final OutputStream out;
+        private final JsonGenerator generator;
+
+        private JsonRowWriter(OutputStream out) throws IOException {
+            this.out = out;
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(UUID id, UUID userId, LocalDateTime timestamp, String questionCategory,
+                          String userMessage, String botResponse) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("id", id.toString());
+            generator.writeStringField("userId", userId.toString());
+            generator.writeStringField("timestamp", timestamp.toString());
+            generator.writeStringField("questionCategory", questionCategory);
+            generator.writeStringField("userMessage", userMessage);
+            generator.writeStringField("botResponse", botResponse);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+            out.close();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV; başlık satırıyla başlar.
+     */
+    private static final class CsvRowWriter implements RowWriter {
+        private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            this.writer.write("id,userId,timestamp,questionCategory,userMessage,botResponse\r\n");
+        }
+
+        @Override
+        public void write(UUID id, UUID userId, LocalDateTime timestamp, String questionCategory,
+                          String userMessage, String botResponse) throws IOException {
+            writer.write(id.toString());
+            writer.write(',');
+            writer.write(userId.toString());
+            writer.write(',');
+            writer.write(timestamp.toString());
+            writer.write(',');
+            writeField(questionCategory);
+            writer.write(',');
+            writeField(userMessage);
+            writer.write(',');
+            writeField(botResponse);
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+                // Kullanıcı metni tablo programında formül olarak çalışmasın
+                value = "'" + value;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
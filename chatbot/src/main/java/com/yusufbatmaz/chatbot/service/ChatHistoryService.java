@@ -0,0 +1,146 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.yusufbatmaz.chatbot.archive.ArchivedChatEntry;
+import com.yusufbatmaz.chatbot.archive.ChatArchive;
+import com.yusufbatmaz.chatbot.exception.ValidationException;
+import com.yusufbatmaz.chatbot.model.ChatHistoryPage;
+import com.yusufbatmaz.chatbot.model.ChatHistorySummary;
+import com.yusufbatmaz.chatbot.model.ChatHistoryText;
+import com.yusufbatmaz.chatbot.repository.ChatHistoryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sohbet geçmişini (timestamp, id) üzerinden keyset sayfalama ile döner.
+ *
+ * Cursor, son görülen kaydın (timestamp, id) değerinin base64url kodlanmış
+ * halidir. OFFSET kullanılmadığı için her sayfa indeksten doğrudan okunur.
+ * Veritabanındaki kayıtlar bitince sayfa arşivlenmiş segmentlerden
+ * ({@link ChatArchive}) aynı sırayla tamamlanır.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChatHistoryService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+    private static final Sort OLDEST_FIRST = Sort.by(Sort.Order.asc("timestamp"), Sort.Order.asc("id"));
+
+    private final ChatHistoryRepository chatHistoryRepository;
+    private final ChatArchive chatArchive;
+
+    /**
+     * Geçmişi yeniden eskiye sayfalar.
+     *
+     * @param userId Kullanıcı ID'si
+     * @param cursor Önceki sayfanın nextCursor değeri; ilk sayfa için null
+     * @param limit Sayfa boyutu (1-{@value #MAX_LIMIT})
+     * @param includeText Mesaj metinleri de dönülsün mü
+     */
+    @Transactional(readOnly = true)
+    public ChatHistoryPage getPage(UUID userId, String cursor, int limit, boolean includeText) {
+        Key key = cursor == null ? null : decode(cursor);
+        ScrollPosition position = key == null ? ScrollPosition.keyset() : key.toPosition();
+        Window<? extends ChatHistorySummary> window = chatHistoryRepository.findByUser_Id(
+                userId, position, NEWEST_FIRST, Limit.of(checkLimit(limit)), projection(includeText));
+
+        List<ChatHistorySummary> items = new ArrayList<>(window.getContent());
+        boolean hasMore = window.hasNext();
+        if (!hasMore && chatArchive.hasSegments()) {
+            // Veritabanı bitti; kalan kısım arşivden, son görülen konumdan devam eder
+            ChatHistorySummary last = items.isEmpty() ? null : items.get(items.size() - 1);
+            LocalDateTime beforeTimestamp = last != null ? last.getTimestamp() : key != null ? key.timestamp() : null;
+            UUID beforeId = last != null ? last.getId() : key != null ? key.id() : null;
+            int remaining = limit - items.size();
+            List<ArchivedChatEntry> archived = chatArchive.findOlder(userId, beforeTimestamp, beforeId,
+                    remaining + 1, includeText);
+            hasMore = archived.size() > remaining;
+            items.addAll(hasMore ? archived.subList(0, remaining) : archived);
+        }
+
+        String nextCursor = hasMore ? encode(items.get(items.size() - 1)) : null;
+        // İlk sayfanın en yeni kaydı, istemcinin sonraki since isteğinin başlangıcıdır
+        String syncCursor = cursor == null && !items.isEmpty() ? encode(items.get(0)) : null;
+        return new ChatHistoryPage(items, nextCursor, syncCursor, hasMore);
+    }
+
+    /**
+     * Verilen konumdan sonra eklenen kayıtları eskiden yeniye döner (istemci senkronizasyonu).
+     *
+     * @param userId Kullanıcı ID'si
+     * @param since Önceki cevabın syncCursor değeri
+     * @param limit Sayfa boyutu (1-{@value #MAX_LIMIT})
+     * @param includeText Mesaj metinleri de dönülsün mü
+     */
+    @Transactional(readOnly = true)
+    public ChatHistoryPage getSince(UUID userId, String since, int limit, boolean includeText) {
+        Window<? extends ChatHistorySummary> window = chatHistoryRepository.findByUser_Id(
+                userId, decode(since).toPosition(), OLDEST_FIRST, Limit.of(checkLimit(limit)), projection(includeText));
+
+        List<? extends ChatHistorySummary> items = window.getContent();
+        String syncCursor = items.isEmpty() ? since : encode(items.get(items.size() - 1));
+        return new ChatHistoryPage(items, window.hasNext() ? syncCursor : null, syncCursor, window.hasNext());
+    }
+
+    private static Class<? extends ChatHistorySummary> projection(boolean includeText) {
+        return includeText ? ChatHistoryText.class : ChatHistorySummary.class;
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("limit 1 ile " + MAX_LIMIT + " arasında olmalıdır");
+        }
+        return limit;
+    }
+
+    static String encode(ChatHistorySummary entry) {
+        String raw = entry.getTimestamp() + "|" + entry.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Key decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new Key(LocalDateTime.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Geçersiz cursor");
+        }
+    }
+
+    /**
+     * Cursor'daki (timestamp, id) konumu.
+     */
+    record Key(LocalDateTime timestamp, UUID id) {
+
+        KeysetScrollPosition toPosition() {
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("timestamp", timestamp);
+            keys.put("id", id);
+            return ScrollPosition.forward(keys);
+        }
+    }
+}
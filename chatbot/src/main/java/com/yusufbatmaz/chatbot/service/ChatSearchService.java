@@ -0,0 +1,425 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.yusufbatmaz.chatbot.compression.TextCompressor;
+import com.yusufbatmaz.chatbot.config.ChatSearchProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.exception.ServiceUnavailableException;
+import com.yusufbatmaz.chatbot.exception.ValidationException;
+import com.yusufbatmaz.chatbot.model.ChatHistory;
+import com.yusufbatmaz.chatbot.model.ChatHistorySummary;
+import com.yusufbatmaz.chatbot.model.ChatHistoryText;
+import com.yusufbatmaz.chatbot.model.ChatSearchResult;
+import com.yusufbatmaz.chatbot.repository.ChatHistoryRepository;
+import com.yusufbatmaz.chatbot.search.SearchHit;
+import com.yusufbatmaz.chatbot.search.SearchIndex;
+
+/**
+ * Sohbet geçmişinde tam metin arama.
+ *
+ * Kaydedilen her sohbet turu commit sonrası kuyruğa eklenir ve tek bir
+ * indeksleme thread'i tarafından {@link SearchIndex}'e işlenir; chat isteği
+ * indekslemeyi beklemez. Açılışta diskteki indeks yüklenir ve son yazılan
+ * konumdan sonraki kayıtlar veritabanından tamamlanır (indeks yoksa tüm
+ * tablo indekslenir). Bu sırada arama 503 döner.
+ *
+ * Birden fazla node aynı veritabanını kullandığında diğer node'ların
+ * kaydettiği turlar bu node'un kuyruğuna hiç girmez; indeksleme thread'i
+ * bu yüzden {@code catchUpInterval} aralığıyla veritabanını son okunan
+ * konumdan (aynı geriye dönük payla) tekrar tarar.
+ *
+ * Sonuçlar veritabanından okunarak döner; silinmiş veya arşivlenmiş
+ * kayıtlar sonuçlarda yer almaz.
+ */
+@Service
+@DependsOn("schemaMigrator")
+public class ChatSearchService implements MetricsSource, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSearchService.class);
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+    private static final int MAX_QUERY_LENGTH = 500;
+
+    // Geç commit olan (timestamp'i watermark'tan eski) kayıtları kaçırmamak için geriye dönük pay
+    private static final long CATCH_UP_SLACK_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ChatHistoryRepository chatHistoryRepository;
+    private final LanguageDetectionService languageDetectionService;
+    private final ChatSearchProperties properties;
+    private final SearchIndex index;
+    private final BlockingQueue<Document> queue;
+
+    private final LongAdder indexed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder catchUps = new LongAdder();
+    private final LongAdder caughtUp = new LongAdder();
+
+    private volatile boolean ready;
+    private volatile boolean running;
+    private Thread indexer;
+
+    // Yalnızca indeksleme thread'i kullanır: veritabanından okunan en yeni kaydın zamanı
+    // ve son taramada eklenen kayıtlar (kuyruktan tekrar gelirlerse atlanır)
+    private long syncedUntil = Long.MIN_VALUE;
+    private Set<UUID> lastCaughtUp = Set.of();
+
+    public ChatSearchService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             ChatHistoryRepository chatHistoryRepository,
+                             LanguageDetectionService languageDetectionService, ChatSearchProperties properties) {
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(1000);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.chatHistoryRepository = chatHistoryRepository;
+        this.languageDetectionService = languageDetectionService;
+        this.properties = properties;
+        this.index = new SearchIndex(Path.of(properties.getDirectory()));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        indexer = new Thread(this::run, "chat-search-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    /**
+     * Kaydedilen sohbet turunu commit sonrası (transaction yoksa hemen) indeksleme kuyruğuna ekler.
+     */
+    public void onSaved(ChatHistory history) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Document document = new Document(history.getId(), history.getUser().getId(), toMicros(history.getTimestamp()),
+                history.getUserMessage(), history.getBotResponse());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(document);
+                }
+            });
+        } else {
+            offer(document);
+        }
+    }
+
+    private void offer(Document document) {
+        if (!queue.offer(document)) {
+            // Kayıt veritabanında kalır; bir sonraki veritabanı taramasında indekslenir
+            dropped.increment();
+            logger.warn("Arama indeksleme kuyruğu dolu, kayıt atlandı: {}", document.id());
+        }
+    }
+
+    /**
+     * Sohbet geçmişinde arama yapar.
+     *
+     * @param userId Arama kapsamı; null ise tüm kullanıcılar ({@link SupportAccessService} ile doğrulanmış olmalı)
+     * @param query Arama metni
+     * @param limit Maksimum sonuç sayısı (1-{@value #MAX_LIMIT})
+     * @param includeText Mesaj metinleri de dönülsün mü
+     * @return Skora göre azalan sonuçlar
+     */
+    public List<ChatSearchResult> search(UUID userId, String query, int limit, boolean includeText) {
+        if (!properties.isEnabled()) {
+            throw new ServiceUnavailableException("Sohbet araması kapalı", 3600);
+        }
+        if (!ready) {
+            throw new ServiceUnavailableException("Arama indeksi hazırlanıyor", 10);
+        }
+        if (query == null || query.length() > MAX_QUERY_LENGTH) {
+            throw new ValidationException("Arama metni en fazla " + MAX_QUERY_LENGTH + " karakter olmalıdır");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("limit 1 ile " + MAX_LIMIT + " arasında olmalıdır");
+        }
+        List<String> terms = languageDetectionService.tokenize(query);
+        if (terms.isEmpty()) {
+            throw new ValidationException("Arama metni en az bir kelime içermelidir");
+        }
+        searches.increment();
+
+        List<SearchHit> hits = index.search(userId, terms, limit);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Class<? extends ChatHistorySummary> type = includeText ? ChatHistoryText.class : ChatHistorySummary.class;
+        Map<UUID, ? extends ChatHistorySummary> rows = chatHistoryRepository
+                .findByIdIn(hits.stream().map(SearchHit::id).toList(), type).stream()
+                .collect(Collectors.toMap(ChatHistorySummary::getId, Function.identity()));
+
+        List<ChatSearchResult> results = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) {
+            ChatHistorySummary row = rows.get(hit.id());
+            if (row == null) {
+                continue;
+            }
+            ChatHistoryText text = includeText ? (ChatHistoryText) row : null;
+            results.add(new ChatSearchResult(row.getId(), hit.userId(), row.getTimestamp(), row.getQuestionCategory(),
+                    hit.score(), text != null ? text.getUserMessage() : null, text != null ? text.getBotResponse() : null));
+        }
+        return results;
+    }
+
+    private void run() {
+        while (running && !ready) {
+            try {
+                catchUp();
+                ready = true;
+            } catch (Exception e) {
+                failures.increment();
+                logger.error("Arama indeksi hazırlanamadı, {} ms sonra tekrar denenecek", RETRY_DELAY_MILLIS, e);
+                sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+
+        // Yükleme sırasında kuyruğa girmiş kayıtlar yüklemede de okunmuş olabilir
+        Set<UUID> recent = index.watermark() == Long.MIN_VALUE
+                ? Set.of() : index.idsSince(index.watermark() - CATCH_UP_SLACK_MICROS);
+        int duplicateWindow = queue.size();
+        long catchUpNanos = properties.getCatchUpInterval().toNanos();
+        long lastFlush = System.nanoTime();
+        long lastCatchUp = System.nanoTime();
+        while (running) {
+            try {
+                Document document = queue.poll(1, TimeUnit.SECONDS);
+                if (document != null) {
+                    if (duplicateWindow > 0) {
+                        duplicateWindow--;
+                        if (recent.contains(document.id())) {
+                            continue;
+                        }
+                    }
+                    if (lastCaughtUp.contains(document.id())) {
+                        continue;
+                    }
+                    add(document.id(), document.userId(), document.timestampMicros(),
+                            document.userMessage(), document.botResponse());
+                }
+                if (catchUpNanos > 0 && System.nanoTime() - lastCatchUp >= catchUpNanos) {
+                    lastCatchUp = System.nanoTime();
+                    periodicCatchUp();
+                    lastFlush = System.nanoTime();
+                } else if (index.pendingDocs() >= properties.getFlushDocs()
+                        || System.nanoTime() - lastFlush >= properties.getFlushInterval().toNanos()) {
+                    flushAndMerge();
+                    lastFlush = System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                failures.increment();
+                logger.error("Arama indeksi güncellenemedi", e);
+            }
+        }
+    }
+
+    /**
+     * Diskteki indeksi yükler ve sonrasında eklenen kayıtları veritabanından tamamlar.
+     */
+    private void catchUp() throws IOException {
+        long started = System.nanoTime();
+        int loaded;
+        try {
+            loaded = index.load();
+        } catch (IOException e) {
+            logger.warn("Arama indeksi okunamadı, yeniden oluşturulacak: {}", e.getMessage());
+            index.clear();
+            loaded = 0;
+        }
+
+        syncedUntil = index.watermark();
+        long added = readFromDatabase(null);
+        logger.info("Arama indeksi hazır: {} kayıt diskten yüklendi, {} kayıt veritabanından eklendi ({} ms)",
+                loaded, added, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Son taramadan sonra (başka node'larda da) kaydedilen turları indekse ekler.
+     */
+    private void periodicCatchUp() throws IOException {
+        Set<UUID> addedIds = new HashSet<>();
+        long added = readFromDatabase(addedIds);
+        lastCaughtUp = addedIds;
+        catchUps.increment();
+        caughtUp.add(added);
+        if (added > 0) {
+            logger.debug("Arama indeksine veritabanından {} kayıt eklendi", added);
+        }
+    }
+
+    /**
+     * {@code syncedUntil}'den (geriye dönük payla) sonraki kayıtları veritabanından okur,
+     * indekste olmayanları ekler ve indeksi diske yazar.
+     * @param addedIds null değilse eklenen kayıtların ID'leri buraya yazılır
+     * @return Eklenen kayıt sayısı
+     */
+    private long readFromDatabase(Set<UUID> addedIds) throws IOException {
+        long from = syncedUntil == Long.MIN_VALUE ? Long.MIN_VALUE : syncedUntil - CATCH_UP_SLACK_MICROS;
+        Set<UUID> existing = from == Long.MIN_VALUE ? Set.of() : index.idsSince(from);
+        long[] added = new long[1];
+        long[] newest = {syncedUntil};
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            String sql = "SELECT id, user_id, timestamp, user_message, bot_response FROM chat_history";
+            Object[] args = {};
+            if (from != Long.MIN_VALUE) {
+                sql += " WHERE timestamp >= ?";
+                args = new Object[] {Timestamp.valueOf(fromMicros(from))};
+            }
+            streamingTemplate.query(sql + " ORDER BY timestamp, id", rs -> {
+                UUID id = rs.getObject(1, UUID.class);
+                long timestampMicros = toMicros(rs.getTimestamp(3).toLocalDateTime());
+                newest[0] = Math.max(newest[0], timestampMicros);
+                if (existing.contains(id)) {
+                    return;
+                }
+                add(id, rs.getObject(2, UUID.class), timestampMicros,
+                        TextCompressor.decode(rs.getBytes(4)), TextCompressor.decode(rs.getBytes(5)));
+                added[0]++;
+                if (addedIds != null) {
+                    addedIds.add(id);
+                }
+                if (index.pendingDocs() >= properties.getFlushDocs()) {
+                    try {
+                        flushAndMerge();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }, args);
+        });
+        flushAndMerge();
+        syncedUntil = newest[0];
+        return added[0];
+    }
+
+    private void add(UUID id, UUID userId, long timestampMicros, String userMessage, String botResponse) {
+        List<String> tokens = new ArrayList<>(languageDetectionService.tokenize(userMessage));
+        tokens.addAll(languageDetectionService.tokenize(botResponse));
+        index.add(id, userId, timestampMicros, tokens);
+        indexed.increment();
+    }
+
+    private void flushAndMerge() throws IOException {
+        if (index.flush()) {
+            flushes.increment();
+        }
+        merges.add(index.merge(properties.getMaxSegments()));
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (indexer == null) {
+            return;
+        }
+        // Dosya yazımı yarıda kesilmesin diye interrupt edilmez; döngü en geç poll süresi sonunda çıkar
+        indexer.join(TimeUnit.SECONDS.toMillis(10));
+        if (ready && !indexer.isAlive()) {
+            try {
+                Document document;
+                while ((document = queue.poll()) != null) {
+                    add(document.id(), document.userId(), document.timestampMicros(),
+                            document.userMessage(), document.botResponse());
+                }
+                flushAndMerge();
+            } catch (IOException e) {
+                logger.warn("Arama indeksi kapanışta yazılamadı: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "chatSearch";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        metrics.put("ready", ready);
+        metrics.put("queued", queue.size());
+        metrics.put("indexed", indexed.sum());
+        metrics.put("dropped", dropped.sum());
+        metrics.put("searches", searches.sum());
+        metrics.put("flushes", flushes.sum());
+        metrics.put("merges", merges.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("catchUps", catchUps.sum());
+        metrics.put("caughtUp", caughtUp.sum());
+        metrics.put("index", index.statistics());
+        return metrics;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * İndekslenmeyi bekleyen sohbet turu.
+     */
+    private record Document(UUID id, UUID userId, long timestampMicros, String userMessage, String botResponse) {
+    }
+}
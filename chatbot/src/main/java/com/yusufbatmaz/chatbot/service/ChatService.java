@@ -5,21 +5,32 @@ import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yusufbatmaz.chatbot.config.ApiConfig;
 import com.yusufbatmaz.chatbot.exception.DatabaseException;
+import com.yusufbatmaz.chatbot.exception.ServiceUnavailableException;
+import com.yusufbatmaz.chatbot.exception.TooManyRequestsException;
 import com.yusufbatmaz.chatbot.exception.ValidationException;
 import com.yusufbatmaz.chatbot.model.ChatHistory;
 import com.yusufbatmaz.chatbot.model.ChatMessage;
@@ -37,9 +48,23 @@ public class ChatService {
 
     // Logging için SLF4J logger kullanıyoruz
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
+
+    private static final String MODEL = "deepseek/deepseek-chat-v3-0324:free";
+    private static final int MAX_RESPONSE_LENGTH = 2000;
+    private static final String TRUNCATION_SUFFIX = "...";
+    private static final String STREAM_DONE = "[DONE]";
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
     private final ChatHistoryRepository chatHistoryRepository;
     private final LanguageDetectionService languageDetectionService;
     private final UserProfileService userProfileService;
+    private final UpstreamScheduler upstreamScheduler;
+    private final ConversationBuffer conversationBuffer;
+    private final ChatSearchService chatSearchService;
+    private final LocalResponder localResponder;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
 
     // OpenRouter API'ye istek atmak için WebClient nesnesi
     private final WebClient webClient;
@@ -50,10 +75,22 @@ public class ChatService {
     public ChatService(ChatHistoryRepository chatHistoryRepository, 
                       LanguageDetectionService languageDetectionService,
                       UserProfileService userProfileService,
+                      UpstreamScheduler upstreamScheduler,
+                      ConversationBuffer conversationBuffer,
+                      ChatSearchService chatSearchService,
+                      LocalResponder localResponder,
+                      ObjectMapper objectMapper,
+                      PlatformTransactionManager transactionManager,
                       ApiConfig apiConfig) {
         this.chatHistoryRepository = chatHistoryRepository;
         this.languageDetectionService = languageDetectionService;
         this.userProfileService = userProfileService;
+        this.upstreamScheduler = upstreamScheduler;
+        this.conversationBuffer = conversationBuffer;
+        this.chatSearchService = chatSearchService;
+        this.localResponder = localResponder;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         
         // WebClient'ı configuration'dan gelen değerlerle oluşturuyoruz
         this.webClient = WebClient.builder()
@@ -69,51 +106,30 @@ public class ChatService {
     /**
      * Kullanıcıdan gelen mesajı OpenRouter API'ye gönderir, cevabı alır,
      * kategorisini belirler ve veritabanına kaydeder.
+     *
+     * Slot beklemesi ve API çağrısı transaction dışında yapılır; veritabanı
+     * bağlantısı yalnızca kaydın yapıldığı kısa transaction boyunca tutulur.
      * @param chatMessage Kullanıcının mesajı
      * @param user Mesajı gönderen kullanıcı
      * @return Yapay zekadan gelen cevap
      */
-    @Transactional
     public String ask(ChatMessage chatMessage, User user) {
         try {
-            // Input validasyonu - gelen parametrelerin geçerliliğini kontrol ediyoruz
-            validateChatRequest(chatMessage, user);
-            
-            String userMessage = chatMessage.getMessage();
-            logger.info("Chat isteği alındı - Kullanıcı: {}, Mesaj: {}", user.getEmail(), userMessage);
-
-            // Kullanıcı profil bilgilerini al
-            String userPreferredLanguage = userProfileService.getResponseLanguage(user.getId());
-            String detectedLanguage = languageDetectionService.detectLanguage(userMessage);
-            String responseLanguage = languageDetectionService.determineResponseLanguage(
-                userMessage, userPreferredLanguage, null);
-
-            // Dil seçimleri için debug logları
-            logger.debug("Language - preferred: {}, detected: {}, response: {}",
-                    userPreferredLanguage, detectedLanguage, responseLanguage);
-            
-            // Kullanıcının ana dilini güncelle (ilk kez tespit ediliyorsa)
-            if (userProfileService.getUserProfile(user.getId()).getNativeLanguage() == null) {
-                userProfileService.updateNativeLanguage(user.getId(), detectedLanguage);
+            PreparedChat chat = prepare(chatMessage, user);
+            if (chat.localResponse() != null) {
+                transactionTemplate.executeWithoutResult(status -> complete(chat, user, chat.localResponse(), true));
+                return chat.localResponse();
             }
             
-            // ChatBot için sistem mesajı oluştur
-            String systemMessage = createSystemMessage(user.getId(), responseLanguage);
-            
             // OpenRouter API'ye gönderilecek istek gövdesi
-            String directiveUser = buildDirectiveUserMessage(responseLanguage);
-            Map<String, Object> requestBody = Map.of(
-                    "model", "deepseek/deepseek-chat-v3-0324:free",
-                    "messages", List.of(
-                            Map.of("role", "system", "content", systemMessage),
-                            // Dil politikası için ek kullanıcı talimatı (uyumluluğu artırır)
-                            Map.of("role", "user", "content", directiveUser),
-                            Map.of("role", "user", "content", userMessage)));
+            Map<String, Object> requestBody = buildRequestBody(user.getId(), chat, false);
 
             logger.info("OpenRouter API'ye istek gönderiliyor...");
             logger.debug("Request body: {}", requestBody);
             
             Map<String, Object> response;
+            // Upstream slotu kullanıcılar arasında adil sırayla alınır; alınamazsa hata yukarı iletilir
+            UpstreamScheduler.Permit permit = upstreamScheduler.acquire(user.getId().toString());
             try {
                 // API'ye POST isteği gönder ve cevabı al
                 response = webClient.post()
@@ -134,6 +150,8 @@ public class ChatService {
                 // Diğer API çağrısı hataları
                 logger.error("API çağrısı sırasında hata oluştu: {}", e.getMessage(), e);
                 return "API çağrısı sırasında hata oluştu. Lütfen daha sonra tekrar deneyin.";
+            } finally {
+                permit.close();
             }
 
             logger.debug("OpenRouter cevabı: {}", response);
@@ -162,18 +180,14 @@ public class ChatService {
             String botResponse = (String) messageResponse.get("content");
 
             // Bot response'unu 2000 karakterle sınırla
-            if (botResponse.length() > 2000) {
-                botResponse = botResponse.substring(0, 1997) + "...";
+            if (botResponse.length() > MAX_RESPONSE_LENGTH) {
+                botResponse = botResponse.substring(0, MAX_RESPONSE_LENGTH - TRUNCATION_SUFFIX.length()) + TRUNCATION_SUFFIX;
                 logger.info("Bot response 2000 karakterle sınırlandı");
             }
 
-            // Soru kategorisini belirle
-            String questionCategory = determineQuestionCategory(userMessage);
-
             // Mesaj geçmişini veritabanına kaydet
-            saveChatHistory(userMessage, botResponse, user, questionCategory);
-
-            logger.info("Chat işlemi başarıyla tamamlandı - Kullanıcı: {}, Kategori: {}", user.getEmail(), questionCategory);
+            String answer = botResponse;
+            transactionTemplate.executeWithoutResult(status -> complete(chat, user, answer, false));
             return botResponse;
 
         } catch (ValidationException e) {
@@ -181,6 +195,10 @@ public class ChatService {
             logger.warn("Chat isteği validasyon hatası: {}", e.getMessage());
             throw e;
             
+        } catch (ServiceUnavailableException | TooManyRequestsException e) {
+            // Upstream kapasitesi dolu - Retry-After ile istemciye iletilir
+            throw e;
+            
         } catch (Exception e) {
             // Diğer tüm beklenmeyen hatalar
             logger.error("Chat işlemi sırasında beklenmeyen hata", e);
@@ -188,6 +206,141 @@ public class ChatService {
         }
     }
 
+    /**
+     * {@link #ask} ile aynı akış; cevap OpenRouter'dan parça parça (stream) alınır ve
+     * her parça geldiği anda onToken'a iletilir. WebSocket kanalı bunu kullanır.
+     *
+     * Akış transaction dışında okunur; uzun akışlar veritabanı bağlantısı tutmasın
+     * diye yalnızca kayıt kısa bir transaction'da yapılır. İptal edilen akış kaydedilmez.
+     *
+     * @param chatMessage Kullanıcının mesajı
+     * @param user Mesajı gönderen kullanıcı
+     * @param onToken Her cevap parçası için çağıran thread'de çağrılır
+     * @param cancelled Akış iptal edildiyse true döner
+     * @return Tam bot cevabı; iptal edildiyse null
+     */
+    public String askStreaming(ChatMessage chatMessage, User user, Consumer<String> onToken, BooleanSupplier cancelled) {
+        PreparedChat chat = prepare(chatMessage, user);
+        if (chat.localResponse() != null) {
+            onToken.accept(chat.localResponse());
+            transactionTemplate.executeWithoutResult(status -> complete(chat, user, chat.localResponse(), true));
+            return chat.localResponse();
+        }
+
+        Map<String, Object> requestBody = buildRequestBody(user.getId(), chat, true);
+        StreamedAnswer answer = new StreamedAnswer(onToken);
+        // Upstream slotu kullanıcılar arasında adil sırayla alınır; akış bitene kadar tutulur
+        UpstreamScheduler.Permit permit = upstreamScheduler.acquire(user.getId().toString());
+        try {
+            webClient.post()
+                    .uri("/chat/completions")
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToFlux(SSE_TYPE)
+                    .mapNotNull(ServerSentEvent::data)
+                    .takeWhile(data -> !STREAM_DONE.equals(data) && !answer.truncated && !cancelled.getAsBoolean())
+                    .mapNotNull(this::parseStreamDelta)
+                    .doOnNext(answer::append)
+                    .blockLast();
+        } catch (Exception e) {
+            logger.error("OpenRouter akışı sırasında hata oluştu: {}", e.getMessage(), e);
+            throw new ResourceAccessException("AI servisi şu anda kullanılamıyor. Lütfen daha sonra tekrar deneyin.");
+        } finally {
+            permit.close();
+        }
+
+        if (cancelled.getAsBoolean()) {
+            logger.info("Chat akışı iptal edildi - Kullanıcı: {}", user.getId());
+            return null;
+        }
+        if (answer.isEmpty()) {
+            logger.warn("OpenRouter'dan boş akış alındı");
+            String message = "Yapay zekadan boş yanıt döndü. Lütfen daha sonra tekrar deneyin.";
+            onToken.accept(message);
+            return message;
+        }
+
+        String botResponse = answer.finish();
+        transactionTemplate.executeWithoutResult(status -> complete(chat, user, botResponse, false));
+        return botResponse;
+    }
+
+    /**
+     * Validasyon, dil tespiti ve kategori belirleme; kısa mesajlar için yerel cevabı da hazırlar.
+     */
+    private PreparedChat prepare(ChatMessage chatMessage, User user) {
+        // Input validasyonu - gelen parametrelerin geçerliliğini kontrol ediyoruz
+        validateChatRequest(chatMessage, user);
+        
+        String userMessage = chatMessage.getMessage();
+        logger.info("Chat isteği alındı - Kullanıcı: {}, Mesaj uzunluğu: {}", user.getId(), userMessage.length());
+
+        // Kullanıcı profil bilgilerini al
+        String userPreferredLanguage = userProfileService.getResponseLanguage(user.getId());
+        String detectedLanguage = languageDetectionService.detectLanguage(userMessage);
+        String responseLanguage = languageDetectionService.determineResponseLanguage(
+            userMessage, userPreferredLanguage, null);
+
+        // Dil seçimleri için debug logları
+        logger.debug("Language - preferred: {}, detected: {}, response: {}",
+                userPreferredLanguage, detectedLanguage, responseLanguage);
+        
+        // Kullanıcının ana dilini güncelle (ilk kez tespit ediliyorsa); yazma toplu ve asenkron
+        userProfileService.updateNativeLanguage(user.getId(), detectedLanguage);
+
+        // Soru kategorisini belirle
+        String questionCategory = determineQuestionCategory(userMessage);
+
+        // Kısa selamlama/teşekkür mesajları LLM'e gitmeden şablonla cevaplanır
+        Optional<String> localResponse = localResponder.answer(userMessage, questionCategory, responseLanguage,
+                () -> userProfileService.getNickname(user.getId()));
+        return new PreparedChat(userMessage, questionCategory, responseLanguage, localResponse.orElse(null));
+    }
+
+    /**
+     * OpenRouter'a gönderilecek istek gövdesini oluşturur.
+     */
+    private Map<String, Object> buildRequestBody(UUID userId, PreparedChat chat, boolean stream) {
+        // ChatBot için sistem mesajı oluştur
+        String systemMessage = createSystemMessage(userId, chat.responseLanguage());
+        String directiveUser = buildDirectiveUserMessage(chat.responseLanguage());
+        return Map.of(
+                "model", MODEL,
+                "stream", stream,
+                "messages", List.of(
+                        Map.of("role", "system", "content", systemMessage),
+                        // Dil politikası için ek kullanıcı talimatı (uyumluluğu artırır)
+                        Map.of("role", "user", "content", directiveUser),
+                        Map.of("role", "user", "content", chat.userMessage())));
+    }
+
+    /**
+     * Cevabı kaydeder ve kullanıcının mesaj istatistiğini günceller.
+     */
+    private void complete(PreparedChat chat, User user, String botResponse, boolean answeredLocally) {
+        saveChatHistory(chat.userMessage(), botResponse, user, chat.questionCategory(), answeredLocally);
+        userProfileService.recordMessage(user.getId());
+        if (answeredLocally) {
+            logger.info("Chat isteği yerel olarak cevaplandı - Kullanıcı: {}, Kategori: {}", user.getId(), chat.questionCategory());
+        } else {
+            logger.info("Chat işlemi başarıyla tamamlandı - Kullanıcı: {}, Kategori: {}", user.getId(), chat.questionCategory());
+        }
+    }
+
+    /**
+     * Akıştaki bir SSE verisinden cevap parçasını çıkarır; parça yoksa null döner.
+     */
+    private String parseStreamDelta(String data) {
+        try {
+            JsonNode content = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content");
+            return content.isTextual() && !content.textValue().isEmpty() ? content.textValue() : null;
+        } catch (JsonProcessingException e) {
+            logger.debug("Çözülemeyen akış verisi atlandı: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Chat isteği validasyonu yapar.
      * Gelen parametrelerin null/boş olup olmadığını kontrol eder.
@@ -223,7 +376,8 @@ public class ChatService {
      * Chat geçmişini veritabanına kaydeder.
      * Hata durumunda DatabaseException fırlatır.
      */
-    private void saveChatHistory(String userMessage, String botResponse, User user, String questionCategory) {
+    private void saveChatHistory(String userMessage, String botResponse, User user, String questionCategory,
+                                 boolean answeredLocally) {
         try {
             // ChatHistory objesi oluşturuyoruz
             ChatHistory history = new ChatHistory();
@@ -232,10 +386,13 @@ public class ChatService {
             history.setTimestamp(LocalDateTime.now());
             history.setUser(user);
             history.setQuestionCategory(questionCategory);
+            history.setAnsweredLocally(answeredLocally);
 
             // Veritabanına kaydediyoruz
             chatHistoryRepository.save(history);
-            logger.debug("Chat geçmişi kaydedildi - Kullanıcı: {}, Kategori: {}", user.getEmail(), questionCategory);
+            conversationBuffer.append(user.getId(), history);
+            chatSearchService.onSaved(history);
+            logger.debug("Chat geçmişi kaydedildi - Kullanıcı: {}, Kategori: {}", user.getId(), questionCategory);
             
         } catch (Exception e) {
             // Veritabanı kaydetme hatası
@@ -323,9 +480,9 @@ public class ChatService {
      */
     private static final Map<String, String> CATEGORY_KEYWORDS = new LinkedHashMap<>();
     static {
-        CATEGORY_KEYWORDS.put("merhaba,selam,hi,hello", "SELAMLAMA");
-        CATEGORY_KEYWORDS.put("nasılsın,how are you", "SELAMLAMA");
-        CATEGORY_KEYWORDS.put("teşekkür,thank", "TEŞEKKÜR");
+        CATEGORY_KEYWORDS.put("merhaba,selam,günaydın,hi,hello,hallo", "SELAMLAMA");
+        CATEGORY_KEYWORDS.put("nasılsın,how are you,wie geht", "SELAMLAMA");
+        CATEGORY_KEYWORDS.put("teşekkür,sağol,thank,danke", "TEŞEKKÜR");
         CATEGORY_KEYWORDS.put("ne yapıyorsun,what do you do", "BİLGİ");
         CATEGORY_KEYWORDS.put("kimsin,who are you", "BİLGİ");
         CATEGORY_KEYWORDS.put("hava,weather", "HAVA_DURUMU");
@@ -359,4 +516,59 @@ public class ChatService {
         // Hiçbir kategoriye uymuyorsa "GENEL" döndürüyoruz
         return "GENEL";
     }
+
+    /**
+     * Upstream'e gitmeden önce hesaplanan istek bilgileri.
+     * localResponse doluysa mesaj LLM'e gitmeden cevaplanır.
+     */
+    private record PreparedChat(String userMessage, String questionCategory, String responseLanguage,
+                                String localResponse) {
+    }
+
+    /**
+     * Akışla gelen cevabı biriktirir ve {@link #ask} ile aynı 2000 karakter sınırını uygular.
+     * Kesilme ihtimali yüzünden son birkaç karakter, akış bitene kadar gönderilmez.
+     */
+    private static final class StreamedAnswer {
+        private static final int SAFE_LENGTH = MAX_RESPONSE_LENGTH - TRUNCATION_SUFFIX.length();
+
+        private final Consumer<String> onToken;
+        private final StringBuilder text = new StringBuilder();
+        private int emitted;
+        private volatile boolean truncated;
+
+        private StreamedAnswer(Consumer<String> onToken) {
+            this.onToken = onToken;
+        }
+
+        private void append(String token) {
+            text.append(token);
+            if (text.length() > MAX_RESPONSE_LENGTH) {
+                truncated = true;
+            }
+            emitUpTo(Math.min(text.length(), SAFE_LENGTH));
+        }
+
+        private boolean isEmpty() {
+            return text.length() == 0;
+        }
+
+        private String finish() {
+            if (truncated) {
+                emitUpTo(SAFE_LENGTH);
+                onToken.accept(TRUNCATION_SUFFIX);
+                logger.info("Bot response 2000 karakterle sınırlandı");
+                return text.substring(0, SAFE_LENGTH) + TRUNCATION_SUFFIX;
+            }
+            emitUpTo(text.length());
+            return text.toString();
+        }
+
+        private void emitUpTo(int end) {
+            if (end > emitted) {
+                onToken.accept(text.substring(emitted, end));
+                emitted = end;
+            }
+        }
+    }
 }
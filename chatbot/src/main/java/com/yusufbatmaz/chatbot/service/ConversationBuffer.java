@@ -0,0 +1,154 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yusufbatmaz.chatbot.cache.CacheInvalidationBus;
+import com.yusufbatmaz.chatbot.model.ChatHistory;
+import com.yusufbatmaz.chatbot.model.ChatTurn;
+import com.yusufbatmaz.chatbot.repository.ChatHistoryRepository;
+
+/**
+ * Kullanıcının son sohbet turlarını "chatHistory" cache'inde (off-heap) tutar.
+ * Buffer yoksa veritabanından yüklenir; yeni turlar sadece cache'te buffer
+ * varsa eklenir, böylece cache'teki liste hiçbir zaman eksik olmaz.
+ * Ekleme commit sonrasında yapılır ve diğer node'lara invalidation gönderilir;
+ * onlar buffer'ı bir sonraki okumada veritabanından yeniden yükler.
+ */
+@Service
+public class ConversationBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationBuffer.class);
+    static final String CHAT_HISTORY_CACHE = "chatHistory";
+    private static final TypeReference<List<ChatTurn>> TURN_LIST = new TypeReference<>() {};
+
+    private final ChatHistoryRepository chatHistoryRepository;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final int maxTurns;
+
+    // Aynı kullanıcının eşzamanlı eklemeleri birbirini ezmesin
+    private final Object[] locks = new Object[64];
+
+    public ConversationBuffer(ChatHistoryRepository chatHistoryRepository,
+                              CacheManager cacheManager,
+                              ObjectMapper objectMapper,
+                              CacheInvalidationBus cacheInvalidationBus,
+                              @Value("${chat.recent-turns:20}") int maxTurns) {
+        this.chatHistoryRepository = chatHistoryRepository;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.maxTurns = maxTurns;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Kullanıcının son turlarını eskiden yeniye sıralı döner.
+     * @param userId Kullanıcı ID'si
+     * @return Son turlar
+     */
+    public List<ChatTurn> getRecentTurns(UUID userId) {
+        List<ChatTurn> cached = read(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<ChatHistory> newestFirst = chatHistoryRepository.findByUser_IdOrderByTimestampDesc(
+                userId, PageRequest.of(0, maxTurns));
+        List<ChatTurn> turns = new ArrayList<>(newestFirst.size());
+        for (ChatHistory history : newestFirst) {
+            turns.add(toTurn(history));
+        }
+        Collections.reverse(turns);
+        cache().put(userId, serialize(turns));
+        return turns;
+    }
+
+    /**
+     * Kaydedilen turu, kullanıcının buffer'ı cache'teyse sonuna ekler.
+     * Aktif transaction varsa ekleme commit sonrasına ertelenir; rollback olursa yapılmaz.
+     * @param userId Kullanıcı ID'si
+     * @param history Kaydedilmiş sohbet kaydı
+     */
+    public void append(UUID userId, ChatHistory history) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appendLocal(userId, history);
+                }
+            });
+        } else {
+            appendLocal(userId, history);
+        }
+        cacheInvalidationBus.publish(CHAT_HISTORY_CACHE, userId);
+    }
+
+    private void appendLocal(UUID userId, ChatHistory history) {
+        synchronized (locks[Math.floorMod(userId.hashCode(), locks.length)]) {
+            List<ChatTurn> cached = read(userId);
+            if (cached == null) {
+                return; // İlk okumada veritabanından eksiksiz yüklenecek
+            }
+            List<ChatTurn> turns = new ArrayList<>(cached);
+            turns.add(toTurn(history));
+            if (turns.size() > maxTurns) {
+                turns = turns.subList(turns.size() - maxTurns, turns.size());
+            }
+            cache().put(userId, serialize(turns));
+        }
+    }
+
+    private ChatTurn toTurn(ChatHistory history) {
+        return new ChatTurn(history.getUserMessage(), history.getBotResponse(),
+                history.getTimestamp(), history.getQuestionCategory());
+    }
+
+    private String serialize(List<ChatTurn> turns) {
+        try {
+            return objectMapper.writeValueAsString(turns);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sohbet buffer'ı yazılamadı", e);
+        }
+    }
+
+    /**
+     * Cache'teki buffer'ı okur; yoksa veya bozuksa null döner.
+     */
+    private List<ChatTurn> read(UUID userId) {
+        String json = cache().get(userId, String.class);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, TURN_LIST);
+        } catch (JsonProcessingException e) {
+            logger.warn("Bozuk sohbet buffer'ı silindi - Kullanıcı: {}", userId, e);
+            cache().evict(userId);
+            return null;
+        }
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CHAT_HISTORY_CACHE);
+    }
+}
@@ -1,6 +1,9 @@
 package com.yusufbatmaz.chatbot.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -16,6 +19,11 @@ public class LanguageDetectionService {
     // Dil tespiti için anahtar kelimeler
     private static final Map<String, Pattern> LANGUAGE_PATTERNS = new HashMap<>();
     
+    // Kelime sınırları: harf ve rakam dışındaki her şey ayırıcıdır
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MAX_TOKEN_LENGTH = 40;
+    
     static {
         // Türkçe karakterler ve kelimeler
         LANGUAGE_PATTERNS.put("tr", Pattern.compile(
@@ -57,7 +65,7 @@ public class LanguageDetectionService {
             return "en"; // Varsayılan dil
         }
         
-        String lowerText = text.toLowerCase();
+        String lowerText = normalize(text);
         Map<String, Integer> scores = new HashMap<>();
         
         // Her dil için puan hesapla
@@ -87,6 +95,36 @@ public class LanguageDetectionService {
                 .orElse("en");
     }
     
+    /**
+     * Metni dil tespiti ve arama için normalize eder.
+     * Küçük harfe çevirir; "İ"nin ROOT locale'de bıraktığı birleşik noktayı siler,
+     * böylece "İstanbul" ile "istanbul" aynı kelime olur.
+     * @param text Metin
+     * @return Normalize edilmiş metin
+     */
+    public String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replace("i\u0307", "i");
+    }
+    
+    /**
+     * Metni arama indeksi için kelimelere ayırır.
+     * Sorgular ve indekslenen mesajlar aynı kurallarla ayrılır.
+     * @param text Metin
+     * @return Normalize edilmiş kelimeler (tekrarlar dahil, metindeki sırayla)
+     */
+    public List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(normalize(text))) {
+            if (token.length() >= MIN_TOKEN_LENGTH && token.length() <= MAX_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+    
     /**
      * Türkçe karakterleri sayar
      * @param text Metin
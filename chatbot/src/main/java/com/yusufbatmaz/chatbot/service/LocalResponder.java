@@ -0,0 +1,127 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.yusufbatmaz.chatbot.config.LocalResponderProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Kısa selamlama ve teşekkür mesajlarını LLM'e gitmeden şablonla cevaplar.
+ *
+ * Kategori eşleşmesi tek başına yeterli değildir (anahtar kelimeler alt dizgi
+ * olarak arandığı için "this" da "hi" içerir). Mesaj ancak kısa ise ve tüm
+ * kelimeleri kategorinin sözlüğündeyse yerel cevaplanır; en ufak şüphede
+ * mesaj normal akışla LLM'e gider.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocalResponder implements MetricsSource {
+
+    private static final String NAME = "{name}";
+    private static final int MAX_NICKNAME_LENGTH = 40;
+
+    // Kategori -> mesajda bulunabilecek kelimeler (tokenize sonrası)
+    private static final Map<String, Set<String>> VOCABULARY = Map.of(
+            "SELAMLAMA", Set.of("merhaba", "merhabalar", "selam", "selamlar", "slm", "mrb", "günaydın", "iyi",
+                    "akşamlar", "günler", "geceler", "nasılsın", "nasılsınız", "naber",
+                    "hi", "hello", "hey", "there", "good", "morning", "afternoon", "evening", "how", "are", "you",
+                    "hallo", "servus", "moin", "guten", "morgen", "tag", "abend", "wie", "geht", "es", "dir"),
+            "TEŞEKKÜR", Set.of("teşekkür", "teşekkürler", "ederim", "ederiz", "çok", "sağ", "ol", "olun", "sağol",
+                    "sağolun", "eyvallah", "tşk", "tşkler",
+                    "thanks", "thank", "you", "so", "much", "very", "many", "thx", "ty",
+                    "danke", "dankeschön", "vielen", "dank", "schön", "sehr"));
+
+    // Hal hatır sorulduğunu gösteren kelimeler; selamlamaya farklı şablonla cevap verilir
+    private static final Set<String> WELLBEING = Set.of("nasılsın", "nasılsınız", "naber", "how", "wie");
+
+    // Şablon anahtarı -> dil -> şablonlar ({name} yerine ", <takma ad>" veya boş)
+    private static final Map<String, Map<String, List<String>>> TEMPLATES = new LinkedHashMap<>();
+    static {
+        TEMPLATES.put("SELAMLAMA", Map.of(
+                "tr", List.of("Merhaba{name}! Sana nasıl yardımcı olabilirim?", "Selam{name}! Bugün ne konuşmak istersin?"),
+                "de", List.of("Hallo{name}! Wie kann ich dir helfen?", "Hi{name}! Worüber möchtest du heute sprechen?"),
+                "en", List.of("Hello{name}! How can I help you today?", "Hi{name}! What would you like to talk about?")));
+        TEMPLATES.put("SELAMLAMA_HAL", Map.of(
+                "tr", List.of("İyiyim, sorduğun için teşekkürler{name}! Sana nasıl yardımcı olabilirim?"),
+                "de", List.of("Mir geht es gut, danke der Nachfrage{name}! Wie kann ich dir helfen?"),
+                "en", List.of("I'm doing well, thanks for asking{name}! How can I help you today?")));
+        TEMPLATES.put("TEŞEKKÜR", Map.of(
+                "tr", List.of("Rica ederim{name}! Başka bir konuda yardımcı olabilir miyim?", "Ne demek{name}! Başka bir sorun var mı?"),
+                "de", List.of("Gern geschehen{name}! Kann ich dir sonst noch helfen?", "Sehr gerne{name}! Hast du noch eine Frage?"),
+                "en", List.of("You're welcome{name}! Is there anything else I can help with?", "Happy to help{name}! Anything else on your mind?")));
+    }
+
+    private final LocalResponderProperties properties;
+    private final LanguageDetectionService languageDetectionService;
+
+    private final Map<String, LongAdder> answered = new ConcurrentHashMap<>();
+    private final LongAdder declined = new LongAdder();
+
+    /**
+     * Mesaj yerel cevaplanabiliyorsa cevabı döner.
+     *
+     * @param userMessage Kullanıcının mesajı
+     * @param category Mesajın soru kategorisi
+     * @param responseLanguage Yanıt dili
+     * @param nickname Takma adı veren fonksiyon; yalnızca mesaj eşleşirse çağrılır
+     * @return Cevap; mesaj LLM'e gitmeliyse boş
+     */
+    public Optional<String> answer(String userMessage, String category, String responseLanguage, Supplier<String> nickname) {
+        if (!properties.isEnabled() || !properties.getCategories().contains(category)) {
+            return Optional.empty();
+        }
+        Set<String> vocabulary = VOCABULARY.get(category);
+        List<String> tokens = languageDetectionService.tokenize(userMessage);
+        if (vocabulary == null || userMessage.length() > properties.getMaxLength() || tokens.isEmpty()
+                || tokens.size() > properties.getMaxWords() || !vocabulary.containsAll(tokens)) {
+            declined.increment();
+            return Optional.empty();
+        }
+
+        String key = "SELAMLAMA".equals(category) && tokens.stream().anyMatch(WELLBEING::contains)
+                ? "SELAMLAMA_HAL" : category;
+        List<String> templates = TEMPLATES.get(key).get(templateLanguage(responseLanguage));
+        String template = templates.get(ThreadLocalRandom.current().nextInt(templates.size()));
+        answered.computeIfAbsent(category, c -> new LongAdder()).increment();
+        return Optional.of(template.replace(NAME, formatName(nickname.get())));
+    }
+
+    private String templateLanguage(String responseLanguage) {
+        String code = languageDetectionService.normalizeLanguageCode(responseLanguage);
+        return "tr".equals(code) || "de".equals(code) ? code : "en";
+    }
+
+    private static String formatName(String nickname) {
+        if (nickname == null || nickname.isBlank()) {
+            return "";
+        }
+        String name = nickname.strip();
+        return ", " + (name.length() > MAX_NICKNAME_LENGTH ? name.substring(0, MAX_NICKNAME_LENGTH) : name);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "localResponder";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        answered.forEach((category, count) -> metrics.put("answered." + category, count.sum()));
+        metrics.put("declined", declined.sum());
+        return metrics;
+    }
+}
@@ -1,47 +1,124 @@
 package com.yusufbatmaz.chatbot.service;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.config.PasswordHashingProperties;
+import com.yusufbatmaz.chatbot.exception.ServiceUnavailableException;
+
 /**
  * Şifre hashleme ve doğrulama işlemlerini yöneten service.
  * BCrypt algoritması kullanarak güvenli şifre hashleme sağlar.
+ *
+ * BCrypt CPU yoğun olduğu için işlemler Tomcat thread'lerinde değil, çekirdek
+ * sayısı kadar thread'i ve sınırlı kuyruğu olan ayrı bir havuzda çalışır.
+ * Havuz doluysa istek beklemeden 503 ile reddedilir; böylece giriş yoğunluğu
+ * chat isteklerini etkilemez.
+ *
+ * BCrypt maliyeti ortak konfigürasyondan gelir; böylece tüm node'lar aynı
+ * maliyeti kullanır. Daha düşük maliyetle kaydedilmiş hash'ler girişte
+ * {@link #needsRehash(String)} ile tespit edilip yükseltilir, hiçbir zaman
+ * düşürülmez. İstenirse açılışta bu makine için bir maliyet önerisi ölçülür.
  */
 @Service
-public class PasswordService {
+public class PasswordService implements MetricsSource, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordService.class);
     
     // BCrypt encoder - şifreleri hashlemek için kullanılır
     private final BCryptPasswordEncoder passwordEncoder;
+
+    private final PasswordHashingProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final int cost;
+    // Kalibrasyon kapalıysa -1
+    private final int suggestedCost;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalQueueWaitMicros = new LongAdder();
+    private final LongAccumulator maxQueueWaitMicros = new LongAccumulator(Long::max, 0);
+    private final LongAdder totalHashMicros = new LongAdder();
+    private final LongAccumulator maxHashMicros = new LongAccumulator(Long::max, 0);
     
-    public PasswordService() {
-        // BCrypt encoder'ı oluşturuyoruz
-        // strength: 10 (güvenlik seviyesi, 10-12 arası önerilen)
-        this.passwordEncoder = new BCryptPasswordEncoder(10);
+    public PasswordService(PasswordHashingProperties properties) {
+        this.properties = properties;
+
+        // BCrypt encoder'ı ortak konfigürasyondaki maliyetle oluşturuyoruz
+        int minCost = clampCost(properties.getMinCost());
+        this.cost = Math.max(minCost, clampCost(properties.getCost()));
+        if (cost != properties.getCost()) {
+            logger.warn("BCrypt maliyeti {} izin verilen aralıkta değil, {} kullanılacak", properties.getCost(), cost);
+        }
+        this.passwordEncoder = new BCryptPasswordEncoder(cost);
+        this.suggestedCost = properties.isCalibrate() ? calibrateCost(minCost) : -1;
+
+        int poolSize = properties.getPoolSize() > 0
+                ? properties.getPoolSize() : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                new CustomizableThreadFactory("bcrypt-"), new ThreadPoolExecutor.AbortPolicy());
     }
     
     /**
      * Plain text şifreyi BCrypt ile hashler.
      * @param plainPassword Hashlenecek şifre
      * @return Hashed şifre
+     * @throws ServiceUnavailableException BCrypt havuzu doluysa
      */
     public String hashPassword(String plainPassword) {
         if (plainPassword == null || plainPassword.trim().isEmpty()) {
             throw new IllegalArgumentException("Şifre boş olamaz");
         }
-        return passwordEncoder.encode(plainPassword);
+        return execute(() -> passwordEncoder.encode(plainPassword));
     }
     
+    /**
+     * Şifreyi çağıran thread'de hashler. Kendi thread havuzu olan toplu işlemler
+     * (kullanıcı içe aktarma) için; istek thread'lerinden çağrılmamalıdır.
+     * @param plainPassword Hashlenecek şifre
+     * @return Hashed şifre
+     */
+    public String hashPasswordInline(String plainPassword) {
+        if (plainPassword == null || plainPassword.trim().isEmpty()) {
+            throw new IllegalArgumentException("Şifre boş olamaz");
+        }
+        return passwordEncoder.encode(plainPassword);
+    }
+
     /**
      * Plain text şifreyi hashed şifre ile karşılaştırır.
      * @param plainPassword Kullanıcının girdiği şifre
      * @param hashedPassword Database'deki hashed şifre
      * @return Eşleşirse true, değilse false
+     * @throws ServiceUnavailableException BCrypt havuzu doluysa
      */
     public boolean matches(String plainPassword, String hashedPassword) {
         if (plainPassword == null || hashedPassword == null) {
             return false;
         }
-        return passwordEncoder.matches(plainPassword, hashedPassword);
+        return execute(() -> passwordEncoder.matches(plainPassword, hashedPassword));
     }
     
     /**
@@ -56,4 +133,183 @@ public class PasswordService {
         // BCrypt hash'leri $2a$ ile başlar
         return hash.startsWith("$2a$") || hash.startsWith("$2b$") || hash.startsWith("$2y$");
     }
-} 
\ No newline at end of file
+
+    /**
+     * BCrypt hash'inin maliyetini ("$2a$10$..." -> 10) döner.
+     * @param hash BCrypt hash'i
+     * @return Maliyet, hash BCrypt değilse -1
+     */
+    public int getBCryptCost(String hash) {
+        if (!isBCryptHash(hash) || hash.length() < 7 || hash.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = hash.charAt(4);
+        char ones = hash.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    /**
+     * Hash'in maliyeti konfigürasyondaki maliyetten düşük mü kontrol eder.
+     * Daha yüksek maliyetli hash'ler olduğu gibi bırakılır.
+     * @param hash Database'deki hashed şifre
+     * @return Yeniden hashlenmesi gerekiyorsa true
+     */
+    public boolean needsRehash(String hash) {
+        int hashCost = getBCryptCost(hash);
+        return hashCost > 0 && hashCost < cost;
+    }
+
+    /**
+     * Şifreyi arka planda hashler. Havuz doluysa beklemez, boş sonuç döner;
+     * yeniden hashleme bir sonraki girişte tekrar denenir.
+     * @param plainPassword Hashlenecek şifre
+     * @return Yeni hash'i veren future, havuz doluysa boş (null değerli) future
+     */
+    public CompletableFuture<String> hashPasswordAsync(String plainPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(plainPassword), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Kullanılan BCrypt maliyeti.
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Bu makinede hedef süreye en yakın (aşmayan) BCrypt maliyetini ölçer.
+     * Maliyet 1 arttıkça süre iki katına çıktığı için minimum maliyetteki
+     * süreden tahmin edip seçilen maliyeti bir kez doğruluyoruz.
+     * Sonuç yalnızca öneridir; ölçüm gürültülü olduğu ve node'lar arasında
+     * değişebileceği için kullanılan maliyet konfigürasyondan gelir.
+     */
+    private int calibrateCost(int minCost) {
+        int maxCost = Math.max(minCost, clampCost(properties.getMaxCost()));
+        long targetNanos = properties.getTargetTime().toNanos();
+
+        // JIT ısınması için bir tur, sonra 3 ölçümün medyanı
+        measure(minCost);
+        long[] samples = {measure(minCost), measure(minCost), measure(minCost)};
+        Arrays.sort(samples);
+        long baseNanos = Math.max(1, samples[1]);
+
+        int chosen = minCost;
+        while (chosen < maxCost && baseNanos << (chosen + 1 - minCost) <= targetNanos) {
+            chosen++;
+        }
+        long chosenNanos = chosen == minCost ? baseNanos : measure(chosen);
+        if (chosen > minCost && chosenNanos > targetNanos * 3 / 2) {
+            chosen--;
+        }
+
+        logger.info("BCrypt maliyet önerisi: {} (kullanılan {}, maliyet {} için {} ms, hedef {} ms)", chosen, cost,
+                minCost, TimeUnit.NANOSECONDS.toMillis(baseNanos), properties.getTargetTime().toMillis());
+        return chosen;
+    }
+
+    private static long measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode("calibration-password");
+        return System.nanoTime() - start;
+    }
+
+    private static int clampCost(int cost) {
+        // BCrypt'in kabul ettiği aralık
+        return Math.max(4, Math.min(31, cost));
+    }
+
+    /**
+     * BCrypt işini havuzda çalıştırır ve sonucunu bekler.
+     */
+    private <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    recordTimes(startedAt - submittedAt, System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warn("BCrypt havuzu dolu, istek reddedildi - Kuyruk: {}", executor.getQueue().size());
+            throw unavailable();
+        }
+
+        try {
+            return future.get(properties.getMaxWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw unavailable();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw unavailable();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Şifre işlemi başarısız", cause);
+        }
+    }
+
+    private ServiceUnavailableException unavailable() {
+        return new ServiceUnavailableException("Giriş servisi şu anda yoğun. Lütfen birkaç saniye sonra tekrar deneyin.",
+                Math.max(1, properties.getRetryAfter().toSeconds()));
+    }
+
+    private void recordTimes(long queueWaitNanos, long hashNanos) {
+        long queueWaitMicros = TimeUnit.NANOSECONDS.toMicros(queueWaitNanos);
+        long hashMicros = TimeUnit.NANOSECONDS.toMicros(hashNanos);
+        completed.increment();
+        totalQueueWaitMicros.add(queueWaitMicros);
+        maxQueueWaitMicros.accumulate(queueWaitMicros);
+        totalHashMicros.add(hashMicros);
+        maxHashMicros.accumulate(hashMicros);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "passwordHashing";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long count = completed.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cost", cost);
+        if (suggestedCost > 0) {
+            metrics.put("suggestedCost", suggestedCost);
+        }
+        metrics.put("poolSize", executor.getMaximumPoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("queueCapacity", properties.getQueueCapacity());
+        metrics.put("completed", count);
+        metrics.put("rejected", rejected.sum());
+        metrics.put("timedOut", timedOut.sum());
+        metrics.put("avgQueueWaitMillis", count == 0 ? 0.0 : totalQueueWaitMicros.sum() / 1000.0 / count);
+        metrics.put("maxQueueWaitMillis", maxQueueWaitMicros.get() / 1000.0);
+        metrics.put("avgHashMillis", count == 0 ? 0.0 : totalHashMicros.sum() / 1000.0 / count);
+        metrics.put("maxHashMillis", maxHashMicros.get() / 1000.0);
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,255 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.config.ProfileWriteBehindProperties;
+
+/**
+ * Chat akışındaki kritik olmayan profil güncellemelerini biriktirip toplu yazar.
+ *
+ * Ana dil, son görülme zamanı ve mesaj sayısı gibi değerler istek sırasında
+ * yalnızca bellekteki kullanıcı girdisiyle birleştirilir; chat cevabı profil
+ * yazımını beklemez. Girdiler periyodik olarak (veya batch dolunca) tek bir
+ * batch upsert ile yazılır. Profil satırı yoksa varsayılan değerlerle oluşturulur.
+ *
+ * Bellekteki güncellemeler uygulama kapanırken yazılır; ani bir çöküşte son
+ * flush aralığındaki değerler kaybolabilir, bu veriler için kabul edilebilir.
+ */
+@Component
+public class ProfileWriteBehind implements MetricsSource, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileWriteBehind.class);
+
+    // Ana dil yalnızca ilk kez yazılır; son görülme en yenisi, mesaj sayısı toplanır.
+    // Eklenen varsayılan satırın versiyonu -1: dışarıya verilen versiyon (ETag) kayıtsız profille aynı kalır
+    private static final String UPSERT_SQL = "INSERT INTO user_profile (id, user_id, preferred_language, personality, "
+            + "enable_for_new_chats, force_response_language, traits_mask, native_language, last_seen_at, message_count, version) "
+            + "VALUES (?, ?, 'en', 'default', TRUE, FALSE, 0, ?, ?, ?, -1) "
+            + "ON CONFLICT (user_id) DO UPDATE SET "
+            + "native_language = COALESCE(user_profile.native_language, EXCLUDED.native_language), "
+            + "last_seen_at = GREATEST(user_profile.last_seen_at, EXCLUDED.last_seen_at), "
+            + "message_count = user_profile.message_count + EXCLUDED.message_count";
+
+    private static final int[] UPSERT_TYPES = {Types.OTHER, Types.OTHER, Types.VARCHAR, Types.TIMESTAMP, Types.BIGINT};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProfileWriteBehindProperties properties;
+
+    // Kullanıcı ID -> henüz yazılmamış birleşik güncelleme
+    private final Map<UUID, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder rowsFailed = new LongAdder();
+
+    private ScheduledExecutorService flusher;
+
+    public ProfileWriteBehind(JdbcTemplate jdbcTemplate, ProfileWriteBehindProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("profile-write-behind-"));
+        long interval = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Tespit edilen ana dili kaydeder. Profilde zaten bir ana dil varsa değişmez.
+     */
+    public void recordNativeLanguage(UUID userId, String nativeLanguage) {
+        if (nativeLanguage != null) {
+            enqueue(userId, new PendingUpdate(nativeLanguage, null, 0));
+        }
+    }
+
+    /**
+     * Kullanıcının bir mesaj gönderdiğini kaydeder (son görülme + mesaj sayısı).
+     */
+    public void recordMessage(UUID userId) {
+        enqueue(userId, new PendingUpdate(null, LocalDateTime.now(), 1));
+    }
+
+    /**
+     * Güncellemeyi transaction commit olduktan sonra (transaction yoksa hemen) kuyruğa ekler.
+     */
+    private void enqueue(UUID userId, PendingUpdate update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    merge(userId, update);
+                }
+            });
+        } else {
+            merge(userId, update);
+        }
+    }
+
+    private void merge(UUID userId, PendingUpdate update) {
+        updates.increment();
+        if (pending.size() >= properties.getMaxPending() && !pending.containsKey(userId)) {
+            dropped.increment();
+            return;
+        }
+        PendingUpdate previous = pending.putIfAbsent(userId, update);
+        if (previous != null) {
+            pending.merge(userId, update, PendingUpdate::merge);
+            coalesced.increment();
+        }
+        if (pending.size() >= properties.getBatchSize() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushSafely);
+        }
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Profil güncellemeleri yazılamadı", e);
+        }
+    }
+
+    /**
+     * Bekleyen tüm güncellemeleri batch'ler halinde yazar.
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushes.increment();
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<UUID> userIds = new ArrayList<>(batchSize);
+        List<Object[]> rows = new ArrayList<>(batchSize);
+        Iterator<UUID> iterator = pending.keySet().iterator();
+        while (iterator.hasNext()) {
+            UUID userId = iterator.next();
+            PendingUpdate update = pending.remove(userId);
+            if (update == null) {
+                continue;
+            }
+            userIds.add(userId);
+            rows.add(update.toRow(userId));
+            if (rows.size() >= batchSize) {
+                write(userIds, rows);
+                userIds.clear();
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            write(userIds, rows);
+        }
+    }
+
+    private void write(List<UUID> userIds, List<Object[]> rows) {
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows, UPSERT_TYPES);
+            rowsWritten.add(rows.size());
+        } catch (DataAccessException e) {
+            // Tek bir bozuk satır (örn. silinmiş kullanıcı) tüm batch'i düşürmesin
+            logger.warn("Profil batch'i yazılamadı, satırlar tek tek deneniyor: {}", e.getMessage());
+            for (int i = 0; i < rows.size(); i++) {
+                try {
+                    jdbcTemplate.update(UPSERT_SQL, rows.get(i), UPSERT_TYPES);
+                    rowsWritten.increment();
+                } catch (DataAccessException rowError) {
+                    rowsFailed.increment();
+                    logger.warn("Profil güncellemesi atlandı - Kullanıcı: {}, Hata: {}", userIds.get(i), rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "profileWriteBehind";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pending", pending.size());
+        metrics.put("updates", updates.sum());
+        metrics.put("coalesced", coalesced.sum());
+        metrics.put("dropped", dropped.sum());
+        metrics.put("flushes", flushes.sum());
+        metrics.put("rowsWritten", rowsWritten.sum());
+        metrics.put("rowsFailed", rowsFailed.sum());
+        return metrics;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        // Kapanırken bekleyenleri yaz
+        flushSafely();
+    }
+
+    /**
+     * Bir kullanıcı için birleştirilmiş profil güncellemesi.
+     */
+    private static final class PendingUpdate {
+        private final String nativeLanguage;
+        private final LocalDateTime lastSeenAt;
+        private final long messageCount;
+
+        private PendingUpdate(String nativeLanguage, LocalDateTime lastSeenAt, long messageCount) {
+            this.nativeLanguage = nativeLanguage;
+            this.lastSeenAt = lastSeenAt;
+            this.messageCount = messageCount;
+        }
+
+        private PendingUpdate merge(PendingUpdate other) {
+            LocalDateTime seen = lastSeenAt == null || (other.lastSeenAt != null && other.lastSeenAt.isAfter(lastSeenAt))
+                    ? other.lastSeenAt : lastSeenAt;
+            return new PendingUpdate(nativeLanguage != null ? nativeLanguage : other.nativeLanguage,
+                    seen, messageCount + other.messageCount);
+        }
+
+        private Object[] toRow(UUID userId) {
+            return new Object[] {
+                UUID.randomUUID(),
+                userId,
+                nativeLanguage,
+                lastSeenAt != null ? Timestamp.valueOf(lastSeenAt) : null,
+                messageCount
+            };
+        }
+    }
+}
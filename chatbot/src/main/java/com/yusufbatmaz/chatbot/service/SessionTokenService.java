@@ -0,0 +1,273 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.yusufbatmaz.chatbot.cache.CacheInvalidationBus;
+import com.yusufbatmaz.chatbot.config.AuthTokenProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.exception.AuthenticationException;
+
+/**
+ * HMAC-SHA256 ile imzalanmış, durumsuz oturum token'ları üretir ve doğrular.
+ *
+ * Token formatı: base64url(payload) + "." + base64url(imza). Payload sabit
+ * uzunlukta ikili veridir: format versiyonu, kullanıcı ID'si, bitiş zamanı,
+ * profil versiyonu ve rastgele token ID'si. İmza ve süre kontrolü veritabanına gitmez.
+ *
+ * Çıkış yapılan token'lar süreleri dolana kadar "revoked_session_token" tablosunda
+ * tutulur. Her node bir token'ın iptal durumunu ilk doğrulamada tablodan okuyup
+ * "sessionRevocations" cache'inde saklar; iptal edildiğinde diğer node'lara
+ * invalidation gönderilir ve sonraki doğrulama tabloyu yeniden okur.
+ */
+@Service
+public class SessionTokenService implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte FORMAT_VERSION = 1;
+    private static final int PAYLOAD_LENGTH = 1 + 16 + 8 + 8 + 8;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // application.properties'deki geliştirme anahtarı
+    private static final String DEV_SECRET = "dev-only-insecure-auth-token-secret-change-me";
+
+    static final String REVOCATIONS_CACHE = "sessionRevocations";
+
+    private static final String REVOKE_SQL = """
+            INSERT INTO revoked_session_token (token_id, expires_at) VALUES (?, ?)
+            ON CONFLICT (token_id) DO NOTHING
+            """;
+    private static final String IS_REVOKED_SQL = "SELECT EXISTS (SELECT 1 FROM revoked_session_token WHERE token_id = ?)";
+    private static final String PURGE_SQL = "DELETE FROM revoked_session_token WHERE expires_at <= ?";
+
+    private final AuthTokenProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    // Mac thread-safe değil; her thread kendi örneğini kullanır
+    private final ThreadLocal<Mac> macs;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+    private final LongAdder revocationLookups = new LongAdder();
+    private final LongAdder revocationLookupFailures = new LongAdder();
+
+    public SessionTokenService(AuthTokenProperties properties, JdbcTemplate jdbcTemplate,
+                               CacheManager cacheManager, CacheInvalidationBus cacheInvalidationBus) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        // Rastgele anahtar node'lar arasında ve yeniden başlatmada token'ları geçersiz kılar
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            throw new IllegalStateException("auth.token.secret tanımlı değil (AUTH_TOKEN_SECRET)");
+        }
+        if (DEV_SECRET.equals(properties.getSecret())) {
+            logger.warn("Geliştirme token anahtarı kullanılıyor; prod ortamında AUTH_TOKEN_SECRET tanımlanmalı");
+        }
+        this.key = new SecretKeySpec(properties.getSecret().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        newMac(); // Geçersiz anahtar açılışta fark edilsin
+    }
+
+    /**
+     * Kullanıcı için yeni token üretir.
+     * @param userId Kullanıcı ID'si
+     * @param profileVersion Token üretildiği andaki profil versiyonu
+     * @return İmzalı token ve bitiş zamanı
+     */
+    public IssuedToken issue(UUID userId, long profileVersion) {
+        Instant expiresAt = Instant.now().plus(properties.getTtl());
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_LENGTH);
+        payload.put(FORMAT_VERSION);
+        payload.putLong(userId.getMostSignificantBits());
+        payload.putLong(userId.getLeastSignificantBits());
+        payload.putLong(expiresAt.getEpochSecond());
+        payload.putLong(profileVersion);
+        payload.putLong(random.nextLong());
+
+        byte[] payloadBytes = payload.array();
+        String token = ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+        issued.increment();
+        return new IssuedToken(token, expiresAt);
+    }
+
+    /**
+     * Token'ı doğrular ve içeriğini döner.
+     * @param token İstemcinin gönderdiği token
+     * @return Token içeriği
+     * @throws AuthenticationException Token bozuk, imzası yanlış, süresi dolmuş veya iptal edilmişse
+     */
+    public SessionToken verify(String token) {
+        SessionToken session = parse(token);
+        if (session == null) {
+            rejected.increment();
+            throw new AuthenticationException("Geçersiz oturum token'ı");
+        }
+        if (session.expiresAt() <= Instant.now().getEpochSecond()) {
+            rejected.increment();
+            throw new AuthenticationException("Oturum süresi doldu, lütfen tekrar giriş yapın");
+        }
+        if (isRevoked(session.tokenId())) {
+            rejected.increment();
+            throw new AuthenticationException("Oturum sonlandırılmış, lütfen tekrar giriş yapın");
+        }
+        verified.increment();
+        return session;
+    }
+
+    /**
+     * Token'ı süresi dolana kadar tüm node'larda geçersiz sayar (çıkış).
+     * @param token İptal edilecek token
+     */
+    public void revoke(String token) {
+        SessionToken session = parse(token);
+        if (session == null || session.expiresAt() <= Instant.now().getEpochSecond()) {
+            return;
+        }
+        jdbcTemplate.update(REVOKE_SQL, session.tokenId(),
+                Timestamp.from(Instant.ofEpochSecond(session.expiresAt())));
+        revocations().put(session.tokenId(), Boolean.TRUE);
+        cacheInvalidationBus.publish(REVOCATIONS_CACHE, session.tokenId());
+        revoked.increment();
+    }
+
+    /**
+     * Süresi dolmuş token'ları iptal tablosundan siler.
+     */
+    @Scheduled(fixedDelayString = "${auth.token.revocation-cleanup-interval:60000}")
+    public void purgeExpiredRevocations() {
+        try {
+            int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now()));
+            if (purged > 0) {
+                logger.debug("Süresi dolmuş {} token iptali silindi", purged);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Süresi dolmuş token iptalleri silinemedi: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Token'ın iptal edilip edilmediğini cache'ten, yoksa tablodan okur.
+     * Tablo okunamazsa imzası ve süresi geçerli token kabul edilir.
+     */
+    private boolean isRevoked(long tokenId) {
+        try {
+            Boolean result = revocations().get(tokenId, () -> {
+                revocationLookups.increment();
+                return jdbcTemplate.queryForObject(IS_REVOKED_SQL, Boolean.class, tokenId);
+            });
+            return Boolean.TRUE.equals(result);
+        } catch (Cache.ValueRetrievalException | DataAccessException e) {
+            revocationLookupFailures.increment();
+            logger.warn("Token iptal durumu okunamadı: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private Cache revocations() {
+        return cacheManager.getCache(REVOCATIONS_CACHE);
+    }
+
+    /**
+     * İmzayı kontrol edip payload'ı çözer; geçersizse null döner.
+     */
+    private SessionToken parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (payloadBytes.length != PAYLOAD_LENGTH || payloadBytes[0] != FORMAT_VERSION
+                || !MessageDigest.isEqual(sign(payloadBytes), signature)) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.wrap(payloadBytes, 1, PAYLOAD_LENGTH - 1);
+        UUID userId = new UUID(payload.getLong(), payload.getLong());
+        return new SessionToken(userId, payload.getLong(), payload.getLong(), payload.getLong());
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC başlatılamadı", e);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "sessionTokens";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("issued", issued.sum());
+        metrics.put("verified", verified.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("revoked", revoked.sum());
+        metrics.put("revocationLookups", revocationLookups.sum());
+        metrics.put("revocationLookupFailures", revocationLookupFailures.sum());
+        return metrics;
+    }
+
+    /**
+     * Doğrulanmış token içeriği.
+     */
+    public record SessionToken(UUID userId, long expiresAt, long profileVersion, long tokenId) {
+    }
+
+    /**
+     * Üretilen token ve bitiş zamanı.
+     */
+    public record IssuedToken(String token, Instant expiresAt) {
+    }
+}
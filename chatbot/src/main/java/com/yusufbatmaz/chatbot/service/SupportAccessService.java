@@ -0,0 +1,32 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.yusufbatmaz.chatbot.exception.AuthenticationException;
+
+/**
+ * Kullanıcılar arası işlemler (tüm geçmişte arama, toplu dışa aktarma) için
+ * X-Support-Key header'ını doğrular. Anahtar tanımlı değilse bu işlemler kapalıdır.
+ */
+@Service
+public class SupportAccessService {
+
+    public static final String HEADER = "X-Support-Key";
+
+    @Value("${support.key:}")
+    private String supportKey;
+
+    /**
+     * Anahtar geçersizse AuthenticationException fırlatır.
+     */
+    public void check(String key) {
+        if (supportKey == null || supportKey.isBlank() || key == null
+                || !MessageDigest.isEqual(supportKey.getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8))) {
+            throw new AuthenticationException("Bu işlem için geçerli destek anahtarı gerekli");
+        }
+    }
+}
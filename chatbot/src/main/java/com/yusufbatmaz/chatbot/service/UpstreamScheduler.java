@@ -0,0 +1,305 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.config.UpstreamSchedulerProperties;
+import com.yusufbatmaz.chatbot.exception.ServiceUnavailableException;
+import com.yusufbatmaz.chatbot.exception.TooManyRequestsException;
+
+/**
+ * OpenRouter'a giden istekler için sınırlı sayıda slotu kullanıcılar arasında
+ * adil dağıtan zamanlayıcı (Deficit Round Robin).
+ *
+ * Boş slot varken ve kimse beklemiyorken istek doğrudan geçer. Slotlar dolunca
+ * her kullanıcının kendi kuyruğu olur ve boşalan slotlar kullanıcılar arasında
+ * ağırlıklarına göre sırayla verilir. Böylece çok istek atan bir kullanıcı
+ * diğerlerinin önüne geçemez.
+ */
+@Service
+public class UpstreamScheduler implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamScheduler.class);
+
+    // Bekleme süresi histogramı sınırları (ms)
+    private static final long[] WAIT_BUCKETS_MS = {1, 10, 50, 100, 500, 1_000, 5_000, 10_000};
+
+    private final UpstreamSchedulerProperties properties;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Kullanıcı ID'si -> kuyruk (sadece bekleyen isteği olan kullanıcılar)
+    private final Map<String, UserQueue> queues = new HashMap<>();
+
+    // Bekleyen isteği olan kullanıcıların DRR sırası
+    private final ArrayDeque<UserQueue> activeRing = new ArrayDeque<>();
+
+    private int inFlight;
+    private int waiting;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalWaitMillis = new LongAdder();
+    private final LongAccumulator maxWaitMillis = new LongAccumulator(Long::max, 0);
+    private final AtomicLongArray waitHistogram = new AtomicLongArray(WAIT_BUCKETS_MS.length + 1);
+
+    public UpstreamScheduler(UpstreamSchedulerProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Kullanıcı için bir upstream slotu alır; gerekirse adil sırayla bekler.
+     * Dönen {@link Permit} kapatıldığında slot serbest bırakılır.
+     *
+     * @param userId Kullanıcı ID'si
+     * @return Slot izni
+     * @throws TooManyRequestsException Kullanıcının kuyruğu doluysa
+     * @throws ServiceUnavailableException Maksimum bekleme süresi aşılırsa
+     */
+    public Permit acquire(String userId) {
+        long start = System.nanoTime();
+        UserQueue queue = null;
+        Waiter waiter = null;
+
+        lock.lock();
+        try {
+            // Hızlı yol: boş slot var ve kimse beklemiyor
+            if (activeRing.isEmpty() && inFlight < properties.getMaxConcurrency()) {
+                inFlight++;
+                acquired.increment();
+                recordWait(0);
+                return new Permit();
+            }
+
+            queue = queues.computeIfAbsent(userId, id -> new UserQueue(id, weightOf(id)));
+            if (queue.waiters.size() >= properties.getMaxQueuePerUser()) {
+                rejectedQueueFull.increment();
+                throw new TooManyRequestsException(
+                        "Çok fazla eşzamanlı istek. Lütfen önceki mesajlarınızın tamamlanmasını bekleyin.", 1);
+            }
+
+            waiter = new Waiter(lock.newCondition());
+            queue.waiters.addLast(waiter);
+            waiting++;
+            queued.increment();
+            if (!queue.active) {
+                queue.active = true;
+                activeRing.addLast(queue);
+            }
+            dispatch();
+
+            long remaining = properties.getMaxWait().toNanos();
+            while (!waiter.granted && remaining > 0) {
+                remaining = waiter.condition.awaitNanos(remaining);
+            }
+
+            if (!waiter.granted) {
+                // Süre doldu: kuyruktan çık ve isteği reddet
+                abandon(queue, waiter);
+                timedOut.increment();
+                throw new ServiceUnavailableException(
+                        "AI servisi şu anda yoğun. Lütfen daha sonra tekrar deneyin.",
+                        Math.max(1, properties.getMaxWait().toSeconds() / 2));
+            }
+        } catch (InterruptedException e) {
+            // awaitNanos kilidi tekrar almış olarak fırlatır
+            if (waiter != null) {
+                if (waiter.granted) {
+                    // Slot bu arada verildiyse geri bırakılır, yoksa kalıcı olarak kaybolur
+                    inFlight--;
+                    dispatch();
+                } else {
+                    abandon(queue, waiter);
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("İstek iptal edildi", 1);
+        } finally {
+            lock.unlock();
+        }
+
+        acquired.increment();
+        recordWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return new Permit();
+    }
+
+    /**
+     * Slotu serbest bırakır ve sıradaki bekleyene verir.
+     */
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Boş slotları DRR sırasına göre bekleyenlere dağıtır.
+     * Çağıran kilidi tutmalıdır.
+     */
+    private void dispatch() {
+        while (inFlight < properties.getMaxConcurrency() && !activeRing.isEmpty()) {
+            UserQueue queue = activeRing.peekFirst();
+            if (queue.deficit < 1) {
+                // Yeni tur: kullanıcının ağırlığı kadar hak ekle
+                queue.deficit += queue.weight;
+            }
+
+            Waiter waiter = queue.waiters.pollFirst();
+            waiting--;
+            queue.deficit--;
+            inFlight++;
+            waiter.granted = true;
+            waiter.condition.signal();
+
+            if (queue.waiters.isEmpty()) {
+                activeRing.pollFirst();
+                queue.active = false;
+                queue.deficit = 0;
+                queues.remove(queue.userId, queue);
+            } else if (queue.deficit < 1) {
+                // Hakkı bitti, sıranın sonuna geç
+                activeRing.addLast(activeRing.pollFirst());
+            }
+        }
+    }
+
+    /**
+     * Slot almadan vazgeçen bekleyeni kuyruktan çıkarır.
+     * Çağıran kilidi tutmalıdır.
+     */
+    private void abandon(UserQueue queue, Waiter waiter) {
+        if (queue.waiters.remove(waiter)) {
+            waiting--;
+        }
+        if (queue.waiters.isEmpty()) {
+            deactivate(queue);
+        }
+    }
+
+    /**
+     * Bekleyeni kalmayan kuyruğu DRR sırasından çıkarır.
+     */
+    private void deactivate(UserQueue queue) {
+        if (queue.active) {
+            activeRing.remove(queue);
+            queue.active = false;
+            queue.deficit = 0;
+        }
+        queues.remove(queue.userId, queue);
+    }
+
+    private int weightOf(String userId) {
+        return Math.max(1, properties.getWeights().getOrDefault(userId, properties.getDefaultWeight()));
+    }
+
+    private void recordWait(long waitMillis) {
+        totalWaitMillis.add(waitMillis);
+        maxWaitMillis.accumulate(waitMillis);
+        int bucket = 0;
+        while (bucket < WAIT_BUCKETS_MS.length && waitMillis > WAIT_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        waitHistogram.incrementAndGet(bucket);
+        if (waitMillis > 1_000) {
+            logger.debug("Upstream slotu için uzun bekleme: {} ms", waitMillis);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "upstreamScheduler";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            metrics.put("inFlight", inFlight);
+            metrics.put("waiting", waiting);
+            metrics.put("waitingUsers", activeRing.size());
+        } finally {
+            lock.unlock();
+        }
+        long count = acquired.sum();
+        metrics.put("maxConcurrency", properties.getMaxConcurrency());
+        metrics.put("acquired", count);
+        metrics.put("queued", queued.sum());
+        metrics.put("rejectedQueueFull", rejectedQueueFull.sum());
+        metrics.put("timedOut", timedOut.sum());
+        metrics.put("avgWaitMillis", count == 0 ? 0 : totalWaitMillis.sum() / count);
+        metrics.put("maxWaitMillis", maxWaitMillis.get());
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < WAIT_BUCKETS_MS.length; i++) {
+            histogram.put("le" + WAIT_BUCKETS_MS[i] + "ms", waitHistogram.get(i));
+        }
+        histogram.put("gt" + WAIT_BUCKETS_MS[WAIT_BUCKETS_MS.length - 1] + "ms", waitHistogram.get(WAIT_BUCKETS_MS.length));
+        metrics.put("waitHistogram", histogram);
+        return metrics;
+    }
+
+    /**
+     * Alınan upstream slotu. try-with-resources ile kullanılır.
+     */
+    public final class Permit implements AutoCloseable {
+        private boolean released;
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release();
+            }
+        }
+    }
+
+    /**
+     * Bir kullanıcının bekleyen istekleri ve DRR hakkı.
+     */
+    private static final class UserQueue {
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private final String userId;
+        private final int weight;
+        private int deficit;
+        private boolean active;
+
+        private UserQueue(String userId, int weight) {
+            this.userId = userId;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Slot bekleyen tek bir istek.
+     */
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.yusufbatmaz.chatbot.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yusufbatmaz.chatbot.config.UserImportProperties;
+import com.yusufbatmaz.chatbot.exception.TooManyRequestsException;
+import com.yusufbatmaz.chatbot.exception.ValidationException;
+import com.yusufbatmaz.chatbot.model.User;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * CSV veya NDJSON formatındaki kullanıcı listesini akış halinde içe aktarır.
+ *
+ * Girdi satır satır okunur ve batch'ler halinde işlenir: her batch için emailler
+ * tek bir IN sorgusuyla veritabanında kontrol edilir, şifreler ayrı bir thread
+ * havuzunda paralel hashlenir ve kullanıcılar JDBC batch insert ile yazılır.
+ * Her satırın sonucu batch bitince NDJSON olarak hemen cevaba yazılır; ne girdi
+ * ne de rapor bellekte tutulur. Dosya içindeki tekrarlar batch içinde ayıklanır;
+ * önceki batch'lerde eklenen emailler veritabanı kontrolüne ve
+ * ux_user_email_lower tekil indeksine takılır.
+ */
+@Service
+public class UserImportService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final String EXISTING_EMAILS_SQL =
+            "SELECT lower(email) FROM \"user\" WHERE lower(email) IN (:emails)";
+
+    // Eşzamanlı bir kayıt aynı email'i aldıysa tekil indeks satırı atlatır
+    private static final String INSERT_SQL = "INSERT INTO \"user\" (id, first_name, last_name, email, password) "
+            + "VALUES (:id, :firstName, :lastName, :email, :password) ON CONFLICT DO NOTHING";
+
+    private static final List<String> CSV_COLUMNS = List.of("firstname", "lastname", "email", "password");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PasswordService passwordService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final UserImportProperties properties;
+    private final ExecutorService hashExecutor;
+    private final Semaphore importPermits;
+
+    public UserImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                             PasswordService passwordService,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             UserImportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordService = passwordService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        int threads = properties.getHashThreads() > 0
+                ? properties.getHashThreads() : Runtime.getRuntime().availableProcessors();
+        this.hashExecutor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("user-import-hash-"));
+        this.importPermits = new Semaphore(Math.max(1, properties.getMaxConcurrentImports()));
+    }
+
+    /**
+     * Girdi formatı.
+     */
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        /**
+         * Content-Type'a göre format seçer; "text/csv" dışındaki her şey NDJSON kabul edilir.
+         */
+        public static Format fromContentType(String contentType) {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv") ? CSV : NDJSON;
+        }
+    }
+
+    /**
+     * Kullanıcıları içe aktarır ve her satırın sonucunu NDJSON olarak yazar.
+     * Son satır toplam sayıları içeren özet satırıdır.
+     *
+     * @param input CSV (başlık satırı zorunlu: firstName,lastName,email,password) veya NDJSON
+     * @param format Girdi formatı
+     * @param output Rapor yazılacak akış
+     * @throws TooManyRequestsException Başka bir içe aktarma zaten çalışıyorsa
+     */
+    public void importUsers(InputStream input, Format format, OutputStream output) throws IOException {
+        if (!importPermits.tryAcquire()) {
+            throw new TooManyRequestsException("Şu anda başka bir içe aktarma çalışıyor. Lütfen daha sonra tekrar deneyin.", 30);
+        }
+        try {
+            run(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)),
+                    format, new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        } finally {
+            importPermits.release();
+        }
+    }
+
+    private void run(BufferedReader reader, Format format, Writer writer) throws IOException {
+        long start = System.currentTimeMillis();
+        Summary summary = new Summary();
+        int batchSize = Math.max(1, properties.getBatchSize());
+
+        Map<String, Integer> csvColumns = null;
+        int lineNumber = 0;
+        List<Row> batch = new ArrayList<>(batchSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && csvColumns == null) {
+                csvColumns = parseHeader(line);
+                continue;
+            }
+
+            Row row = new Row(lineNumber);
+            try {
+                row.user = format == Format.CSV ? parseCsv(line, csvColumns) : parseJson(line);
+                validate(row.user);
+            } catch (ValidationException e) {
+                row.fail(Status.INVALID, e.getMessage());
+            }
+            batch.add(row);
+
+            if (batch.size() >= batchSize) {
+                processBatch(batch, summary, writer);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            processBatch(batch, summary, writer);
+        }
+
+        summary.elapsedMillis = System.currentTimeMillis() - start;
+        writer.write(objectMapper.writeValueAsString(Map.of("summary", summary.toMap())));
+        writer.write('\n');
+        writer.flush();
+        logger.info("Kullanıcı içe aktarma tamamlandı - {}", summary.toMap());
+    }
+
+    /**
+     * Bir batch'i veritabanı kontrolü, paralel hash ve batch insert ile işler, sonuçları yazar.
+     */
+    private void processBatch(List<Row> batch, Summary summary, Writer writer) throws IOException {
+        List<Row> pending = new ArrayList<>();
+        for (Row row : batch) {
+            if (row.status == null) {
+                pending.add(row);
+            }
+        }
+
+        try {
+            markExisting(pending);
+            pending.removeIf(row -> row.status != null);
+            hashPasswords(pending);
+            pending.removeIf(row -> row.status != null);
+            insert(pending);
+        } catch (DataAccessException e) {
+            logger.error("İçe aktarma batch'i veritabanına yazılamadı", e);
+            for (Row row : pending) {
+                if (row.status == null) {
+                    row.fail(Status.FAILED, "Veritabanı hatası");
+                }
+            }
+        }
+
+        for (Row row : batch) {
+            summary.count(row.status);
+            writer.write(objectMapper.writeValueAsString(row.toReport()));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Batch içindeki tekrarları ve veritabanında zaten kayıtlı emailleri
+     * (tek bir IN sorgusuyla) işaretler.
+     */
+    private void markExisting(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<String, Row> byEmail = new HashMap<>();
+        for (Row row : rows) {
+            // Aynı batch'te tekrar eden email; ilk satır kalır
+            if (byEmail.putIfAbsent(row.user.getEmail().trim().toLowerCase(Locale.ROOT), row) != null) {
+                row.fail(Status.DUPLICATE, "Email dosyada birden fazla kez geçiyor");
+            }
+        }
+        List<String> existing = jdbcTemplate.queryForList(EXISTING_EMAILS_SQL,
+                new MapSqlParameterSource("emails", byEmail.keySet()), String.class);
+        for (String email : existing) {
+            Row row = byEmail.get(email);
+            if (row != null) {
+                row.fail(Status.DUPLICATE, "Bu email ile zaten kayıtlı bir kullanıcı var");
+            }
+        }
+    }
+
+    /**
+     * Şifreleri içe aktarma havuzunda paralel hashler.
+     */
+    private void hashPasswords(List<Row> rows) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            futures.add(CompletableFuture.runAsync(
+                    () -> row.user.setPassword(passwordService.hashPasswordInline(row.user.getPassword())),
+                    hashExecutor));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).join();
+            } catch (CompletionException e) {
+                rows.get(i).fail(Status.FAILED, "Şifre hashlenemedi");
+            }
+        }
+    }
+
+    private void insert(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource[] params = new MapSqlParameterSource[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            User user = rows.get(i).user;
+            UUID id = UUID.randomUUID();
+            user.setId(id);
+            params[i] = new MapSqlParameterSource()
+                    .addValue("id", id)
+                    .addValue("firstName", user.getFirstName().trim())
+                    .addValue("lastName", user.getLastName().trim())
+                    .addValue("email", user.getEmail().trim())
+                    .addValue("password", user.getPassword());
+        }
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, params);
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            if (counts[i] == 0) {
+                row.fail(Status.DUPLICATE, "Bu email ile zaten kayıtlı bir kullanıcı var");
+            } else {
+                row.status = Status.CREATED;
+            }
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        List<String> header = parseCsvLine(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new ValidationException("CSV başlığında '" + column + "' kolonu eksik");
+            }
+        }
+        return columns;
+    }
+
+    private User parseCsv(String line, Map<String, Integer> columns) {
+        List<String> values = parseCsvLine(line);
+        User user = new User();
+        user.setFirstName(column(values, columns.get("firstname")));
+        user.setLastName(column(values, columns.get("lastname")));
+        user.setEmail(column(values, columns.get("email")));
+        user.setPassword(column(values, columns.get("password")));
+        return user;
+    }
+
+    private static String column(List<String> values, int index) {
+        return index < values.size() ? values.get(index) : null;
+    }
+
+    /**
+     * Tek satırlık CSV ayrıştırıcı; tırnaklı alanları ve "" kaçışını destekler.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private User parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Geçersiz JSON satırı");
+        }
+        User user = new User();
+        user.setFirstName(node.path("firstName").asText(null));
+        user.setLastName(node.path("lastName").asText(null));
+        user.setEmail(node.path("email").asText(null));
+        user.setPassword(node.path("password").asText(null));
+        return user;
+    }
+
+    /**
+     * Kayıt endpoint'indeki @Valid ile aynı Bean Validation kurallarını uygular.
+     */
+    private void validate(User user) {
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.iterator().next().getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        hashExecutor.shutdownNow();
+    }
+
+    private enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+
+    /**
+     * İçe aktarılan tek bir satır ve sonucu.
+     */
+    private static final class Row {
+        private final int line;
+        private User user;
+        private Status status;
+        private String message;
+
+        private Row(int line) {
+            this.line = line;
+        }
+
+        private void fail(Status status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+
+        private Map<String, Object> toReport() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("line", line);
+            report.put("email", user != null ? user.getEmail() : null);
+            report.put("status", status);
+            if (status == Status.CREATED) {
+                report.put("id", user.getId());
+            } else {
+                report.put("message", message);
+            }
+            return report;
+        }
+    }
+
+    /**
+     * İçe aktarma özet sayaçları.
+     */
+    private static final class Summary {
+        private final Map<Status, Integer> counts = new LinkedHashMap<>();
+        private int total;
+        private long elapsedMillis;
+
+        private void count(Status status) {
+            total++;
+            counts.merge(status, 1, Integer::sum);
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("total", total);
+            for (Status status : Status.values()) {
+                map.put(status.name().toLowerCase(Locale.ROOT), counts.getOrDefault(status, 0));
+            }
+            map.put("elapsedMs", elapsedMillis);
+            return map;
+        }
+    }
+}
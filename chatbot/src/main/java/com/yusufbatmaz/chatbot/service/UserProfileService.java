@@ -1,13 +1,22 @@
 package com.yusufbatmaz.chatbot.service;
 
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.yusufbatmaz.chatbot.cache.CacheInvalidationBus;
 import com.yusufbatmaz.chatbot.exception.NotFoundException;
+import com.yusufbatmaz.chatbot.exception.PreconditionFailedException;
+import com.yusufbatmaz.chatbot.exception.ValidationException;
+import com.yusufbatmaz.chatbot.model.TraitRegistry;
 import com.yusufbatmaz.chatbot.model.User;
 import com.yusufbatmaz.chatbot.model.UserProfile;
 import com.yusufbatmaz.chatbot.model.UserProfileDTO;
@@ -17,16 +26,32 @@ import com.yusufbatmaz.chatbot.repository.UserRepository;
 /**
  * Kullanıcı profil bilgilerini yöneten servis sınıfı.
  * Dil tespiti, profil güncelleme ve kişiselleştirme işlemlerini gerçekleştirir.
+ *
+ * Profilin versiyonu (ETag) "profileVersions" cache'inde tutulur; koşullu
+ * okumalar cache isabetinde veritabanına gitmez. Yazmalar commit sonrası yeni
+ * versiyonu yerel cache'e yazar ve diğer node'lara invalidation gönderir.
  */
 @Service
 public class UserProfileService {
     
+    public static final String PROFILE_VERSIONS_CACHE = "profileVersions";
+    
     private final UserProfileRepository userProfileRepository;
     private final UserRepository userRepository;
+    private final UserService userService;
+    private final ProfileWriteBehind profileWriteBehind;
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus cacheInvalidationBus;
     
-    public UserProfileService(UserProfileRepository userProfileRepository, UserRepository userRepository) {
+    public UserProfileService(UserProfileRepository userProfileRepository, UserRepository userRepository,
+                              UserService userService, ProfileWriteBehind profileWriteBehind,
+                              CacheManager cacheManager, CacheInvalidationBus cacheInvalidationBus) {
         this.userProfileRepository = userProfileRepository;
         this.userRepository = userRepository;
+        this.userService = userService;
+        this.profileWriteBehind = profileWriteBehind;
+        this.cacheManager = cacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
     
     /**
@@ -35,8 +60,39 @@ public class UserProfileService {
      * @return Kullanıcı profili
      */
     public UserProfile getUserProfile(UUID userId) {
-        return userProfileRepository.findByUser_Id(userId)
+        UserProfile profile = userProfileRepository.findByUser_Id(userId)
                 .orElseGet(() -> createDefaultProfile(userId));
+        rememberVersion(userId, versionOf(profile));
+        return profile;
+    }
+    
+    /**
+     * Profilin dışarıya verilen versiyonunu döner.
+     * Kaydedilmemiş varsayılan profil 0, kayıtlı profiller 1'den başlar. Toplu yazımın
+     * eklediği varsayılan satır -1 versiyonla yazılır; içeriği değişmediği için o da 0'dır.
+     */
+    public static long versionOf(UserProfile profile) {
+        return profile.getVersion() == null ? 0 : profile.getVersion() + 1;
+    }
+    
+    /**
+     * Profil versiyonunu cache'ten döner; cache'te yoksa null (veritabanına gitmez)
+     * @param userId Kullanıcı ID'si
+     * @return Bilinen son versiyon veya null
+     */
+    public Long getCachedVersion(UUID userId) {
+        Cache.ValueWrapper cached = versionCache().get(userId);
+        return cached != null ? (Long) cached.get() : null;
+    }
+    
+    /**
+     * Profil versiyonunu döner; cache'te yoksa profil okunur
+     * @param userId Kullanıcı ID'si
+     * @return Profil versiyonu
+     */
+    public long getProfileVersion(UUID userId) {
+        Long cached = getCachedVersion(userId);
+        return cached != null ? cached : versionOf(getUserProfile(userId));
     }
     
     /**
@@ -46,7 +102,7 @@ public class UserProfileService {
      */
     private UserProfile createDefaultProfile(UUID userId) {
         // Ensure the user exists for association (but do not persist profile here)
-        User user = userRepository.findById(userId)
+        User user = userService.getUserById(userId)
             .orElseThrow(() -> new NotFoundException("User not found for profile creation"));
 
         UserProfile profile = new UserProfile();
@@ -62,16 +118,20 @@ public class UserProfileService {
      * Kullanıcı profil bilgilerini günceller
      * @param userId Kullanıcı ID'si
      * @param profile Güncellenecek profil bilgileri
+     * @param expectedVersion İstemcinin bildiği versiyon (If-Match); null ise kontrol edilmez
      * @return Güncellenmiş profil
+     * @throws PreconditionFailedException Profil bu arada değiştiyse
      */
     @Transactional
-    public UserProfile updateUserProfile(UUID userId, UserProfileDTO profile) {
+    public UserProfile updateUserProfile(UUID userId, UserProfileDTO profile, Long expectedVersion) {
         // Always attach the managed existing user entity
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new NotFoundException("User not found for profile update"));
 
         // Ensure a persistent profile entity exists for this user
-        UserProfile existingProfile = userProfileRepository.findByUser_Id(userId)
+        Optional<UserProfile> found = userProfileRepository.findByUser_Id(userId);
+        checkVersion(found.map(UserProfileService::versionOf).orElse(0L), expectedVersion);
+        UserProfile existingProfile = found
                 .orElseGet(() -> {
                     UserProfile created = new UserProfile();
                     created.setUser(user);
@@ -96,6 +156,10 @@ public class UserProfileService {
             existingProfile.setPersonality(profile.getPersonality());
         }
         if (profile.getTraits() != null) {
+            Set<String> unknownTraits = TraitRegistry.unknown(profile.getTraits());
+            if (!unknownTraits.isEmpty()) {
+                throw new ValidationException("Bilinmeyen özellik: " + String.join(", ", unknownTraits));
+            }
             existingProfile.setTraits(profile.getTraits());
         }
         if (profile.getAdditionalInfo() != null) {
@@ -108,32 +172,41 @@ public class UserProfileService {
             existingProfile.setEnableForNewChats(profile.getEnableForNewChats());
         }
         
-        return userProfileRepository.save(existingProfile);
+        return save(userId, existingProfile);
     }
     
     /**
      * Kullanıcının tercih ettiği dili günceller
      * @param userId Kullanıcı ID'si
      * @param language Yeni dil kodu
+     * @param expectedVersion İstemcinin bildiği versiyon (If-Match); null ise kontrol edilmez
      * @return Güncellenmiş profil
+     * @throws PreconditionFailedException Profil bu arada değiştiyse
      */
     @Transactional
-    public UserProfile updatePreferredLanguage(UUID userId, String language) {
+    public UserProfile updatePreferredLanguage(UUID userId, String language, Long expectedVersion) {
         UserProfile profile = getUserProfile(userId);
+        checkVersion(versionOf(profile), expectedVersion);
         profile.setPreferredLanguage(language);
-        return userProfileRepository.save(profile);
+        return save(userId, profile);
     }
     
     /**
-     * Kullanıcının ana dilini otomatik tespit eder ve kaydeder
+     * Kullanıcının ana dilini otomatik tespit eder ve kaydeder.
+     * Yazma toplu yapılır; profilde zaten bir ana dil varsa değişmez.
      * @param userId Kullanıcı ID'si
      * @param detectedLanguage Tespit edilen dil
      */
-    @Transactional
     public void updateNativeLanguage(UUID userId, String detectedLanguage) {
-        UserProfile profile = getUserProfile(userId);
-        profile.setNativeLanguage(detectedLanguage);
-        userProfileRepository.save(profile);
+        profileWriteBehind.recordNativeLanguage(userId, detectedLanguage);
+    }
+    
+    /**
+     * Kullanıcının mesaj gönderdiğini kaydeder (son görülme ve mesaj sayısı)
+     * @param userId Kullanıcı ID'si
+     */
+    public void recordMessage(UUID userId) {
+        profileWriteBehind.recordMessage(userId);
     }
     
     /**
@@ -141,17 +214,66 @@ public class UserProfileService {
      * @param userId Kullanıcı ID'si
      * @param language Zorlanacak dil
      * @param force Zorlama aktif mi
+     * @param expectedVersion İstemcinin bildiği versiyon (If-Match); null ise kontrol edilmez
+     * @return Güncellenmiş profil
+     * @throws PreconditionFailedException Profil bu arada değiştiyse
      */
     @Transactional
-    public void setForcedResponseLanguage(UUID userId, String language, boolean force) {
+    public UserProfile setForcedResponseLanguage(UUID userId, String language, boolean force, Long expectedVersion) {
         UserProfile profile = getUserProfile(userId);
+        checkVersion(versionOf(profile), expectedVersion);
         profile.setForceResponseLanguage(force);
         if (force) {
             profile.setForcedResponseLanguage(language);
         } else {
             profile.setForcedResponseLanguage(null);
         }
-        userProfileRepository.save(profile);
+        return save(userId, profile);
+    }
+    
+    /**
+     * İstemcinin bildiği versiyon güncel değilse güncellemeyi reddeder.
+     * Kontrol ile commit arasındaki yarışı @Version yakalar.
+     */
+    private static void checkVersion(long currentVersion, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != currentVersion) {
+            throw new PreconditionFailedException("Profil başka bir istekle değiştirildi. Lütfen güncel hali alıp tekrar deneyin.");
+        }
+    }
+    
+    /**
+     * Profili kaydeder; yeni versiyon commit sonrası cache'e yazılır ve diğer node'lara bildirilir.
+     */
+    private UserProfile save(UUID userId, UserProfile profile) {
+        UserProfile saved = userProfileRepository.save(profile);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // Versiyon flush sırasında entity üzerinde güncellenir
+                    rememberVersion(userId, versionOf(saved));
+                }
+            });
+        } else {
+            rememberVersion(userId, versionOf(saved));
+        }
+        cacheInvalidationBus.publish(PROFILE_VERSIONS_CACHE, userId);
+        return saved;
+    }
+    
+    /**
+     * Versiyonu cache'e yazar. Eş zamanlı bir okuma eski versiyonu yazıp
+     * commit edilmiş yenisini ezmesin diye yalnızca daha büyük değer yazılır.
+     */
+    private void rememberVersion(UUID userId, long version) {
+        Long cached = getCachedVersion(userId);
+        if (cached == null || cached < version) {
+            versionCache().put(userId, version);
+        }
+    }
+    
+    private Cache versionCache() {
+        return cacheManager.getCache(PROFILE_VERSIONS_CACHE);
     }
     
     /**
@@ -164,6 +286,16 @@ public class UserProfileService {
         return profile.getResponseLanguage();
     }
     
+    /**
+     * Kullanıcının hitap edilmek istediği takma adı döner
+     * @param userId Kullanıcı ID'si
+     * @return Takma ad; tanımlı değilse null
+     */
+    public String getNickname(UUID userId) {
+        UserProfile profile = getUserProfile(userId);
+        return profile.getNickname();
+    }
+    
     /**
      * Kullanıcının ChatBot kişilik ayarlarını döner
      * @param userId Kullanıcı ID'si
@@ -1,14 +1,20 @@
 package com.yusufbatmaz.chatbot.service;
 
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import com.yusufbatmaz.chatbot.cache.CacheInvalidationBus;
+import com.yusufbatmaz.chatbot.exception.ConflictException;
 import com.yusufbatmaz.chatbot.exception.DatabaseException;
+import com.yusufbatmaz.chatbot.exception.ServiceUnavailableException;
 import com.yusufbatmaz.chatbot.exception.ValidationException;
 import com.yusufbatmaz.chatbot.model.User;
 import com.yusufbatmaz.chatbot.repository.UserRepository;
@@ -26,6 +32,13 @@ public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
     private final PasswordService passwordService;
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    // Cache isimleri (TTL'ler CacheConfig.CacheTTL'de)
+    static final String USERS_CACHE = "users";
+    static final String USERS_BY_EMAIL_CACHE = "usersByEmail";
+    static final String MISSING_USERS_CACHE = "missingUsers";
 
     /**
      * Yeni kullanıcı oluşturur ve veritabanına kaydeder.
@@ -42,11 +55,16 @@ public class UserService {
             user.setPassword(hashedPassword);
             
             User createdUser = userRepository.save(user);
+            cacheUser(createdUser); // Write-through: ilk sohbet mesajı DB'ye gitmesin
             logger.info("Yeni kullanıcı oluşturuldu: {}", createdUser.getEmail());
             return createdUser;
         } catch (DataIntegrityViolationException e) {
-            logger.error("Kullanıcı oluşturulurken veri bütünlüğü hatası", e);
-            throw new DatabaseException("Kullanıcı kaydedilirken hata oluştu", e);
+            // existsByEmail kontrolü ile kayıt arasındaki yarışı tekil email indeksi yakalar
+            logger.warn("Kullanıcı oluşturulurken veri bütünlüğü hatası - Email: {}", user.getEmail());
+            throw new ConflictException("Bu email ile zaten kayıtlı bir kullanıcı var.");
+        } catch (ServiceUnavailableException e) {
+            // BCrypt havuzu dolu: 503 + Retry-After olarak dönmeli
+            throw e;
         } catch (Exception e) {
             logger.error("Kullanıcı oluşturulurken beklenmeyen hata", e);
             throw new DatabaseException("Kullanıcı oluşturulurken hata oluştu", e);
@@ -55,6 +73,7 @@ public class UserService {
 
     /**
      * ID'ye göre kullanıcıyı bulur.
+     * Sonuç cache'lenir; bulunamayan ID'ler de kısa süreliğine hatırlanır.
      * @param id Kullanıcı UUID
      * @return Optional<User>
      */
@@ -62,7 +81,19 @@ public class UserService {
         if (id == null) {
             throw new ValidationException("Kullanıcı ID'si boş olamaz");
         }
-        return userRepository.findById(id);
+        if (cache(MISSING_USERS_CACHE).get(id) != null) {
+            return Optional.empty();
+        }
+
+        Cache users = cache(USERS_CACHE);
+        User user = users.get(id, () -> userRepository.findById(id).orElse(null));
+        if (user == null) {
+            // Negatif cache: var olmayan ID'ler her istekte DB'ye gitmesin
+            users.evict(id);
+            cache(MISSING_USERS_CACHE).put(id, Boolean.TRUE);
+            return Optional.empty();
+        }
+        return Optional.of(user);
     }
 
     /**
@@ -86,7 +117,15 @@ public class UserService {
         if (email == null || email.trim().isEmpty()) {
             throw new ValidationException("Email adresi boş olamaz");
         }
-        return userRepository.findByEmail(email);
+        Cache usersByEmail = cache(USERS_BY_EMAIL_CACHE);
+        String key = emailKey(email);
+        User user = usersByEmail.get(key, () -> userRepository.findByEmail(email).orElse(null));
+        if (user == null) {
+            usersByEmail.evict(key);
+            return Optional.empty();
+        }
+        cache(USERS_CACHE).put(user.getId(), user);
+        return Optional.of(user);
     }
 
     /**
@@ -114,6 +153,9 @@ public class UserService {
                 // BCrypt ile şifre karşılaştırması
                 if (foundUser.getPassword() != null && passwordService.matches(password, foundUser.getPassword())) {
                     logger.info("Kullanıcı başarıyla giriş yaptı: {}", email);
+                    if (passwordService.needsRehash(foundUser.getPassword())) {
+                        rehashPasswordAsync(foundUser, password);
+                    }
                     return user;
                 } else {
                     logger.warn("Şifre eşleşmedi - Email: {}", email);
@@ -123,12 +165,64 @@ public class UserService {
                 logger.warn("Kullanıcı bulunamadı - Email: {}", email);
                 return Optional.empty();
             }
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Kullanıcı doğrulama sırasında hata", e);
             throw new DatabaseException("Kullanıcı doğrulama sırasında hata oluştu", e);
         }
     }
 
+    /**
+     * Farklı BCrypt maliyetiyle kaydedilmiş şifreyi arka planda güncel maliyetle yeniden hashler.
+     * Giriş cevabı beklemez; havuz doluysa bir sonraki girişte tekrar denenir.
+     * @param user Giriş yapan kullanıcı
+     * @param plainPassword Doğrulanmış şifre
+     */
+    private void rehashPasswordAsync(User user, String plainPassword) {
+        UUID userId = user.getId();
+        String oldHash = user.getPassword();
+        passwordService.hashPasswordAsync(plainPassword).thenAccept(newHash -> {
+            if (newHash == null) {
+                return;
+            }
+            // Bu arada şifre değiştiyse yeni şifrenin üzerine yazma
+            if (userRepository.updatePasswordIfUnchanged(userId, oldHash, newHash) == 1) {
+                cache(USERS_CACHE).evict(userId);
+                cache(USERS_BY_EMAIL_CACHE).evict(emailKey(user.getEmail()));
+                cacheInvalidationBus.publish(USERS_CACHE, userId);
+                cacheInvalidationBus.publish(USERS_BY_EMAIL_CACHE, emailKey(user.getEmail()));
+                logger.info("Şifre hash'i güncel BCrypt maliyetine taşındı - Kullanıcı: {}", userId);
+            }
+        }).exceptionally(e -> {
+            logger.warn("Şifre yeniden hashlenemedi - Kullanıcı: {}", userId, e);
+            return null;
+        });
+    }
+
+    /**
+     * Kullanıcıyı ID ve email cache'lerine yazar.
+     * @param user Kaydedilmiş kullanıcı
+     */
+    private void cacheUser(User user) {
+        cache(USERS_CACHE).put(user.getId(), user);
+        cache(USERS_BY_EMAIL_CACHE).put(emailKey(user.getEmail()), user);
+        cache(MISSING_USERS_CACHE).evict(user.getId());
+        // Diğer node'lar bu ID'yi "bulunamadı" olarak cache'lemiş olabilir
+        cacheInvalidationBus.publish(MISSING_USERS_CACHE, user.getId());
+    }
+
+    /**
+     * Email aramaları büyük/küçük harf duyarsız olduğu için cache anahtarı da normalize edilir.
+     */
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+
     /**
      * Kullanıcı kayıt validasyonu yapar.
      * @param user Kayıt olacak kullanıcı
@@ -0,0 +1,355 @@
+package com.yusufbatmaz.chatbot.websocket;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.yusufbatmaz.chatbot.model.User;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+
+/**
+ * Tek bir WebSocket bağlantısının durumu: doğrulanmış kullanıcı, açık akışlar ve giden frame kuyruğu.
+ *
+ * Bağlantıda aynı anda yalnızca bir asenkron gönderim yapılır. Gönderim sürerken
+ * gelen cevap parçaları akış başına biriktirilir ve sıradaki gönderimde tek frame
+ * olarak yollanır; yavaş okuyan istemci daha az ama daha büyük frame alır, sunucu
+ * tarafı hiçbir zaman gönderimi beklemez. Akışlar arasında sırayla gönderilir.
+ * Bir akışın bitiş frame'i, o akışın biriken parçalarından sonra gider.
+ *
+ * Hazır frame kuyruğu sınırlıdır: okumayan istemci kuyruğu doldurursa bağlantı
+ * TRY_AGAIN_LATER ile kapatılır. Bekleyen pong varken gelen ping yeni frame eklemez.
+ */
+final class ChatSocketConnection {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSocketConnection.class);
+
+    private final Session session;
+    private final ObjectMapper objectMapper;
+    private final LongAdder framesSent;
+    private final int maxQueuedFrames;
+
+    private final Object lock = new Object();
+    // Sırayla gönderilecek hazır frame'ler (kontrol ve bitiş frame'leri)
+    private final ArrayDeque<String> frames = new ArrayDeque<>();
+    // Akış ID'si -> henüz gönderilmemiş cevap parçaları (ekleme sırasına göre)
+    private final Map<String, StringBuilder> pendingTokens = new LinkedHashMap<>();
+    // Kuyrukta bekleyen pong; yeni ping'ler bununla birleştirilir
+    private String queuedPong;
+    private boolean sending;
+    private boolean closed;
+    private CloseReason closeAfterFlush;
+
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>(4);
+
+    // Parça parça gelen istemci mesajı; yalnızca container thread'i erişir
+    private StringBuilder inbound;
+
+    private volatile User user;
+
+    ChatSocketConnection(Session session, ObjectMapper objectMapper, LongAdder framesSent, int maxQueuedFrames) {
+        this.session = session;
+        this.objectMapper = objectMapper;
+        this.framesSent = framesSent;
+        this.maxQueuedFrames = maxQueuedFrames;
+    }
+
+    Session session() {
+        return session;
+    }
+
+    User user() {
+        return user;
+    }
+
+    void authenticate(User user) {
+        this.user = user;
+    }
+
+    /**
+     * Gelen mesaj parçasını ekler; tamamlanan mesajı, mesaj sürüyorsa null döner.
+     * @throws IllegalStateException Mesaj sınırı aşıldıysa
+     */
+    String appendFragment(String fragment, boolean last, int maxLength) {
+        if (last && inbound == null) {
+            if (fragment.length() > maxLength) {
+                throw new IllegalStateException("Mesaj çok uzun");
+            }
+            return fragment;
+        }
+        if (inbound == null) {
+            inbound = new StringBuilder(fragment.length() * 2);
+        }
+        if (inbound.length() + fragment.length() > maxLength) {
+            inbound = null;
+            throw new IllegalStateException("Mesaj çok uzun");
+        }
+        inbound.append(fragment);
+        if (!last) {
+            return null;
+        }
+        String message = inbound.toString();
+        inbound = null;
+        return message;
+    }
+
+    /**
+     * Yeni akış açar; aynı ID ile açık akış varsa null döner.
+     */
+    Stream openStream(String id) {
+        Stream stream = new Stream(id);
+        return streams.putIfAbsent(id, stream) == null ? stream : null;
+    }
+
+    int activeStreams() {
+        return streams.size();
+    }
+
+    /**
+     * Akışı iptal eder; akış bir sonraki cevap parçasında durur.
+     */
+    boolean cancel(String id) {
+        Stream stream = streams.get(id);
+        if (stream == null) {
+            return false;
+        }
+        stream.cancelled = true;
+        return true;
+    }
+
+    /**
+     * Cevap parçasını akışın bekleyen metnine ekler.
+     */
+    void sendToken(Stream stream, String text) {
+        synchronized (lock) {
+            if (closed || stream.cancelled) {
+                return;
+            }
+            pendingTokens.computeIfAbsent(stream.id, id -> new StringBuilder()).append(text);
+        }
+        pump();
+    }
+
+    /**
+     * Akışı kapatır; son frame, akışın bekleyen parçalarından sonra gönderilir.
+     */
+    void finish(Stream stream, ObjectNode lastFrame) {
+        streams.remove(stream.id, stream);
+        boolean overflow = false;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            StringBuilder pending = pendingTokens.remove(stream.id);
+            if (pending != null && !stream.cancelled) {
+                frames.add(tokenFrame(stream.id, pending));
+            }
+            if (!enqueue(lastFrame.toString())) {
+                overflow = true;
+            }
+        }
+        afterEnqueue(overflow);
+    }
+
+    /**
+     * Bağımsız bir frame'i (ready, hata) kuyruğa ekler.
+     */
+    void send(ObjectNode frame) {
+        boolean overflow;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            overflow = !enqueue(frame.toString());
+        }
+        afterEnqueue(overflow);
+    }
+
+    /**
+     * Pong frame'ini kuyruğa ekler; gönderilmemiş bir pong varsa yenisi eklenmez.
+     */
+    void sendPong(ObjectNode frame) {
+        boolean overflow;
+        synchronized (lock) {
+            if (closed || queuedPong != null) {
+                return;
+            }
+            String pong = frame.toString();
+            overflow = !enqueue(pong);
+            if (!overflow) {
+                queuedPong = pong;
+            }
+        }
+        afterEnqueue(overflow);
+    }
+
+    /**
+     * Frame'i sınır dahilinde kuyruğa ekler. Kuyruk doluysa istemci okumuyor
+     * demektir; bağlantı kapalı işaretlenir ve false döner. Çağıran kilidi tutmalıdır.
+     */
+    private boolean enqueue(String frame) {
+        if (frames.size() < maxQueuedFrames) {
+            frames.add(frame);
+            return true;
+        }
+        closed = true;
+        frames.clear();
+        pendingTokens.clear();
+        queuedPong = null;
+        return false;
+    }
+
+    /**
+     * Kuyruğa eklemeden sonra (kilit dışında) gönderimi başlatır ya da taşmada bağlantıyı kapatır.
+     */
+    private void afterEnqueue(boolean overflow) {
+        if (overflow) {
+            logger.debug("WebSocket frame kuyruğu doldu, bağlantı kapatılıyor");
+            close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Gönderim kuyruğu doldu"));
+            return;
+        }
+        pump();
+    }
+
+    /**
+     * Kuyruktaki frame'ler gönderildikten sonra bağlantıyı kapatır.
+     */
+    void closeAfterFlush(CloseReason reason) {
+        synchronized (lock) {
+            if (closed || closeAfterFlush != null) {
+                return;
+            }
+            closeAfterFlush = reason;
+        }
+        pump();
+    }
+
+    /**
+     * Bağlantı kapandığında çağrılır; açık akışlar iptal edilir ve buffer'lar bırakılır.
+     * @return Kapanışta iptal edilen akış sayısı
+     */
+    int onClosed() {
+        synchronized (lock) {
+            closed = true;
+            frames.clear();
+            pendingTokens.clear();
+        }
+        int cancelled = 0;
+        for (Stream stream : streams.values()) {
+            stream.cancelled = true;
+            cancelled++;
+        }
+        return cancelled;
+    }
+
+    /**
+     * Gönderim yoksa sıradaki frame'i gönderir. Tamamlanınca kendini tekrar çağırır.
+     */
+    private void pump() {
+        String next;
+        CloseReason closeReason = null;
+        synchronized (lock) {
+            if (sending || closed) {
+                return;
+            }
+            next = nextFrame();
+            if (next == null) {
+                if (closeAfterFlush == null) {
+                    return;
+                }
+                closeReason = closeAfterFlush;
+                closed = true;
+            } else {
+                sending = true;
+            }
+        }
+        if (closeReason != null) {
+            close(closeReason);
+            return;
+        }
+        try {
+            session.getAsyncRemote().sendText(next, this::onSent);
+        } catch (RuntimeException e) {
+            // Bağlantı bu arada kapanmış olabilir
+            onSent(new SendResult(e));
+        }
+    }
+
+    private void onSent(SendResult result) {
+        synchronized (lock) {
+            sending = false;
+        }
+        if (!result.isOK()) {
+            logger.debug("WebSocket frame'i gönderilemedi, bağlantı kapatılıyor: {}", result.getException().getMessage());
+            close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Gönderim zaman aşımı"));
+            return;
+        }
+        framesSent.increment();
+        pump();
+    }
+
+    /**
+     * Önce hazır frame'ler, sonra en eski bekleyen akışın biriken parçaları.
+     */
+    private String nextFrame() {
+        String frame = frames.poll();
+        if (frame != null) {
+            if (frame == queuedPong) {
+                queuedPong = null;
+            }
+            return frame;
+        }
+        Iterator<Map.Entry<String, StringBuilder>> iterator = pendingTokens.entrySet().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, StringBuilder> entry = iterator.next();
+        iterator.remove();
+        return tokenFrame(entry.getKey(), entry.getValue());
+    }
+
+    private String tokenFrame(String id, CharSequence text) {
+        return objectMapper.createObjectNode()
+                .put("type", "token")
+                .put("id", id)
+                .put("text", text.toString())
+                .toString();
+    }
+
+    private void close(CloseReason reason) {
+        try {
+            if (session.isOpen()) {
+                session.close(reason);
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("WebSocket bağlantısı kapatılamadı: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Bağlantıdaki tek bir akış (istemcinin verdiği ID ile bir soru-cevap).
+     */
+    static final class Stream {
+        final String id;
+        volatile boolean cancelled;
+
+        private Stream(String id) {
+            this.id = id;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.yusufbatmaz.chatbot.websocket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.yusufbatmaz.chatbot.config.AuthTokenProperties;
+import com.yusufbatmaz.chatbot.config.ChatWebSocketProperties;
+import com.yusufbatmaz.chatbot.config.MetricsSource;
+import com.yusufbatmaz.chatbot.config.RateLimitConfig;
+import com.yusufbatmaz.chatbot.config.RateLimiter;
+import com.yusufbatmaz.chatbot.exception.AuthenticationException;
+import com.yusufbatmaz.chatbot.exception.ServiceUnavailableException;
+import com.yusufbatmaz.chatbot.exception.TooManyRequestsException;
+import com.yusufbatmaz.chatbot.exception.ValidationException;
+import com.yusufbatmaz.chatbot.model.ChatMessage;
+import com.yusufbatmaz.chatbot.model.User;
+import com.yusufbatmaz.chatbot.service.ChatService;
+import com.yusufbatmaz.chatbot.service.SessionTokenService;
+import com.yusufbatmaz.chatbot.service.UserService;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.MessageHandler;
+import jakarta.websocket.Session;
+
+/**
+ * Kalıcı WebSocket chat kanalı.
+ *
+ * Bağlantı bir kez doğrulanır, sonra aynı bağlantı üzerinden istemcinin verdiği
+ * ID'lerle birden fazla soru eşzamanlı yürütülür ve cevaplar parça parça itilir.
+ * Her mesajda header, token doğrulaması ve kullanıcı sorgusu tekrarlanmaz.
+ *
+ * İstemci mesajları (JSON):
+ * <pre>
+ * {"type":"auth","token":"..."}            ilk mesaj olmalı (token zorunlu değilse "userId" de olur)
+ * {"type":"chat","id":"c1","message":"..."}  yeni akış
+ * {"type":"cancel","id":"c1"}                akışı iptal eder
+ * {"type":"ping"}                            bağlantıyı canlı tutar
+ * </pre>
+ * Sunucu mesajları: ready, token (id, text), done (id), cancelled (id),
+ * error (id?, status, message, retryAfter?) ve pong.
+ *
+ * Akış sayısı bağlantı başına sınırlıdır ve her soru HTTP ile aynı chat rate
+ * limit'inden hak tüketir. Boştaki bağlantı thread tutmaz; akışlar sınırlı bir
+ * worker havuzunda yürür.
+ */
+@Component
+public class ChatWebSocketEndpoint extends Endpoint implements MetricsSource, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatWebSocketEndpoint.class);
+
+    private static final String CONNECTION_KEY = ChatSocketConnection.class.getName();
+    private static final int MAX_STREAM_ID_LENGTH = 64;
+
+    private final ChatWebSocketProperties properties;
+    private final AuthTokenProperties authTokenProperties;
+    private final SessionTokenService sessionTokenService;
+    private final UserService userService;
+    private final ChatService chatService;
+    private final RateLimiter chatRateLimiter;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+
+    private final Set<ChatSocketConnection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger authenticatedConnections = new AtomicInteger();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder authFailures = new LongAdder();
+    private final LongAdder streamsStarted = new LongAdder();
+    private final LongAdder streamsCompleted = new LongAdder();
+    private final LongAdder streamsCancelled = new LongAdder();
+    private final LongAdder streamsFailed = new LongAdder();
+    private final LongAdder streamsRejected = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+
+    public ChatWebSocketEndpoint(ChatWebSocketProperties properties, AuthTokenProperties authTokenProperties,
+                                 SessionTokenService sessionTokenService, UserService userService,
+                                 ChatService chatService, RateLimitConfig rateLimitConfig, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.authTokenProperties = authTokenProperties;
+        this.sessionTokenService = sessionTokenService;
+        this.userService = userService;
+        this.chatService = chatService;
+        this.chatRateLimiter = rateLimitConfig.getLimiter(RateLimitConfig.CHAT_ROUTE);
+        this.objectMapper = objectMapper;
+        this.executor = new ThreadPoolExecutor(properties.getWorkerThreads(), properties.getWorkerThreads(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("chat-ws-"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        // Doğrulama gelene kadar kısa idle süresi; doğrulanınca uzatılır
+        session.setMaxIdleTimeout(properties.getAuthTimeout().toMillis());
+        session.getAsyncRemote().setSendTimeout(properties.getSendTimeout().toMillis());
+
+        ChatSocketConnection connection = new ChatSocketConnection(session, objectMapper, framesSent,
+                properties.getMaxQueuedFrames());
+        session.getUserProperties().put(CONNECTION_KEY, connection);
+        connections.add(connection);
+        opened.increment();
+
+        session.addMessageHandler(String.class, (MessageHandler.Partial<String>) (fragment, last) -> {
+            String message;
+            try {
+                message = connection.appendFragment(fragment, last, properties.getMaxMessageLength());
+            } catch (IllegalStateException e) {
+                connection.closeAfterFlush(new CloseReason(CloseReason.CloseCodes.TOO_BIG, e.getMessage()));
+                return;
+            }
+            if (message != null) {
+                handle(connection, message);
+            }
+        });
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        ChatSocketConnection connection = (ChatSocketConnection) session.getUserProperties().get(CONNECTION_KEY);
+        if (connection == null || !connections.remove(connection)) {
+            return;
+        }
+        if (connection.user() != null) {
+            authenticatedConnections.decrementAndGet();
+        }
+        int cancelled = connection.onClosed();
+        if (cancelled > 0) {
+            logger.debug("WebSocket kapandı, {} akış iptal edildi - Kod: {}", cancelled, closeReason.getCloseCode());
+        }
+    }
+
+    @Override
+    public void onError(Session session, Throwable error) {
+        // Kopan mobil bağlantılar olağan; yalnızca debug'da loglanır
+        logger.debug("WebSocket hatası: {}", error.getMessage());
+    }
+
+    /**
+     * Tamamlanmış bir istemci mesajını işler (container thread'inde).
+     */
+    private void handle(ChatSocketConnection connection, String message) {
+        JsonNode frame;
+        try {
+            frame = objectMapper.readTree(message);
+        } catch (JsonProcessingException e) {
+            connection.send(error(null, 400, "Geçersiz mesaj formatı"));
+            return;
+        }
+        String type = frame.path("type").asText("");
+
+        if (connection.user() == null) {
+            if ("auth".equals(type)) {
+                authenticate(connection, frame);
+            } else {
+                connection.send(error(null, 401, "Önce kimlik doğrulama gerekli"));
+                connection.closeAfterFlush(new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "Kimlik doğrulama gerekli"));
+            }
+            return;
+        }
+
+        switch (type) {
+            case "chat" -> startStream(connection, frame);
+            case "cancel" -> connection.cancel(frame.path("id").asText(""));
+            case "ping" -> connection.sendPong(objectMapper.createObjectNode().put("type", "pong"));
+            case "auth" -> connection.send(error(null, 400, "Bağlantı zaten doğrulandı"));
+            default -> connection.send(error(null, 400, "Bilinmeyen mesaj tipi: " + type));
+        }
+    }
+
+    /**
+     * Bağlantıyı token ile (token zorunlu değilse kullanıcı ID'si ile) doğrular.
+     */
+    private void authenticate(ChatSocketConnection connection, JsonNode frame) {
+        User user;
+        try {
+            UUID userId = resolveUserId(frame);
+            user = userService.getUserById(userId)
+                    .orElseThrow(() -> new AuthenticationException("Kullanıcı bulunamadı"));
+        } catch (AuthenticationException | ValidationException e) {
+            authFailures.increment();
+            connection.send(error(null, 401, e.getMessage()));
+            connection.closeAfterFlush(new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "Kimlik doğrulanamadı"));
+            return;
+        }
+
+        connection.authenticate(user);
+        authenticatedConnections.incrementAndGet();
+        connection.session().setMaxIdleTimeout(properties.getIdleTimeout().toMillis());
+        connection.send(objectMapper.createObjectNode()
+                .put("type", "ready")
+                .put("userId", user.getId().toString())
+                .put("maxStreams", properties.getMaxStreamsPerConnection()));
+    }
+
+    private UUID resolveUserId(JsonNode frame) {
+        String token = frame.path("token").textValue();
+        if (token != null && !token.isBlank()) {
+            return sessionTokenService.verify(token).userId();
+        }
+        String userId = frame.path("userId").textValue();
+        if (authTokenProperties.isRequired() || userId == null || userId.isBlank()) {
+            throw new AuthenticationException("Oturum token'ı gerekli");
+        }
+        try {
+            return UUID.fromString(userId.trim());
+        } catch (IllegalArgumentException e) {
+            throw new AuthenticationException("Geçersiz kullanıcı ID'si");
+        }
+    }
+
+    /**
+     * Yeni akışı sınırları kontrol ederek worker havuzuna verir.
+     */
+    private void startStream(ChatSocketConnection connection, JsonNode frame) {
+        String id = frame.path("id").textValue();
+        if (id == null || id.isEmpty() || id.length() > MAX_STREAM_ID_LENGTH) {
+            connection.send(error(null, 400, "Geçersiz akış ID'si"));
+            return;
+        }
+        if (connection.activeStreams() >= properties.getMaxStreamsPerConnection()) {
+            streamsRejected.increment();
+            connection.send(error(id, 429, "Bağlantı başına eşzamanlı akış sınırı aşıldı"));
+            return;
+        }
+
+        // Tekrarlanan ID rate limit hakkı harcamasın diye akış önce açılır
+        ChatSocketConnection.Stream stream = connection.openStream(id);
+        if (stream == null) {
+            connection.send(error(id, 409, "Bu ID ile devam eden bir akış var"));
+            return;
+        }
+
+        User user = connection.user();
+        RateLimiter.Decision decision = chatRateLimiter.tryAcquire(user.getId().toString());
+        if (!decision.allowed()) {
+            streamsRejected.increment();
+            long retryAfterSeconds = Math.max(1, (decision.retryAfterMillis() + 999) / 1000);
+            connection.finish(stream, error(id, 429, "Rate limit aşıldı. Lütfen " + retryAfterSeconds
+                    + " saniye sonra tekrar deneyin.").put("retryAfter", retryAfterSeconds));
+            return;
+        }
+        ChatMessage chatMessage = new ChatMessage();
+        chatMessage.setMessage(frame.path("message").textValue());
+        try {
+            executor.execute(() -> runStream(connection, stream, chatMessage));
+        } catch (RejectedExecutionException e) {
+            streamsRejected.increment();
+            connection.finish(stream, error(id, 503, "Sunucu şu anda meşgul. Lütfen tekrar deneyin.").put("retryAfter", 1));
+        }
+    }
+
+    /**
+     * Akışı worker thread'inde yürütür; cevap parçaları bağlantının kuyruğuna eklenir.
+     */
+    private void runStream(ChatSocketConnection connection, ChatSocketConnection.Stream stream, ChatMessage chatMessage) {
+        if (stream.isCancelled()) {
+            streamsCancelled.increment();
+            connection.finish(stream, frame("cancelled", stream.id));
+            return;
+        }
+        streamsStarted.increment();
+        activeStreams.incrementAndGet();
+        ObjectNode last;
+        try {
+            String answer = chatService.askStreaming(chatMessage, connection.user(),
+                    token -> connection.sendToken(stream, token), stream::isCancelled);
+            if (answer == null) {
+                streamsCancelled.increment();
+                last = frame("cancelled", stream.id);
+            } else {
+                streamsCompleted.increment();
+                last = frame("done", stream.id);
+            }
+        } catch (ValidationException e) {
+            streamsFailed.increment();
+            last = error(stream.id, 400, e.getMessage());
+        } catch (TooManyRequestsException e) {
+            streamsFailed.increment();
+            last = error(stream.id, 429, e.getMessage()).put("retryAfter", e.getRetryAfterSeconds());
+        } catch (ServiceUnavailableException e) {
+            streamsFailed.increment();
+            last = error(stream.id, 503, e.getMessage()).put("retryAfter", e.getRetryAfterSeconds());
+        } catch (ResourceAccessException e) {
+            streamsFailed.increment();
+            last = error(stream.id, 503, e.getMessage());
+        } catch (Exception e) {
+            streamsFailed.increment();
+            logger.error("WebSocket chat akışı sırasında beklenmeyen hata - Kullanıcı: {}", connection.user().getId(), e);
+            last = error(stream.id, 500, "Beklenmeyen bir hata oluştu. Lütfen daha sonra tekrar deneyin.");
+        } finally {
+            activeStreams.decrementAndGet();
+        }
+        connection.finish(stream, last);
+    }
+
+    private ObjectNode frame(String type, String id) {
+        return objectMapper.createObjectNode().put("type", type).put("id", id);
+    }
+
+    private ObjectNode error(String id, int status, String message) {
+        ObjectNode node = objectMapper.createObjectNode().put("type", "error");
+        if (id != null) {
+            node.put("id", id);
+        }
+        return node.put("status", status).put("message", message);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "chatWebSocket";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("connections", connections.size());
+        metrics.put("authenticated", authenticatedConnections.get());
+        metrics.put("opened", opened.sum());
+        metrics.put("authFailures", authFailures.sum());
+        metrics.put("activeStreams", activeStreams.get());
+        metrics.put("queuedStreams", executor.getQueue().size());
+        metrics.put("streamsStarted", streamsStarted.sum());
+        metrics.put("streamsCompleted", streamsCompleted.sum());
+        metrics.put("streamsCancelled", streamsCancelled.sum());
+        metrics.put("streamsFailed", streamsFailed.sum());
+        metrics.put("streamsRejected", streamsRejected.sum());
+        metrics.put("framesSent", framesSent.sum());
+        return metrics;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (ChatSocketConnection connection : connections) {
+            connection.closeAfterFlush(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "Sunucu kapanıyor"));
+        }
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
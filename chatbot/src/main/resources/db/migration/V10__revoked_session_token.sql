@@ -0,0 +1,8 @@
+-- Çıkış yapılan oturum token'ları; tüm node'lar doğrulamada bu tabloya bakar
+-- Süresi dolan satırlar SessionTokenService tarafından periyodik olarak silinir
+CREATE TABLE IF NOT EXISTS revoked_session_token (
+    token_id BIGINT PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_session_token_expires_at ON revoked_session_token (expires_at);
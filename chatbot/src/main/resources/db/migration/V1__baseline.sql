@@ -0,0 +1,46 @@
+-- Başlangıç şeması. Daha önce ddl-auto=update ile oluşturulmuş veritabanlarında
+-- tablolar zaten var olduğu için tüm ifadeler IF NOT EXISTS ile yazıldı.
+
+CREATE TABLE IF NOT EXISTS "user" (
+    id UUID PRIMARY KEY,
+    first_name VARCHAR(50),
+    last_name VARCHAR(50),
+    email VARCHAR(255),
+    password VARCHAR(100)
+);
+
+CREATE TABLE IF NOT EXISTS chat_history (
+    id UUID PRIMARY KEY,
+    user_id UUID NOT NULL REFERENCES "user" (id),
+    user_message TEXT NOT NULL,
+    bot_response VARCHAR(2000) NOT NULL,
+    timestamp TIMESTAMP(6) NOT NULL,
+    question_category VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS user_profile (
+    id UUID PRIMARY KEY,
+    user_id UUID REFERENCES "user" (id),
+    preferred_language VARCHAR(255),
+    nickname VARCHAR(255),
+    occupation VARCHAR(255),
+    personality VARCHAR(255),
+    additional_info VARCHAR(255),
+    enable_for_new_chats BOOLEAN NOT NULL DEFAULT TRUE,
+    native_language VARCHAR(255),
+    force_response_language BOOLEAN NOT NULL DEFAULT FALSE,
+    forced_response_language VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS user_profile_traits (
+    profile_id UUID NOT NULL REFERENCES user_profile (id),
+    trait VARCHAR(255)
+);
+
+-- DISTRIBUTED rate limit modunun ortak token kovası tablosu
+CREATE TABLE IF NOT EXISTS rate_limit_bucket (
+    bucket_key VARCHAR(255) PRIMARY KEY,
+    tokens DOUBLE PRECISION NOT NULL,
+    last_grant INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL
+);
@@ -0,0 +1,14 @@
+-- Sık çalışan sorgular için indeksler.
+
+-- Kullanıcının sohbet geçmişi (user_id ile filtre, timestamp ile sıralama)
+CREATE INDEX IF NOT EXISTS idx_chat_history_user_timestamp ON chat_history (user_id, timestamp);
+
+-- Email büyük/küçük harf duyarsız tekil: findByEmail/existsByEmail bu indeksi kullanır
+-- ve aynı email ile eşzamanlı iki kayıt veritabanı seviyesinde engellenir
+CREATE UNIQUE INDEX IF NOT EXISTS ux_user_email_lower ON "user" (lower(email));
+
+-- Kullanıcı başına tek profil; findByUser_Id bu indeksi kullanır
+CREATE UNIQUE INDEX IF NOT EXISTS ux_user_profile_user_id ON user_profile (user_id);
+
+-- Profil özellikleri profil ID'si ile okunur
+CREATE INDEX IF NOT EXISTS idx_user_profile_traits_profile_id ON user_profile_traits (profile_id);
@@ -0,0 +1,26 @@
+-- Profil özellikleri ayrı tablodan (user_profile_traits) profil satırındaki
+-- bit maskesine taşınır. Bit sırası TraitRegistry.TRAITS ile aynıdır;
+-- listede olmayan eski değerler taşınmaz.
+
+ALTER TABLE user_profile ADD COLUMN IF NOT EXISTS traits_mask BIGINT NOT NULL DEFAULT 0;
+
+UPDATE user_profile p
+SET traits_mask = t.mask
+FROM (
+    SELECT profile_id,
+           bit_or(CASE trait
+                      WHEN 'chatty' THEN 1
+                      WHEN 'witty' THEN 2
+                      WHEN 'straightShooting' THEN 4
+                      WHEN 'encouraging' THEN 8
+                      WHEN 'genZ' THEN 16
+                      WHEN 'traditional' THEN 32
+                      WHEN 'forwardThinking' THEN 64
+                      ELSE 0
+                  END)::BIGINT AS mask
+    FROM user_profile_traits
+    GROUP BY profile_id
+) t
+WHERE p.id = t.profile_id;
+
+DROP TABLE user_profile_traits;
@@ -0,0 +1,3 @@
+-- Toplu yazılan profil aktivite kolonları (ProfileWriteBehind)
+ALTER TABLE user_profile ADD COLUMN IF NOT EXISTS last_seen_at TIMESTAMP(6);
+ALTER TABLE user_profile ADD COLUMN IF NOT EXISTS message_count BIGINT NOT NULL DEFAULT 0;
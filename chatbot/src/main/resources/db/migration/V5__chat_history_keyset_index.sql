@@ -0,0 +1,5 @@
+-- Geçmiş sayfalama (timestamp, id) keyset'i ile yapılır; id'yi de içeren indeks
+-- hem yeniden eskiye hem eskiden yeniye sıralamayı sort olmadan karşılar.
+CREATE INDEX IF NOT EXISTS idx_chat_history_user_timestamp_id ON chat_history (user_id, timestamp, id);
+
+DROP INDEX IF EXISTS idx_chat_history_user_timestamp;
@@ -0,0 +1,28 @@
+-- chat_history, timestamp üzerinden aylık range partition'lara bölünür.
+-- Mevcut kayıtlar önce DEFAULT partition'a kopyalanır; aylık partition'lar
+-- ChatPartitionManager tarafından açılışta oluşturulur ve ilgili satırlar
+-- DEFAULT partition'dan taşınır. Partition anahtarı birincil anahtarda
+-- bulunmak zorunda olduğu için PK (id, timestamp) olur.
+
+ALTER TABLE chat_history RENAME TO chat_history_legacy;
+ALTER TABLE chat_history_legacy RENAME CONSTRAINT chat_history_pkey TO chat_history_legacy_pkey;
+DROP INDEX IF EXISTS idx_chat_history_user_timestamp_id;
+
+CREATE TABLE chat_history (
+    id UUID NOT NULL,
+    user_id UUID NOT NULL REFERENCES "user" (id),
+    user_message TEXT NOT NULL,
+    bot_response VARCHAR(2000) NOT NULL,
+    timestamp TIMESTAMP(6) NOT NULL,
+    question_category VARCHAR(255),
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE chat_history_default PARTITION OF chat_history DEFAULT;
+
+CREATE INDEX idx_chat_history_user_timestamp_id ON chat_history (user_id, timestamp, id);
+
+INSERT INTO chat_history (id, user_id, user_message, bot_response, timestamp, question_category)
+SELECT id, user_id, user_message, bot_response, timestamp, question_category FROM chat_history_legacy;
+
+DROP TABLE chat_history_legacy;
@@ -0,0 +1,6 @@
+-- Sohbet metinleri TextCompressor formatında bytea olarak saklanır. Mevcut
+-- satırlar "ham" format baytıyla (0x00) çevrilir; sıkıştırma yeni yazılan
+-- satırlara uygulanır.
+ALTER TABLE chat_history
+    ALTER COLUMN user_message TYPE BYTEA USING decode('00', 'hex') || convert_to(user_message, 'UTF8'),
+    ALTER COLUMN bot_response TYPE BYTEA USING decode('00', 'hex') || convert_to(bot_response, 'UTF8');
@@ -0,0 +1,3 @@
+-- LLM'e gitmeden yerel olarak cevaplanan sohbet turları (LocalResponder)
+-- Sabit varsayılanlı kolon ekleme tabloyu yeniden yazmaz; partition'lara da yayılır
+ALTER TABLE chat_history ADD COLUMN IF NOT EXISTS answered_locally BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,3 @@
+-- Profil için optimistic locking versiyonu (ETag ve If-Match kontrolleri bunu kullanır)
+-- Toplu profil yazımı (ProfileWriteBehind) bu kolonu değiştirmez
+ALTER TABLE user_profile ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
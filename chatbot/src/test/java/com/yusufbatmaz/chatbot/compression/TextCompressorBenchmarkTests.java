@@ -0,0 +1,113 @@
+package com.yusufbatmaz.chatbot.compression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TextCompressor'ün doğruluğunu ve satır başına kodlama/çözme maliyetini ölçer.
+ * Sonuçlar konsola yazılır; süre eşikleri CI makinelerine göre geniş tutuldu.
+ */
+class TextCompressorBenchmarkTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(TextCompressorBenchmarkTests.class);
+
+    private static final String[] SENTENCES = {
+        "I hope this helps! Let me know if you have any other questions.",
+        "Here is a step-by-step guide to get you started with the project.",
+        "For example, you could try the following approach to solve the problem.",
+        "It is important to note that this may vary depending on your situation.",
+        "Umarım bu yardımcı olur! Başka bir sorunuz varsa lütfen sorun.",
+        "Örneğin, şu yaklaşımı deneyebilirsiniz ve sonucu bana bildirebilirsiniz.",
+        "The difference between these two options is mostly about performance.",
+        "Bu iki seçenek arasındaki fark genellikle performansla ilgilidir.",
+    };
+
+    @Test
+    void roundTripsAllFormats() {
+        for (String text : List.of("", "hi", "Merhaba!", sample(new Random(1), 4000), "ğüşıöç ✓ 日本語".repeat(20))) {
+            assertEquals(text, TextCompressor.decode(TextCompressor.encode(text)));
+        }
+        assertEquals(null, TextCompressor.decode(TextCompressor.encode(null)));
+    }
+
+    @Test
+    void shortValuesStayRawAndOldRowsStayReadable() {
+        byte[] encoded = TextCompressor.encode("short");
+        assertEquals(TextCompressor.FORMAT_RAW, encoded[0]);
+        // V7 migration'ının ürettiği format: 0x00 + UTF-8
+        byte[] legacy = ("\0" + "eski satır").getBytes(StandardCharsets.UTF_8);
+        assertEquals("eski satır", TextCompressor.decode(legacy));
+    }
+
+    @Test
+    void incompressibleValuesAreNotExpanded() {
+        Random random = new Random(7);
+        StringBuilder noise = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            noise.append((char) ('!' + random.nextInt(90)));
+        }
+        // Sıkıştırma kazandırmasa bile en fazla format baytı kadar büyür
+        byte[] encoded = TextCompressor.encode(noise.toString());
+        assertTrue(encoded.length <= noise.length() + 1, "Kodlanmış değer büyüdü: " + encoded.length);
+        assertEquals(noise.toString(), TextCompressor.decode(encoded));
+    }
+
+    @Test
+    void benchmarkEncodeAndDecodePerRow() {
+        Random random = new Random(42);
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            rows.add(sample(random, 80 + random.nextInt(1900)));
+        }
+        // JIT ısınması
+        for (int i = 0; i < 5; i++) {
+            for (String row : rows) {
+                TextCompressor.decode(TextCompressor.encode(row));
+            }
+        }
+
+        long rawBytes = 0;
+        long storedBytes = 0;
+        List<byte[]> encoded = new ArrayList<>(rows.size());
+        long start = System.nanoTime();
+        for (String row : rows) {
+            encoded.add(TextCompressor.encode(row));
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (byte[] value : encoded) {
+            TextCompressor.decode(value);
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        for (int i = 0; i < rows.size(); i++) {
+            rawBytes += rows.get(i).getBytes(StandardCharsets.UTF_8).length;
+            storedBytes += encoded.get(i).length;
+        }
+        double ratio = (double) rawBytes / storedBytes;
+        logger.info("TextCompressor: {} satır, encode {} µs/satır, decode {} µs/satır, oran {}x",
+                rows.size(), String.format("%.1f", encodeNanos / 1_000.0 / rows.size()),
+                String.format("%.1f", decodeNanos / 1_000.0 / rows.size()), String.format("%.2f", ratio));
+
+        assertTrue(ratio > 2.0, "Sıkıştırma oranı beklenenden düşük: " + ratio);
+        assertTrue(encodeNanos / rows.size() < 1_000_000, "Kodlama satır başına 1 ms'yi aşmamalı");
+    }
+
+    private static String sample(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 100);
+        while (text.length() < length) {
+            text.append(SENTENCES[random.nextInt(SENTENCES.length)]).append(' ');
+        }
+        return text.substring(0, length);
+    }
+}
@@ -0,0 +1,107 @@
+package com.yusufbatmaz.chatbot.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Migration'ların uygulandığını ve repository sorgularının indeks kullandığını
+ * gerçek PostgreSQL üzerinde EXPLAIN ile doğrular. Sequential scan kapatılır;
+ * böylece boş tabloda da planner indeks varsa onu seçer.
+ */
+@SpringBootTest
+class SchemaMigratorTests {
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void migrationsAreAppliedOnceAndRerunIsNoop() throws Exception {
+        List<Integer> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM schema_migrations ORDER BY version", Integer.class);
+        assertTrue(versions.containsAll(List.of(1, 2)), "Uygulanan versiyonlar: " + versions);
+        assertEquals(0, schemaMigrator.migrate());
+    }
+
+    @Test
+    void findByEmailUsesCaseInsensitiveEmailIndex() {
+        String plan = explain("SELECT * FROM \"user\" u WHERE lower(u.email) = lower('Someone@Example.com')");
+        assertTrue(plan.contains("ux_user_email_lower"), plan);
+    }
+
+    @Test
+    void existsByEmailUsesCaseInsensitiveEmailIndex() {
+        String plan = explain("SELECT count(u.id) > 0 FROM \"user\" u WHERE lower(u.email) = lower('someone@example.com')");
+        assertTrue(plan.contains("ux_user_email_lower"), plan);
+    }
+
+    @Test
+    void findProfileByUserIdUsesUserIdIndex() {
+        String plan = explain("SELECT * FROM user_profile p WHERE p.user_id = '" + UUID.randomUUID() + "'");
+        assertTrue(plan.contains("ux_user_profile_user_id"), plan);
+    }
+
+    @Test
+    void recentHistoryUsesUserTimestampIndex() {
+        String plan = explain("SELECT * FROM chat_history h WHERE h.user_id = '" + UUID.randomUUID()
+                + "' ORDER BY h.timestamp DESC LIMIT 20");
+        assertTrue(usesHistoryIndex(plan), plan);
+        assertTrue(!hasSortNode(plan), "Sıralama indeksten gelmeli: " + plan);
+    }
+
+    @Test
+    void historyKeysetPageUsesIndexWithoutSort() {
+        String plan = explain("SELECT h.id, h.timestamp, h.question_category FROM chat_history h WHERE h.user_id = '"
+                + UUID.randomUUID() + "' AND (h.timestamp < now() OR (h.timestamp = now() AND h.id < '"
+                + UUID.randomUUID() + "')) ORDER BY h.timestamp DESC, h.id DESC LIMIT 51");
+        assertTrue(usesHistoryIndex(plan), plan);
+        assertTrue(!hasSortNode(plan), "Sıralama indeksten gelmeli: " + plan);
+    }
+
+    @Test
+    void chatHistoryIsPartitionedWithCurrentMonth() {
+        String kind = jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('chat_history')", String.class);
+        assertEquals("p", kind);
+        YearMonth month = YearMonth.now();
+        String partition = String.format("chat_history_p%04d_%02d", month.getYear(), month.getMonthValue());
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition));
+    }
+
+    /**
+     * Partition'lı tabloda planner partition başına oluşan indeksleri kullanır
+     * (örn. chat_history_p2025_01_user_id_timestamp_id_idx).
+     */
+    private static boolean usesHistoryIndex(String plan) {
+        return plan.contains("idx_chat_history_user_timestamp_id") || plan.contains("user_id_timestamp_id_idx");
+    }
+
+    /**
+     * Merge Append'in "Sort Key" satırı sayılmaz; yalnızca ayrı bir Sort düğümü aranır.
+     */
+    private static boolean hasSortNode(String plan) {
+        return plan.lines().anyMatch(line -> line.matches("\\s*(->\\s+)?Sort\\s+\\(.*"));
+    }
+
+    private String explain(String sql) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+        });
+    }
+}